@@ -8,6 +8,11 @@ import android.os.Build;
 import androidx.work.Configuration;
 import androidx.work.WorkManager;
 
+import com.rupex.app.data.local.AggregateVerifier;
+import com.rupex.app.insights.BudgetTracker;
+import com.rupex.app.insights.RecurringDetector;
+import com.rupex.app.merchant.CategoryMemory;
+
 /**
  * Application class for 0xRupex
  * Initializes notification channels and WorkManager
@@ -21,6 +26,10 @@ public class RupexApplication extends Application {
     public void onCreate() {
         super.onCreate();
         createNotificationChannels();
+        CategoryMemory.getInstance().load(this);
+        RecurringDetector.getInstance(this).requestScan();
+        BudgetTracker.getInstance(this).checkAlerts();
+        AggregateVerifier.verifyIfDue(this);
     }
 
     private void createNotificationChannels() {
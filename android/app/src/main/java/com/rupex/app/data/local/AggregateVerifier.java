@@ -0,0 +1,86 @@
+package com.rupex.app.data.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.rupex.app.data.local.dao.AggregateDao;
+import com.rupex.app.util.AppLog;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the trigger-maintained aggregates (agg_month_category, agg_day) against
+ * a full recompute from pending_transactions, and rebuilds them if they drifted.
+ *
+ * The triggers keep them exact, so drift means a bug or a write that bypassed
+ * them (e.g. a restored backup); the buckets are logged for a bug report.
+ * Runs at most once per {@link #INTERVAL_MS}, in the background.
+ */
+public final class AggregateVerifier {
+
+    private static final String TAG = "AggregateVerifier";
+    private static final String PREFS_NAME = "aggregate_prefs";
+    private static final String KEY_LAST_VERIFIED = "last_verified_at";
+    private static final long INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final double TOLERANCE = 0.01; // ₹, running sums of doubles
+    private static final int MAX_LOGGED = 10;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private AggregateVerifier() {}
+
+    /**
+     * Verify (and repair) in the background if the last check is older than a day
+     */
+    public static void verifyIfDue(Context context) {
+        Context appContext = context.getApplicationContext();
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong(KEY_LAST_VERIFIED, 0) < INTERVAL_MS) return;
+
+        executor.execute(() -> {
+            try {
+                verifyAndRepair(RupexDatabase.getInstance(appContext));
+                prefs.edit().putLong(KEY_LAST_VERIFIED, now).apply();
+            } catch (Exception e) {
+                Log.e(TAG, "Error verifying aggregates", e);
+            }
+        });
+    }
+
+    /**
+     * Compare the aggregates with a recompute and rebuild them on any difference.
+     * Returns the number of drifted buckets. Call off the main thread.
+     */
+    public static int verifyAndRepair(RupexDatabase db) {
+        return db.runInTransaction(() -> {
+            AggregateDao dao = db.aggregateDao();
+            List<AggregateDao.Drift> months = dao.findMonthCategoryDrift(TOLERANCE);
+            List<AggregateDao.Drift> days = dao.findDayDrift(TOLERANCE);
+            int drifted = months.size() + days.size();
+            if (drifted == 0) {
+                AppLog.d(TAG, "Aggregates match the transactions");
+                return 0;
+            }
+
+            AppLog.w(TAG, "Aggregates drifted: {} month and {} day buckets", months.size(), days.size());
+            log(days, log(months, 0));
+            DatabaseTriggers.rebuildAggregates(db.getOpenHelper().getWritableDatabase());
+            return drifted;
+        });
+    }
+
+    // Log up to MAX_LOGGED buckets in total; returns the number logged so far
+    private static int log(List<AggregateDao.Drift> drifts, int logged) {
+        for (AggregateDao.Drift drift : drifts) {
+            if (logged == MAX_LOGGED) break;
+            AppLog.w(TAG, drift.toString());
+            logged++;
+        }
+        return logged;
+    }
+}
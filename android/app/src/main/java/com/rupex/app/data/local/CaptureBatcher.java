@@ -0,0 +1,273 @@
+package com.rupex.app.data.local;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.rupex.app.data.local.entity.ActivityLog;
+import com.rupex.app.insights.BudgetTracker;
+import com.rupex.app.insights.RecurringDetector;
+import com.rupex.app.merchant.MerchantResolver;
+import com.rupex.app.sync.SyncManager;
+import com.rupex.app.util.ActivityLogger;
+import com.rupex.app.util.AppLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commits captured transactions (SMS / notifications).
+ *
+ * Banks send SMS in bursts (salary credit + auto-debits, several card swipes).
+ * Writes submitted within a short window, or until the batch is full, run in one
+ * Room transaction, followed by a single sync trigger and budget check. Their
+ * activity logs are handed to {@link ActivityLogger} once the batch has committed.
+ * Under bursts this turns N fsyncs and N sync requests into one.
+ *
+ * Writes are applied in submission order on a single thread. If one throws, the
+ * batch is rolled back and each write is retried in its own transaction: the
+ * futures of writes that still fail complete exceptionally, the rest normally.
+ * Futures complete as soon as their writes commit, before the follow-up work
+ * (activity log, sync, budget and recurring checks), whose failures are only logged.
+ */
+public class CaptureBatcher {
+
+    private static final String TAG = "CaptureBatcher";
+
+    public static final long DEFAULT_WINDOW_MS = 100;
+    public static final int DEFAULT_MAX_BATCH = 32;
+
+    private static volatile CaptureBatcher INSTANCE;
+
+    /**
+     * One captured event. Runs inside the batch transaction; throw to fail it
+     * (the batch is then retried without it).
+     */
+    public interface CaptureWrite {
+        void apply(RupexDatabase db, Batch batch);
+    }
+
+    /**
+     * Per-batch side effects collected while writes are applied
+     */
+    public static class Batch {
+        private final List<ActivityLog> logs = new ArrayList<>();
+        private final List<Runnable> rollbackActions = new ArrayList<>();
+        private boolean syncRequested;
+
+        public void logCaptured(String source, String message, Double amount, String merchant) {
+            logs.add(ActivityLogger.newLog("captured", source, message, null, amount, merchant));
+        }
+
+        public void logAdded(String source, String message, Double amount, String merchant) {
+            logs.add(ActivityLogger.newLog("added", source, message, null, amount, merchant));
+        }
+
+        public void logRejected(String source, String message, String reason, Double amount, String merchant) {
+            logs.add(ActivityLogger.newLog("rejected", source, message, reason, amount, merchant));
+        }
+
+        /**
+         * Schedule a server sync once this batch has committed
+         */
+        public void requestSync() {
+            syncRequested = true;
+        }
+
+        /**
+         * Undo in-memory state that refers to rows written by this batch (e.g. cached
+         * row ids) if its transaction rolls back. Actions run newest first.
+         */
+        public void onRollback(Runnable action) {
+            rollbackActions.add(action);
+        }
+
+        private void merge(Batch other) {
+            logs.addAll(other.logs);
+            syncRequested |= other.syncRequested;
+        }
+
+        private void rolledBack() {
+            for (int i = rollbackActions.size() - 1; i >= 0; i--) {
+                rollbackActions.get(i).run();
+            }
+            // Ids of merchants inserted by the rolled-back writes may be handed out again
+            MerchantResolver.getInstance().clearCache();
+        }
+    }
+
+    private static class Pending {
+        final CaptureWrite write;
+        final long submittedAtNanos;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(CaptureWrite write) {
+            this.write = write;
+            this.submittedAtNanos = System.nanoTime();
+        }
+    }
+
+    private final Context appContext;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Object lock = new Object();
+
+    private List<Pending> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private volatile long windowMs = DEFAULT_WINDOW_MS;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH;
+
+    // Capture-to-commit latency, guarded by lock
+    private long committedCount;
+    private long totalLatencyMs;
+    private long maxLatencyMs;
+
+    private CaptureBatcher(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static CaptureBatcher getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (CaptureBatcher.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CaptureBatcher(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Set the collection window (ms) and the batch size that forces an early flush
+     */
+    public void configure(long windowMs, int maxBatchSize) {
+        this.windowMs = Math.max(0, windowMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Queue a write for the next batch.
+     *
+     * @return a future that completes once the batch containing this write has committed
+     */
+    public Future<Void> submit(CaptureWrite write) {
+        Pending item = new Pending(write);
+        synchronized (lock) {
+            pending.add(item);
+            if (pending.size() >= maxBatchSize) {
+                executor.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return item.done;
+    }
+
+    private void flush() {
+        List<Pending> batchItems;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                flushScheduled = false;
+                return;
+            }
+            batchItems = pending;
+            pending = new ArrayList<>();
+            flushScheduled = false;
+        }
+
+        RupexDatabase db = RupexDatabase.getInstance(appContext);
+        Batch whole = new Batch();
+        Batch batch = whole;
+        long batchMaxLatencyMs;
+        int committedSize;
+        try {
+            db.runInTransaction(() -> {
+                for (Pending item : batchItems) {
+                    item.write.apply(db, whole);
+                }
+            });
+            batchMaxLatencyMs = complete(batchItems);
+            committedSize = batchItems.size();
+        } catch (Exception e) {
+            // A failed write rolls back the whole transaction, so retry each write on its own
+            Log.w(TAG, "Capture batch of " + batchItems.size() + " failed, retrying writes one by one", e);
+            whole.rolledBack();
+            batch = new Batch();
+            batchMaxLatencyMs = 0;
+            committedSize = 0;
+            for (Pending item : batchItems) {
+                Batch single = new Batch();
+                try {
+                    db.runInTransaction(() -> item.write.apply(db, single));
+                } catch (Exception itemError) {
+                    Log.e(TAG, "Capture write failed", itemError);
+                    single.rolledBack();
+                    item.done.completeExceptionally(itemError);
+                    continue;
+                }
+                batch.merge(single);
+                batchMaxLatencyMs = Math.max(batchMaxLatencyMs, complete(Collections.singletonList(item)));
+                committedSize++;
+            }
+            if (committedSize == 0) return;
+        }
+
+        // The rows are stored and their callers released; a failure here must not undo that
+        try {
+            ActivityLogger.logAll(appContext, batch.logs);
+            if (batch.syncRequested) {
+                SyncManager.scheduleSyncNow(appContext);
+            }
+            BudgetTracker.getInstance(appContext).checkAlerts();
+            RecurringDetector.getInstance(appContext).requestScan();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Post-commit work failed", e);
+        }
+
+        int finalCommittedSize = committedSize;
+        long finalMaxLatencyMs = batchMaxLatencyMs;
+        AppLog.d(TAG, () -> "Committed " + finalCommittedSize + " captures, max latency " + finalMaxLatencyMs + "ms");
+    }
+
+    // Record the latency of committed writes and complete their futures; returns the worst latency
+    private long complete(List<Pending> committed) {
+        long now = System.nanoTime();
+        long batchMaxLatencyMs = 0;
+        synchronized (lock) {
+            for (Pending item : committed) {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(now - item.submittedAtNanos);
+                batchMaxLatencyMs = Math.max(batchMaxLatencyMs, latencyMs);
+                totalLatencyMs += latencyMs;
+                committedCount++;
+            }
+            maxLatencyMs = Math.max(maxLatencyMs, batchMaxLatencyMs);
+        }
+        for (Pending item : committed) {
+            item.done.complete(null);
+        }
+        return batchMaxLatencyMs;
+    }
+
+    /**
+     * Average capture-to-commit latency in ms since process start
+     */
+    public long getAverageLatencyMs() {
+        synchronized (lock) {
+            return committedCount > 0 ? totalLatencyMs / committedCount : 0;
+        }
+    }
+
+    /**
+     * Worst capture-to-commit latency in ms since process start
+     */
+    public long getMaxLatencyMs() {
+        synchronized (lock) {
+            return maxLatencyMs;
+        }
+    }
+}
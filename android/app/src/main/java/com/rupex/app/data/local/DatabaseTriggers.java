@@ -0,0 +1,86 @@
+package com.rupex.app.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite triggers that keep derived tables in step with pending_transactions.
+ *
+ * They run inside the transaction of whichever statement changed the row, so
+ * every insert, edit and delete (captures, sync, user edits, bulk category
+ * updates) is reflected atomically, whichever thread or process made it.
+ * Triggers aren't part of Room's schema, so they are (re)created when the
+ * database opens; see {@link RupexDatabase}. A migration that changes a
+ * trigger's definition must drop the old one first.
+ *
+ * Maintained tables:
+ *  - agg_month_category: total and count per (year_month, type, category)
+ *  - agg_day: total and count per (local_day, type)
+ */
+public final class DatabaseTriggers {
+
+    private DatabaseTriggers() {}
+
+    // A row's category with blanks as 'Other'
+    private static String category(String row) {
+        return "COALESCE(NULLIF(" + row + ".category, ''), 'Other')";
+    }
+
+    private static String monthKey(String row) {
+        return "year_month = " + row + ".year_month AND type = " + row + ".type AND category = " + category(row);
+    }
+
+    private static String dayKey(String row) {
+        return "local_day = " + row + ".local_day AND type = " + row + ".type";
+    }
+
+    private static String add(String row) {
+        return "INSERT OR IGNORE INTO agg_month_category (year_month, type, category, total, count, alert_level) "
+                + "VALUES (" + row + ".year_month, " + row + ".type, " + category(row) + ", 0, 0, 0); "
+                + "UPDATE agg_month_category SET total = total + " + row + ".amount, count = count + 1 "
+                + "WHERE " + monthKey(row) + "; "
+                + "INSERT OR IGNORE INTO agg_day (local_day, type, total, count) "
+                + "VALUES (" + row + ".local_day, " + row + ".type, 0, 0); "
+                + "UPDATE agg_day SET total = total + " + row + ".amount, count = count + 1 "
+                + "WHERE " + dayKey(row) + "; ";
+    }
+
+    private static String remove(String row) {
+        return "UPDATE agg_month_category SET total = total - " + row + ".amount, count = count - 1 "
+                + "WHERE " + monthKey(row) + "; "
+                + "UPDATE agg_day SET total = total - " + row + ".amount, count = count - 1 "
+                + "WHERE " + dayKey(row) + "; "
+                + "DELETE FROM agg_day WHERE " + dayKey(row) + " AND count <= 0; ";
+    }
+
+    /**
+     * Create the triggers if missing
+     */
+    public static void create(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_insert` "
+                + "AFTER INSERT ON `pending_transactions` BEGIN " + add("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_update` "
+                + "AFTER UPDATE OF type, amount, category, year_month, local_day ON `pending_transactions` BEGIN "
+                + remove("OLD") + add("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_delete` "
+                + "AFTER DELETE ON `pending_transactions` BEGIN " + remove("OLD") + "END");
+    }
+
+    /**
+     * Recompute agg_month_category and agg_day from pending_transactions, keeping the
+     * alert level of each (month, type, category) that still has transactions
+     */
+    public static void rebuildAggregates(@NonNull SupportSQLiteDatabase db) {
+        String category = category("p");
+        db.execSQL("UPDATE agg_month_category SET total = 0, count = 0");
+        db.execSQL("INSERT OR REPLACE INTO agg_month_category (year_month, type, category, total, count, alert_level) "
+                + "SELECT p.year_month AS ym, p.type AS t, " + category + " AS cat, SUM(p.amount), COUNT(*), "
+                + "COALESCE((SELECT a.alert_level FROM agg_month_category a "
+                + "WHERE a.year_month = p.year_month AND a.type = p.type AND a.category = " + category + "), 0) "
+                + "FROM pending_transactions p GROUP BY ym, t, cat");
+        db.execSQL("DELETE FROM agg_month_category WHERE count = 0");
+        db.execSQL("DELETE FROM agg_day");
+        db.execSQL("INSERT INTO agg_day (local_day, type, total, count) "
+                + "SELECT local_day, type, SUM(amount), COUNT(*) FROM pending_transactions GROUP BY local_day, type");
+    }
+}
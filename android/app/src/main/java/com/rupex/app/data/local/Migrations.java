@@ -0,0 +1,460 @@
+package com.rupex.app.data.local;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.rupex.app.data.local.entity.Account;
+import com.rupex.app.data.local.entity.ActivityLog;
+import com.rupex.app.merchant.MerchantMatcher;
+
+/**
+ * Room schema migrations for {@link RupexDatabase}.
+ *
+ * Every schema change bumps the database version and adds a migration here,
+ * so upgrades keep local (possibly unsynced) data. There is no destructive
+ * fallback past version 5: a missing migration fails loudly instead of wiping
+ * the ledger. The exported schemas (app/schemas) let MigrationTest check that
+ * each upgrade ends at exactly the schema Room expects.
+ */
+public final class Migrations {
+
+    private Migrations() {}
+
+    /**
+     * 5 → 6: index reference_id for exact UPI reference (UTR) merges
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_reference_id` "
+                    + "ON `pending_transactions` (`reference_id`)");
+        }
+    };
+
+    /**
+     * 6 → 7: activity_logs becomes a fixed-slot ring (slot = seq % RING_SIZE).
+     * The newest RING_SIZE rows are kept, using the old auto-increment id as seq.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            int ringSize = ActivityLog.RING_SIZE;
+            db.execSQL("CREATE TABLE IF NOT EXISTS `activity_logs_new` ("
+                    + "`slot` INTEGER NOT NULL, `seq` INTEGER NOT NULL, `type` TEXT NOT NULL, "
+                    + "`source` TEXT, `message` TEXT, `amount` REAL, `merchant` TEXT, `reason` TEXT, "
+                    + "`timestamp` INTEGER NOT NULL, PRIMARY KEY(`slot`))");
+            db.execSQL("INSERT OR REPLACE INTO `activity_logs_new` "
+                    + "(slot, seq, type, source, message, amount, merchant, reason, timestamp) "
+                    + "SELECT id % " + ringSize + ", id, type, source, message, amount, merchant, reason, timestamp "
+                    + "FROM `activity_logs` "
+                    + "WHERE id IN (SELECT id FROM `activity_logs` ORDER BY id DESC LIMIT " + ringSize + ") "
+                    + "ORDER BY id");
+            db.execSQL("DROP TABLE `activity_logs`");
+            db.execSQL("ALTER TABLE `activity_logs_new` RENAME TO `activity_logs`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_activity_logs_seq` ON `activity_logs` (`seq`)");
+        }
+    };
+
+    /**
+     * 7 → 8: canonical merchant key + sketch on pending_transactions, backfilled from merchant
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `pending_transactions` ADD COLUMN `merchant_key` TEXT");
+            db.execSQL("ALTER TABLE `pending_transactions` ADD COLUMN `merchant_sketch` INTEGER");
+            try (Cursor cursor = db.query("SELECT id, merchant FROM pending_transactions WHERE merchant IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    MerchantMatcher.Signature signature = MerchantMatcher.signature(cursor.getString(1));
+                    if (signature.isEmpty()) continue;
+                    db.execSQL("UPDATE pending_transactions SET merchant_key = ?, merchant_sketch = ? WHERE id = ?",
+                            new Object[]{signature.key, signature.sketch, cursor.getLong(0)});
+                }
+            }
+        }
+    };
+
+    /**
+     * 8 → 9: merchants + merchant_aliases tables, pending_transactions.merchant_id.
+     * One merchant per distinct merchant_key, each key becoming that merchant's first alias.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `merchants` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `display_name` TEXT NOT NULL, "
+                    + "`canonical_key` TEXT NOT NULL, `category_hint` TEXT, `created_at` INTEGER NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_merchants_canonical_key` "
+                    + "ON `merchants` (`canonical_key`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `merchant_aliases` ("
+                    + "`alias` TEXT NOT NULL, `merchant_id` INTEGER NOT NULL, `source` TEXT, "
+                    + "PRIMARY KEY(`alias`), FOREIGN KEY(`merchant_id`) REFERENCES `merchants`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_merchant_aliases_merchant_id` "
+                    + "ON `merchant_aliases` (`merchant_id`)");
+            db.execSQL("ALTER TABLE `pending_transactions` ADD COLUMN `merchant_id` INTEGER");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_merchant_id` "
+                    + "ON `pending_transactions` (`merchant_id`)");
+
+            db.execSQL("INSERT INTO merchants (display_name, canonical_key, category_hint, created_at) "
+                    + "SELECT merchant, merchant_key, NULLIF(category, 'Other'), MIN(created_at) "
+                    + "FROM pending_transactions WHERE merchant_key IS NOT NULL GROUP BY merchant_key");
+            db.execSQL("INSERT OR IGNORE INTO merchant_aliases (alias, merchant_id, source) "
+                    + "SELECT canonical_key, id, 'migration' FROM merchants");
+            db.execSQL("UPDATE pending_transactions SET merchant_id = "
+                    + "(SELECT m.id FROM merchants m WHERE m.canonical_key = pending_transactions.merchant_key) "
+                    + "WHERE merchant_key IS NOT NULL");
+        }
+    };
+
+    /**
+     * 9 → 10: learned category_rules, index merchant_key for applying them in bulk
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `category_rules` ("
+                    + "`merchant_key` TEXT NOT NULL, `category` TEXT NOT NULL, `updated_at` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`merchant_key`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_merchant_key` "
+                    + "ON `pending_transactions` (`merchant_key`)");
+        }
+    };
+
+    /**
+     * 10 → 11: recurring_series and the incremental jobs' watermarks (first scan covers all history)
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recurring_series` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `merchant_id` INTEGER, "
+                    + "`merchant_key` TEXT NOT NULL, `merchant` TEXT, `type` TEXT, `amount` REAL NOT NULL, "
+                    + "`occurrences` INTEGER NOT NULL, `interval_mean` REAL NOT NULL, `interval_m2` REAL NOT NULL, "
+                    + "`period_days` INTEGER NOT NULL, `last_transaction_id` INTEGER NOT NULL, "
+                    + "`last_seen_at` INTEGER NOT NULL, `next_expected_at` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_recurring_series_merchant_id` "
+                    + "ON `recurring_series` (`merchant_id`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_recurring_series_merchant_key` "
+                    + "ON `recurring_series` (`merchant_key`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_recurring_series_next_expected_at` "
+                    + "ON `recurring_series` (`next_expected_at`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `watermarks` ("
+                    + "`name` TEXT NOT NULL, `last_id` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+        }
+    };
+
+    /**
+     * 11 → 12: category budgets and per-(month, category) expense totals, filled from history
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `budgets` (`category` TEXT NOT NULL, "
+                    + "`monthly_limit` REAL NOT NULL, `updated_at` INTEGER NOT NULL, PRIMARY KEY(`category`))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `category_month_totals` (`year_month` INTEGER NOT NULL, "
+                    + "`category` TEXT NOT NULL, `total` REAL NOT NULL, `count` INTEGER NOT NULL, "
+                    + "`alert_level` INTEGER NOT NULL, PRIMARY KEY(`year_month`, `category`))");
+            createCategoryMonthTotalsTriggers(db, false);
+            rebuildCategoryMonthTotals(db, false);
+        }
+    };
+
+    /**
+     * 12 → 13: account balance timeline. Accounts are created for each last_4_digits with an
+     * SMS balance, starting from its latest reading plus the transactions after it.
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `accounts` ADD COLUMN `reported_balance` REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `accounts` ADD COLUMN `reported_at` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `accounts` ADD COLUMN `drift` REAL NOT NULL DEFAULT 0");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `balance_points` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `account_id` TEXT NOT NULL, "
+                    + "`transaction_id` INTEGER NOT NULL, `recorded_at` INTEGER NOT NULL, `balance` REAL NOT NULL, "
+                    + "`reported` INTEGER NOT NULL, `drift` REAL NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_balance_points_account_id_recorded_at` "
+                    + "ON `balance_points` (`account_id`, `recorded_at`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_last_4_digits_transaction_at` "
+                    + "ON `pending_transactions` (`last_4_digits`, `transaction_at`)");
+
+            String prefix = Account.LOCAL_ID_PREFIX;
+            db.execSQL("INSERT OR IGNORE INTO accounts (id, name, type, institution, balance, last_4_digits, "
+                    + "is_active, updated_at, reported_balance, reported_at, drift) "
+                    + "SELECT '" + prefix + "' || p.last_4_digits, COALESCE(p.bank_name, 'Bank') || ' ••' || p.last_4_digits, "
+                    + "'bank', p.bank_name, p.balance, p.last_4_digits, 1, p.transaction_at, p.balance, p.transaction_at, 0 "
+                    + "FROM pending_transactions p WHERE p.balance IS NOT NULL AND p.last_4_digits IS NOT NULL "
+                    + "AND p.transaction_at = (SELECT MAX(q.transaction_at) FROM pending_transactions q "
+                    + "WHERE q.last_4_digits = p.last_4_digits AND q.balance IS NOT NULL) "
+                    + "AND NOT EXISTS (SELECT 1 FROM accounts a WHERE a.last_4_digits = p.last_4_digits) "
+                    + "GROUP BY p.last_4_digits");
+            db.execSQL("UPDATE accounts SET balance = balance + (SELECT COALESCE(SUM(CASE "
+                    + "WHEN p.type = 'income' THEN p.amount WHEN p.type = 'expense' THEN -p.amount ELSE 0 END), 0) "
+                    + "FROM pending_transactions p WHERE p.last_4_digits = accounts.last_4_digits "
+                    + "AND p.transaction_at > accounts.reported_at) WHERE reported_at > 0");
+            db.execSQL("INSERT INTO balance_points (account_id, transaction_id, recorded_at, balance, reported, drift) "
+                    + "SELECT '" + prefix + "' || last_4_digits, id, transaction_at, balance, 1, 0 "
+                    + "FROM pending_transactions WHERE balance IS NOT NULL AND last_4_digits IS NOT NULL "
+                    + "AND '" + prefix + "' || last_4_digits IN (SELECT id FROM accounts)");
+        }
+    };
+
+    /**
+     * 13 → 14: indexes for the duplicate checks (amount + time window), the
+     * date-ordered lists, server id lookups and the per-source counts
+     */
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_amount_transaction_at` "
+                    + "ON `pending_transactions` (`amount`, `transaction_at`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_transaction_at` "
+                    + "ON `pending_transactions` (`transaction_at`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_server_id` "
+                    + "ON `pending_transactions` (`server_id`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_source` "
+                    + "ON `pending_transactions` (`source`)");
+        }
+    };
+
+    /**
+     * 14 → 15: local month / day bucket columns, filled in the device's current time zone.
+     * The totals triggers now read year_month, so they are recreated and the totals rebuilt.
+     */
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            dropCategoryMonthTotalsTriggers(db);
+            db.execSQL("ALTER TABLE `pending_transactions` ADD COLUMN `year_month` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `pending_transactions` ADD COLUMN `local_day` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `pending_transactions` SET "
+                    + "`year_month` = CAST(strftime('%Y%m', transaction_at / 1000, 'unixepoch', 'localtime') AS INTEGER), "
+                    + "`local_day` = CAST(strftime('%Y%m%d', transaction_at / 1000, 'unixepoch', 'localtime') AS INTEGER)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_year_month_type` "
+                    + "ON `pending_transactions` (`year_month`, `type`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_local_day` "
+                    + "ON `pending_transactions` (`local_day`)");
+            createCategoryMonthTotalsTriggers(db, true);
+            rebuildCategoryMonthTotals(db, true);
+        }
+    };
+
+    /**
+     * 15 → 16: materialized aggregates per (month, type, category) and per (day, type),
+     * replacing the expense-only category_month_totals and its triggers (budget alert
+     * levels carry over)
+     */
+    public static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            dropCategoryMonthTotalsTriggers(db);
+            db.execSQL("CREATE TABLE IF NOT EXISTS `agg_month_category` (`year_month` INTEGER NOT NULL, "
+                    + "`type` TEXT NOT NULL, `category` TEXT NOT NULL, `total` REAL NOT NULL, "
+                    + "`count` INTEGER NOT NULL, `alert_level` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`year_month`, `type`, `category`))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `agg_day` (`local_day` INTEGER NOT NULL, "
+                    + "`type` TEXT NOT NULL, `total` REAL NOT NULL, `count` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`local_day`, `type`))");
+            db.execSQL("INSERT INTO agg_month_category (year_month, type, category, total, count, alert_level) "
+                    + "SELECT year_month, 'expense', category, 0, 0, alert_level FROM category_month_totals "
+                    + "WHERE alert_level > 0");
+            db.execSQL("DROP TABLE IF EXISTS `category_month_totals`");
+            createAggregateTriggers(db);
+            rebuildAggregates(db);
+        }
+    };
+
+    /**
+     * 16 → 17: the month index orders by time within the month (paged history) instead of by
+     * type; monthly stats read agg_month_category since 15 → 16
+     */
+    public static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_pending_transactions_year_month_type`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_transactions_year_month_transaction_at` "
+                    + "ON `pending_transactions` (`year_month`, `transaction_at`)");
+        }
+    };
+
+    /**
+     * 17 → 18: full-text index over merchant, note, category, bank and reference ID,
+     * with the sync triggers Room generates for external-content FTS tables
+     */
+    public static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `pending_transactions_fts` USING FTS4("
+                    + "`merchant` TEXT, `note` TEXT, `category` TEXT, `bank_name` TEXT, `reference_id` TEXT, "
+                    + "tokenize=unicode61, content=`pending_transactions`, prefix=`2,3`)");
+            for (String op : new String[] {"UPDATE", "DELETE"}) {
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_pending_transactions_fts_BEFORE_"
+                        + op + " BEFORE " + op + " ON `pending_transactions` BEGIN "
+                        + "DELETE FROM `pending_transactions_fts` WHERE `docid`=OLD.`rowid`; END");
+            }
+            for (String op : new String[] {"UPDATE", "INSERT"}) {
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_pending_transactions_fts_AFTER_"
+                        + op + " AFTER " + op + " ON `pending_transactions` BEGIN "
+                        + "INSERT INTO `pending_transactions_fts`(`docid`, `merchant`, `note`, `category`, "
+                        + "`bank_name`, `reference_id`) VALUES (NEW.`rowid`, NEW.`merchant`, NEW.`note`, "
+                        + "NEW.`category`, NEW.`bank_name`, NEW.`reference_id`); END");
+            }
+            db.execSQL("INSERT INTO `pending_transactions_fts`(`pending_transactions_fts`) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * 18 → 19: transactions are ordered by (transaction_at, id) for keyset paging; the
+     * time index gains id so that pages are read in index order
+     */
+    public static final Migration MIGRATION_18_19 = new Migration(18, 19) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_transactions_transaction_at`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_transaction_at_id` "
+                    + "ON `transactions` (`transaction_at`, `id`)");
+        }
+    };
+
+    // ============================================
+    // category_month_totals (versions 12 - 15)
+    // ============================================
+
+    // Frozen copies of the trigger SQL these versions shipped with: a migration has to do
+    // the same thing whenever it runs, so it can't call DatabaseTriggers, which only knows
+    // the current schema. The month was computed from transaction_at until version 15,
+    // which stores it in year_month.
+
+    private static String monthOf(String row, boolean stored) {
+        return stored ? row + ".year_month"
+                : "CAST(strftime('%Y%m', " + row + ".transaction_at / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    private static String categoryOf(String row) {
+        return "COALESCE(NULLIF(" + row + ".category, ''), 'Other')";
+    }
+
+    private static String addExpense(String row, boolean stored) {
+        return "INSERT OR IGNORE INTO category_month_totals (year_month, category, total, count, alert_level) "
+                + "SELECT " + monthOf(row, stored) + ", " + categoryOf(row) + ", 0, 0, 0 "
+                + "WHERE " + row + ".type = 'expense'; "
+                + "UPDATE category_month_totals SET total = total + " + row + ".amount, count = count + 1 "
+                + "WHERE " + row + ".type = 'expense' AND year_month = " + monthOf(row, stored)
+                + " AND category = " + categoryOf(row) + "; ";
+    }
+
+    private static String removeExpense(String row, boolean stored) {
+        return "UPDATE category_month_totals SET total = total - " + row + ".amount, count = count - 1 "
+                + "WHERE " + row + ".type = 'expense' AND year_month = " + monthOf(row, stored)
+                + " AND category = " + categoryOf(row) + "; ";
+    }
+
+    private static void createCategoryMonthTotalsTriggers(SupportSQLiteDatabase db, boolean storedMonth) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `category_month_totals_insert` "
+                + "AFTER INSERT ON `pending_transactions` BEGIN " + addExpense("NEW", storedMonth) + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `category_month_totals_update` "
+                + "AFTER UPDATE OF type, amount, category, " + (storedMonth ? "year_month" : "transaction_at")
+                + " ON `pending_transactions` BEGIN "
+                + removeExpense("OLD", storedMonth) + addExpense("NEW", storedMonth) + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `category_month_totals_delete` "
+                + "AFTER DELETE ON `pending_transactions` BEGIN " + removeExpense("OLD", storedMonth) + "END");
+    }
+
+    private static void dropCategoryMonthTotalsTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS `category_month_totals_insert`");
+        db.execSQL("DROP TRIGGER IF EXISTS `category_month_totals_update`");
+        db.execSQL("DROP TRIGGER IF EXISTS `category_month_totals_delete`");
+    }
+
+    // Recompute the totals, keeping the alert level of each (month, category) that still has expenses
+    private static void rebuildCategoryMonthTotals(SupportSQLiteDatabase db, boolean storedMonth) {
+        String month = monthOf("p", storedMonth);
+        String category = categoryOf("p");
+        db.execSQL("UPDATE category_month_totals SET total = 0, count = 0");
+        db.execSQL("INSERT OR REPLACE INTO category_month_totals (year_month, category, total, count, alert_level) "
+                + "SELECT " + month + " AS ym, " + category + " AS cat, SUM(p.amount), COUNT(*), "
+                + "COALESCE((SELECT t.alert_level FROM category_month_totals t "
+                + "WHERE t.year_month = " + month + " AND t.category = " + category + "), 0) "
+                + "FROM pending_transactions p WHERE p.type = 'expense' GROUP BY ym, cat");
+        db.execSQL("DELETE FROM category_month_totals WHERE count = 0");
+    }
+
+    // ============================================
+    // agg_month_category / agg_day (version 16)
+    // ============================================
+
+    // Frozen copies of the DatabaseTriggers SQL of version 16, for the same reason
+
+    private static String monthKey(String row) {
+        return "year_month = " + row + ".year_month AND type = " + row + ".type AND category = " + categoryOf(row);
+    }
+
+    private static String dayKey(String row) {
+        return "local_day = " + row + ".local_day AND type = " + row + ".type";
+    }
+
+    private static String addToAggregates(String row) {
+        return "INSERT OR IGNORE INTO agg_month_category (year_month, type, category, total, count, alert_level) "
+                + "VALUES (" + row + ".year_month, " + row + ".type, " + categoryOf(row) + ", 0, 0, 0); "
+                + "UPDATE agg_month_category SET total = total + " + row + ".amount, count = count + 1 "
+                + "WHERE " + monthKey(row) + "; "
+                + "INSERT OR IGNORE INTO agg_day (local_day, type, total, count) "
+                + "VALUES (" + row + ".local_day, " + row + ".type, 0, 0); "
+                + "UPDATE agg_day SET total = total + " + row + ".amount, count = count + 1 "
+                + "WHERE " + dayKey(row) + "; ";
+    }
+
+    private static String removeFromAggregates(String row) {
+        return "UPDATE agg_month_category SET total = total - " + row + ".amount, count = count - 1 "
+                + "WHERE " + monthKey(row) + "; "
+                + "UPDATE agg_day SET total = total - " + row + ".amount, count = count - 1 "
+                + "WHERE " + dayKey(row) + "; "
+                + "DELETE FROM agg_day WHERE " + dayKey(row) + " AND count <= 0; ";
+    }
+
+    private static void createAggregateTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_insert` "
+                + "AFTER INSERT ON `pending_transactions` BEGIN " + addToAggregates("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_update` "
+                + "AFTER UPDATE OF type, amount, category, year_month, local_day ON `pending_transactions` BEGIN "
+                + removeFromAggregates("OLD") + addToAggregates("NEW") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `aggregates_delete` "
+                + "AFTER DELETE ON `pending_transactions` BEGIN " + removeFromAggregates("OLD") + "END");
+    }
+
+    // Recompute both tables, keeping the alert level of each (month, type, category) that still has rows
+    private static void rebuildAggregates(SupportSQLiteDatabase db) {
+        String category = categoryOf("p");
+        db.execSQL("UPDATE agg_month_category SET total = 0, count = 0");
+        db.execSQL("INSERT OR REPLACE INTO agg_month_category (year_month, type, category, total, count, alert_level) "
+                + "SELECT p.year_month AS ym, p.type AS t, " + category + " AS cat, SUM(p.amount), COUNT(*), "
+                + "COALESCE((SELECT a.alert_level FROM agg_month_category a "
+                + "WHERE a.year_month = p.year_month AND a.type = p.type AND a.category = " + category + "), 0) "
+                + "FROM pending_transactions p GROUP BY ym, t, cat");
+        db.execSQL("DELETE FROM agg_month_category WHERE count = 0");
+        db.execSQL("DELETE FROM agg_day");
+        db.execSQL("INSERT INTO agg_day (local_day, type, total, count) "
+                + "SELECT local_day, type, SUM(amount), COUNT(*) FROM pending_transactions GROUP BY local_day, type");
+    }
+
+    public static final Migration[] ALL = {
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13,
+            MIGRATION_13_14,
+            MIGRATION_14_15,
+            MIGRATION_15_16,
+            MIGRATION_16_17,
+            MIGRATION_17_18,
+            MIGRATION_18_19
+    };
+}
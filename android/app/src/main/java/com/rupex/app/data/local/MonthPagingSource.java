@@ -0,0 +1,119 @@
+package com.rupex.app.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * Pages the rows of one local month of pending_transactions, newest first, by keyset
+ * ({@link PageCursor} tokens as keys) rather than LIMIT/OFFSET: every page is an
+ * index seek from the row it continues after, so the thousandth page costs what
+ * the first does, and rows inserted or deleted above the visible ones don't shift
+ * later pages (no skipped or repeated rows). Pages dropped from the top are read
+ * back with the mirror (ascending) query.
+ *
+ * Invalidated when pending_transactions changes; the refresh restarts just above
+ * the rows on screen instead of at the top.
+ */
+public class MonthPagingSource extends ListenableFuturePagingSource<String, PendingTransactionDao.TransactionRow> {
+
+    private final RupexDatabase db;
+    private final int yearMonth;
+    @Nullable
+    private final String type;
+    private final AtomicBoolean observing = new AtomicBoolean();
+    private final InvalidationTracker.Observer observer =
+            new InvalidationTracker.Observer("pending_transactions") {
+                @Override
+                public void onInvalidated(@NonNull Set<String> tables) {
+                    invalidate();
+                }
+            };
+
+    /**
+     * @param type "income" / "expense", or null for both
+     */
+    public MonthPagingSource(RupexDatabase db, int yearMonth, @Nullable String type) {
+        this.db = db;
+        this.yearMonth = yearMonth;
+        this.type = type;
+        registerInvalidatedCallback(() -> {
+            if (observing.get()) {
+                db.getInvalidationTracker().removeObserver(observer);
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<String, PendingTransactionDao.TransactionRow>> loadFuture(
+            @NonNull LoadParams<String> params) {
+        ListenableFutureTask<LoadResult<String, PendingTransactionDao.TransactionRow>> task =
+                ListenableFutureTask.create(() -> load(params));
+        db.getQueryExecutor().execute(task);
+        return task;
+    }
+
+    private LoadResult<String, PendingTransactionDao.TransactionRow> load(LoadParams<String> params) {
+        // Registered here, off the main thread, as adding an observer touches the database
+        if (!observing.getAndSet(true)) {
+            db.getInvalidationTracker().addObserver(observer);
+        }
+        try {
+            PendingTransactionDao dao = db.pendingTransactionDao();
+            String key = params.getKey();
+            PageCursor cursor = PageCursor.parseLocal(key);
+            int limit = params.getLoadSize();
+
+            if (params instanceof LoadParams.Prepend) {
+                if (cursor == null) return new LoadResult.Page<>(Collections.emptyList(), null, null);
+                List<PendingTransactionDao.TransactionRow> rows = dao.getMonthNewerThan(yearMonth, type,
+                        cursor.transactionAt, cursor.localId(), limit);
+                Collections.reverse(rows);
+                String prevKey = rows.size() < limit ? null : token(rows.get(0));
+                String nextKey = rows.isEmpty() ? key : token(rows.get(rows.size() - 1));
+                return new LoadResult.Page<>(rows, prevKey, nextKey);
+            }
+
+            // Refresh or append: the rows after the cursor, or from the top without one
+            List<PendingTransactionDao.TransactionRow> rows = cursor == null
+                    ? dao.getMonthOlderThan(yearMonth, type, Long.MAX_VALUE, Long.MAX_VALUE, limit)
+                    : dao.getMonthOlderThan(yearMonth, type, cursor.transactionAt, cursor.localId(), limit);
+            String prevKey = cursor == null ? null : rows.isEmpty() ? key : token(rows.get(0));
+            String nextKey = rows.size() < limit ? null : token(rows.get(rows.size() - 1));
+            return new LoadResult.Page<>(rows, prevKey, nextKey);
+        } catch (RuntimeException e) {
+            return new LoadResult.Error<>(e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String getRefreshKey(@NonNull PagingState<String, PendingTransactionDao.TransactionRow> state) {
+        Integer anchor = state.getAnchorPosition();
+        if (anchor == null) return null;
+        // Continue after the row half a load above the anchor, so the anchor stays loaded
+        int above = anchor - state.getConfig().initialLoadSize / 2 - 1;
+        if (above < 0) return null;
+        PendingTransactionDao.TransactionRow row = state.closestItemToPosition(above);
+        return row != null ? token(row) : null;
+    }
+
+    private static String token(PendingTransactionDao.TransactionRow row) {
+        return PageCursor.of(row).token();
+    }
+}
@@ -0,0 +1,87 @@
+package com.rupex.app.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.Transaction;
+
+/**
+ * Position of a row in a list ordered by (transaction_at, id), for keyset paging:
+ * the next page is the rows past it, found with an index seek however deep the
+ * list is, and rows inserted meanwhile don't shift it. The UI holds it as an
+ * opaque token ("transactionAt:id").
+ */
+public final class PageCursor {
+
+    public final long transactionAt;
+    @NonNull
+    public final String id;
+
+    public PageCursor(long transactionAt, @NonNull String id) {
+        this.transactionAt = transactionAt;
+        this.id = id;
+    }
+
+    public static PageCursor of(PendingTransaction row) {
+        return new PageCursor(row.getTransactionAt(), String.valueOf(row.getId()));
+    }
+
+    public static PageCursor of(PendingTransactionDao.TransactionRow row) {
+        return new PageCursor(row.transactionAt, String.valueOf(row.id));
+    }
+
+    public static PageCursor of(Transaction row) {
+        return new PageCursor(row.getTransactionAt(), row.getId());
+    }
+
+    /**
+     * Id of a pending_transactions row
+     */
+    public long localId() {
+        return Long.parseLong(id);
+    }
+
+    @NonNull
+    public String token() {
+        return transactionAt + ":" + id;
+    }
+
+    /**
+     * Cursor of a token, or null if there is none or it is malformed (start from the top)
+     */
+    @Nullable
+    public static PageCursor parse(@Nullable String token) {
+        if (token == null) return null;
+        int colon = token.indexOf(':');
+        if (colon <= 0 || colon == token.length() - 1) return null;
+        try {
+            return new PageCursor(Long.parseLong(token.substring(0, colon)), token.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cursor of a token over pending_transactions, or null like {@link #parse}, and also
+     * if its id is not a row id there (so {@link #localId()} can't throw)
+     */
+    @Nullable
+    public static PageCursor parseLocal(@Nullable String token) {
+        PageCursor cursor = parse(token);
+        if (cursor == null) return null;
+        try {
+            cursor.localId();
+            return cursor;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return token();
+    }
+}
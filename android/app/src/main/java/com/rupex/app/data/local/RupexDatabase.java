@@ -2,40 +2,75 @@ package com.rupex.app.data.local;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
+
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.rupex.app.data.local.dao.AccountDao;
 import com.rupex.app.data.local.dao.ActivityLogDao;
+import com.rupex.app.data.local.dao.AggregateDao;
+import com.rupex.app.data.local.dao.BudgetDao;
 import com.rupex.app.data.local.dao.CategoryDao;
+import com.rupex.app.data.local.dao.CategoryRuleDao;
+import com.rupex.app.data.local.dao.MerchantDao;
 import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.dao.RecurringSeriesDao;
 import com.rupex.app.data.local.dao.TransactionDao;
+import com.rupex.app.data.local.dao.WatermarkDao;
 import com.rupex.app.data.local.entity.Account;
 import com.rupex.app.data.local.entity.ActivityLog;
+import com.rupex.app.data.local.entity.BalancePoint;
+import com.rupex.app.data.local.entity.Budget;
 import com.rupex.app.data.local.entity.Category;
+import com.rupex.app.data.local.entity.CategoryRule;
+import com.rupex.app.data.local.entity.DayTotal;
+import com.rupex.app.data.local.entity.Merchant;
+import com.rupex.app.data.local.entity.MerchantAlias;
+import com.rupex.app.data.local.entity.MonthCategoryTotal;
 import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.PendingTransactionFts;
+import com.rupex.app.data.local.entity.RecurringSeries;
 import com.rupex.app.data.local.entity.Transaction;
+import com.rupex.app.data.local.entity.Watermark;
+import com.rupex.app.merchant.CategoryMemory;
+import com.rupex.app.merchant.MerchantResolver;
 
 /**
  * Room Database for 0xRupex
  * 
  * Stores:
- * - Pending transactions (from SMS, awaiting sync)
+ * - Pending transactions (from SMS, awaiting sync) and their full-text index
  * - Synced transactions (from server)
- * - Accounts
+ * - Accounts and their balance timeline
  * - Categories
+ * - Merchants and their name aliases
+ * - Learned merchant → category rules
+ * - Detected recurring payments
+ * - Category budgets and per-month category totals
  */
 @Database(
     entities = {
         PendingTransaction.class,
+        PendingTransactionFts.class,
         Transaction.class,
         Account.class,
         Category.class,
-        ActivityLog.class
+        ActivityLog.class,
+        Merchant.class,
+        MerchantAlias.class,
+        CategoryRule.class,
+        RecurringSeries.class,
+        Watermark.class,
+        Budget.class,
+        MonthCategoryTotal.class,
+        DayTotal.class,
+        BalancePoint.class
     },
-    version = 5,
-    exportSchema = false
+    version = 19,
+    exportSchema = true // app/schemas, read by MigrationTest
 )
 public abstract class RupexDatabase extends RoomDatabase {
 
@@ -48,6 +83,12 @@ public abstract class RupexDatabase extends RoomDatabase {
     public abstract AccountDao accountDao();
     public abstract CategoryDao categoryDao();
     public abstract ActivityLogDao activityLogDao();
+    public abstract MerchantDao merchantDao();
+    public abstract CategoryRuleDao categoryRuleDao();
+    public abstract RecurringSeriesDao recurringSeriesDao();
+    public abstract WatermarkDao watermarkDao();
+    public abstract BudgetDao budgetDao();
+    public abstract AggregateDao aggregateDao();
 
     /**
      * Get singleton database instance
@@ -61,7 +102,16 @@ public abstract class RupexDatabase extends RoomDatabase {
                             RupexDatabase.class,
                             DATABASE_NAME
                     )
-                    .fallbackToDestructiveMigration()
+                    .addMigrations(Migrations.ALL)
+                    // Only versions older than the first migration, or a downgrade, start over
+                    .fallbackToDestructiveMigrationFrom(1, 2, 3, 4)
+                    .fallbackToDestructiveMigrationOnDowngrade()
+                    .addCallback(new Callback() {
+                        @Override
+                        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                            DatabaseTriggers.create(db); // Also covers fresh and destructively migrated databases
+                        }
+                    })
                     .build();
                 }
             }
@@ -78,9 +128,17 @@ public abstract class RupexDatabase extends RoomDatabase {
                 INSTANCE.pendingTransactionDao().deleteOldSynced(Long.MAX_VALUE);
                 INSTANCE.transactionDao().deleteAll();
                 INSTANCE.accountDao().deleteAll();
+                INSTANCE.accountDao().deleteAllPoints();
                 INSTANCE.categoryDao().deleteAll();
                 INSTANCE.activityLogDao().deleteAll();
+                INSTANCE.merchantDao().deleteAll(); // Cascades to merchant_aliases
+                INSTANCE.categoryRuleDao().deleteAll();
+                INSTANCE.recurringSeriesDao().deleteAll();
+                INSTANCE.watermarkDao().deleteAll();
+                INSTANCE.budgetDao().deleteAll();
             });
+            MerchantResolver.getInstance().clearCache();
+            CategoryMemory.getInstance().clear();
         }
     }
 }
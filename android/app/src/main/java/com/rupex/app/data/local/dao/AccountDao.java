@@ -7,11 +7,12 @@ import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 
 import com.rupex.app.data.local.entity.Account;
+import com.rupex.app.data.local.entity.BalancePoint;
 
 import java.util.List;
 
 /**
- * DAO for accounts
+ * DAO for accounts and their balance timeline
  */
 @Dao
 public interface AccountDao {
@@ -40,6 +41,36 @@ public interface AccountDao {
     @Query("UPDATE accounts SET balance = :balance, updated_at = :timestamp WHERE id = :id")
     void updateBalance(String id, double balance, long timestamp);
 
+    // New bank-reported balance; balance is the current one (reading plus any later transactions)
+    @Query("UPDATE accounts SET balance = :balance, reported_balance = :reportedBalance, "
+            + "reported_at = :reportedAt, drift = :drift, updated_at = :timestamp WHERE id = :id")
+    void recordReading(String id, double balance, double reportedBalance, long reportedAt,
+                       double drift, long timestamp);
+
+    // The account's readings are all gone: balance unknown until the next one
+    @Query("UPDATE accounts SET balance = 0, reported_balance = 0, reported_at = 0, drift = 0, "
+            + "updated_at = :timestamp WHERE id = :id")
+    void clearReading(String id, long timestamp);
+
+    // Accounts with a known balance (O(1) per account, no history scan)
+    @Query("SELECT name, last_4_digits AS last4Digits, balance, drift FROM accounts "
+            + "WHERE is_active = 1 AND reported_at > 0 ORDER BY name")
+    LiveData<List<AccountBalance>> getBalancesLive();
+
+    @Insert
+    void insertPoint(BalancePoint point);
+
+    @Query("DELETE FROM balance_points")
+    void deleteAllPoints();
+
     @Query("DELETE FROM accounts")
     void deleteAll();
+
+    // Current balance of one account
+    class AccountBalance {
+        public String name;
+        public String last4Digits;
+        public double balance;
+        public double drift;
+    }
 }
@@ -19,12 +19,19 @@ public interface ActivityLogDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insert(ActivityLog log);
 
-    @Query("SELECT * FROM activity_logs ORDER BY timestamp DESC LIMIT :limit")
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<ActivityLog> logs);
+
+    @Query("SELECT * FROM activity_logs ORDER BY seq DESC LIMIT :limit")
     LiveData<List<ActivityLog>> getRecentLogs(int limit);
 
-    @Query("SELECT * FROM activity_logs ORDER BY timestamp DESC LIMIT :limit")
+    @Query("SELECT * FROM activity_logs ORDER BY seq DESC LIMIT :limit")
     List<ActivityLog> getRecentLogsSync(int limit);
 
+    // Last sequence written, 0 when empty
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM activity_logs")
+    long getMaxSeq();
+
     @Query("DELETE FROM activity_logs WHERE timestamp < :beforeTimestamp")
     void deleteOldLogs(long beforeTimestamp);
 
@@ -0,0 +1,113 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.rupex.app.data.local.entity.DayTotal;
+
+import java.util.List;
+
+/**
+ * DAO for the materialized aggregates (agg_month_category, agg_day) that summary
+ * screens read instead of summing pending_transactions. The tables are written
+ * only by triggers; see DatabaseTriggers.
+ */
+@Dao
+public interface AggregateDao {
+
+    @Query("SELECT COALESCE(SUM(total), 0) FROM agg_month_category WHERE type = :type")
+    LiveData<Double> getTotalLive(String type);
+
+    @Query("SELECT COALESCE(SUM(total), 0) FROM agg_month_category WHERE type = :type")
+    double getTotal(String type);
+
+    // Income - expense over all months
+    @Query("SELECT COALESCE(SUM(CASE WHEN type = 'income' THEN total WHEN type = 'expense' THEN -total "
+            + "ELSE 0 END), 0) FROM agg_month_category")
+    LiveData<Double> getNetLive();
+
+    // Category stats of one month (primary key lookup)
+    @Query("SELECT category, total, count FROM agg_month_category "
+            + "WHERE year_month = :yearMonth AND type = :type AND count > 0 ORDER BY total DESC")
+    List<CategoryStatResult> getCategoryStatsByMonth(String type, int yearMonth);
+
+    // Totals per type of one month
+    @Query("SELECT type, SUM(total) AS total, SUM(count) AS count FROM agg_month_category "
+            + "WHERE year_month = :yearMonth GROUP BY type")
+    List<TypeTotal> getMonthTotals(int yearMonth);
+
+    // Totals per type over a range of days (yyyyMMdd, inclusive)
+    @Query("SELECT type, SUM(total) AS total, SUM(count) AS count FROM agg_day "
+            + "WHERE local_day BETWEEN :fromDay AND :toDay GROUP BY type")
+    List<TypeTotal> getTotalsBetweenDays(int fromDay, int toDay);
+
+    // Totals per (day, type) over a range of days (yyyyMMdd, inclusive), by primary key range
+    @Query("SELECT * FROM agg_day WHERE local_day BETWEEN :fromDay AND :toDay")
+    List<DayTotal> getDayTotalsBetween(int fromDay, int toDay);
+
+    // ============================================
+    // VERIFICATION (full recompute, for AggregateVerifier)
+    // ============================================
+
+    // (month, type, category) buckets whose stored total or count differs from the transactions
+    @Query("SELECT e.year_month AS bucket, e.type AS type, e.category AS category, "
+            + "e.total AS expectedTotal, e.count AS expectedCount, "
+            + "COALESCE(a.total, 0) AS actualTotal, COALESCE(a.count, 0) AS actualCount "
+            + "FROM (SELECT year_month, type, COALESCE(NULLIF(category, ''), 'Other') AS category, "
+            + "SUM(amount) AS total, COUNT(*) AS count FROM pending_transactions "
+            + "GROUP BY year_month, type, COALESCE(NULLIF(category, ''), 'Other')) e "
+            + "LEFT JOIN agg_month_category a "
+            + "ON a.year_month = e.year_month AND a.type = e.type AND a.category = e.category "
+            + "WHERE a.count IS NULL OR a.count != e.count OR ABS(a.total - e.total) > :tolerance "
+            + "UNION ALL "
+            + "SELECT a.year_month, a.type, a.category, 0, 0, a.total, a.count FROM agg_month_category a "
+            + "WHERE (a.count != 0 OR ABS(a.total) > :tolerance) AND NOT EXISTS (SELECT 1 FROM pending_transactions p "
+            + "WHERE p.year_month = a.year_month AND p.type = a.type "
+            + "AND COALESCE(NULLIF(p.category, ''), 'Other') = a.category)")
+    List<Drift> findMonthCategoryDrift(double tolerance);
+
+    // (day, type) buckets whose stored total or count differs from the transactions
+    @Query("SELECT e.local_day AS bucket, e.type AS type, NULL AS category, "
+            + "e.total AS expectedTotal, e.count AS expectedCount, "
+            + "COALESCE(a.total, 0) AS actualTotal, COALESCE(a.count, 0) AS actualCount "
+            + "FROM (SELECT local_day, type, SUM(amount) AS total, COUNT(*) AS count FROM pending_transactions "
+            + "GROUP BY local_day, type) e "
+            + "LEFT JOIN agg_day a ON a.local_day = e.local_day AND a.type = e.type "
+            + "WHERE a.count IS NULL OR a.count != e.count OR ABS(a.total - e.total) > :tolerance "
+            + "UNION ALL "
+            + "SELECT a.local_day, a.type, NULL, 0, 0, a.total, a.count FROM agg_day a "
+            + "WHERE NOT EXISTS (SELECT 1 FROM pending_transactions p "
+            + "WHERE p.local_day = a.local_day AND p.type = a.type)")
+    List<Drift> findDayDrift(double tolerance);
+
+    class CategoryStatResult {
+        public String category;
+        public double total;
+        public int count;
+    }
+
+    class TypeTotal {
+        public String type;
+        public double total;
+        public int count;
+    }
+
+    // One bucket that doesn't match a recompute (category is null for days)
+    class Drift {
+        public int bucket;
+        public String type;
+        public String category;
+        public double expectedTotal;
+        public int expectedCount;
+        public double actualTotal;
+        public int actualCount;
+
+        @Override
+        public String toString() {
+            return bucket + "/" + type + (category != null ? "/" + category : "")
+                    + ": expected " + expectedTotal + " (" + expectedCount + "), stored "
+                    + actualTotal + " (" + actualCount + ")";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.rupex.app.data.local.entity.Budget;
+
+import java.util.List;
+
+/**
+ * DAO for category budgets and the per-(month, category) expense totals they are checked against
+ */
+@Dao
+public interface BudgetDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(Budget budget);
+
+    @Query("DELETE FROM budgets WHERE category = :category")
+    void delete(String category);
+
+    @Query("SELECT * FROM budgets ORDER BY category")
+    LiveData<List<Budget>> getAllLive();
+
+    // Budgeted categories' spending in a month
+    @Query("SELECT b.category AS category, b.monthly_limit AS monthlyLimit, "
+            + "COALESCE(t.total, 0) AS spent, COALESCE(t.alert_level, 0) AS alertLevel "
+            + "FROM budgets b LEFT JOIN agg_month_category t "
+            + "ON t.year_month = :yearMonth AND t.type = 'expense' AND t.category = b.category")
+    List<BudgetStatus> getStatus(int yearMonth);
+
+    // Returns 1 if this call raised the level (so exactly one caller notifies)
+    @Query("UPDATE agg_month_category SET alert_level = :level WHERE year_month = :yearMonth "
+            + "AND type = 'expense' AND category = :category AND alert_level < :level")
+    int raiseAlertLevel(int yearMonth, String category, int level);
+
+    // After an edit, delete or budget increase brought spending back under a threshold
+    @Query("UPDATE agg_month_category SET alert_level = :level WHERE year_month = :yearMonth "
+            + "AND type = 'expense' AND category = :category AND alert_level > :level")
+    int lowerAlertLevel(int yearMonth, String category, int level);
+
+    @Query("DELETE FROM budgets")
+    void deleteAll();
+
+    // Budget joined with its month total
+    class BudgetStatus {
+        public String category;
+        public double monthlyLimit;
+        public double spent;
+        public int alertLevel;
+    }
+}
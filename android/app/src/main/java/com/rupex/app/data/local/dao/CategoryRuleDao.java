@@ -0,0 +1,26 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.rupex.app.data.local.entity.CategoryRule;
+
+import java.util.List;
+
+/**
+ * DAO for learned merchant → category rules
+ */
+@Dao
+public interface CategoryRuleDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(CategoryRule rule);
+
+    @Query("SELECT * FROM category_rules")
+    List<CategoryRule> getAll();
+
+    @Query("DELETE FROM category_rules")
+    void deleteAll();
+}
@@ -0,0 +1,43 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.rupex.app.data.local.entity.Merchant;
+import com.rupex.app.data.local.entity.MerchantAlias;
+
+import java.util.List;
+
+/**
+ * DAO for canonical merchants and their name aliases
+ */
+@Dao
+public interface MerchantDao {
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insert(Merchant merchant);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAlias(MerchantAlias alias);
+
+    @Query("SELECT * FROM merchants WHERE id = :id")
+    Merchant getById(long id);
+
+    @Query("SELECT * FROM merchants WHERE canonical_key = :canonicalKey LIMIT 1")
+    Merchant getByCanonicalKey(String canonicalKey);
+
+    // Merchant id for an alias, null if unknown
+    @Query("SELECT merchant_id FROM merchant_aliases WHERE alias = :alias")
+    Long findMerchantIdByAlias(String alias);
+
+    @Query("SELECT * FROM merchant_aliases WHERE merchant_id = :merchantId")
+    List<MerchantAlias> getAliases(long merchantId);
+
+    @Query("UPDATE merchants SET category_hint = :category WHERE id = :id")
+    void updateCategoryHint(long id, String category);
+
+    @Query("DELETE FROM merchants")
+    void deleteAll();
+}
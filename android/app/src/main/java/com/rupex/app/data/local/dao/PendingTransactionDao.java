@@ -1,13 +1,18 @@
 package com.rupex.app.data.local.dao;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import com.rupex.app.data.local.PageCursor;
 import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.merchant.MerchantMatcher;
+import com.rupex.app.util.LocalDates;
 
 import java.util.List;
 
@@ -17,14 +22,95 @@ import java.util.List;
 @Dao
 public interface PendingTransactionDao {
 
+    // Stamps the local month / day buckets of transaction_at
+    default long insert(PendingTransaction transaction) {
+        transaction.updateLocalDate();
+        return insertRow(transaction);
+    }
+
+    default void update(PendingTransaction transaction) {
+        transaction.updateLocalDate();
+        updateRow(transaction);
+    }
+
+    default void insertAll(List<PendingTransaction> transactions) {
+        for (PendingTransaction transaction : transactions) {
+            transaction.updateLocalDate();
+        }
+        insertRows(transactions);
+    }
+
+    // Use insert() / insertAll() / update(), which fill year_month and local_day
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertRow(PendingTransaction transaction);
+
     @Insert(onConflict = OnConflictStrategy.IGNORE)
-    long insert(PendingTransaction transaction);
+    void insertRows(List<PendingTransaction> transactions);
 
     @Update
-    void update(PendingTransaction transaction);
+    void updateRow(PendingTransaction transaction);
+
+    // Columns of a TransactionRow
+    String ROW_COLUMNS = "id, type, amount, merchant, bank_name AS bankName, category, note, "
+            + "transaction_at AS transactionAt, local_day AS localDay, synced";
+
+    // The newest rows, read in index order (no sort)
+    String RECENT_ROWS_QUERY = "SELECT " + ROW_COLUMNS + " FROM pending_transactions "
+            + "ORDER BY transaction_at DESC, id DESC LIMIT :limit";
+
+    @Query(RECENT_ROWS_QUERY)
+    LiveData<List<TransactionRow>> getRecentRowsLive(int limit);
+
+    @Query("SELECT COUNT(*) FROM pending_transactions")
+    LiveData<Integer> getCountLive();
+
+    /**
+     * One page, newest first (keyset paging): null for the first page, then the
+     * token of the previous page's last row (PageCursor.of(row).token())
+     */
+    default List<PendingTransaction> getPage(@Nullable String cursor, int limit) {
+        PageCursor after = PageCursor.parseLocal(cursor);
+        return after == null ? getOlderThan(Long.MAX_VALUE, Long.MAX_VALUE, limit)
+                : getOlderThan(after.transactionAt, after.localId(), limit);
+    }
+
+    // Rows after (transaction_at, id) in newest-first order; the time index ends in the rowid
+    @Query("SELECT * FROM pending_transactions WHERE transaction_at <= :transactionAt "
+            + "AND (transaction_at < :transactionAt OR id < :id) "
+            + "ORDER BY transaction_at DESC, id DESC LIMIT :limit")
+    List<PendingTransaction> getOlderThan(long transactionAt, long id, int limit);
 
-    @Query("SELECT * FROM pending_transactions ORDER BY transaction_at DESC")
-    LiveData<List<PendingTransaction>> getAllLive();
+    // One local month, the rows after / before (transaction_at, id) in newest-first order
+    // (index seek on year_month, no sort), for MonthPagingSource; null type = both
+    String MONTH_OLDER_THAN_QUERY = "SELECT " + ROW_COLUMNS + " FROM pending_transactions "
+            + "WHERE year_month = :yearMonth AND (:type IS NULL OR type = :type) "
+            + "AND transaction_at <= :transactionAt AND (transaction_at < :transactionAt OR id < :id) "
+            + "ORDER BY transaction_at DESC, id DESC LIMIT :limit";
+
+    @Query(MONTH_OLDER_THAN_QUERY)
+    List<TransactionRow> getMonthOlderThan(int yearMonth, String type, long transactionAt, long id, int limit);
+
+    // Nearest first: reverse for display
+    String MONTH_NEWER_THAN_QUERY = "SELECT " + ROW_COLUMNS + " FROM pending_transactions "
+            + "WHERE year_month = :yearMonth AND (:type IS NULL OR type = :type) "
+            + "AND transaction_at >= :transactionAt AND (transaction_at > :transactionAt OR id > :id) "
+            + "ORDER BY transaction_at ASC, id ASC LIMIT :limit";
+
+    @Query(MONTH_NEWER_THAN_QUERY)
+    List<TransactionRow> getMonthNewerThan(int yearMonth, String type, long transactionAt, long id, int limit);
+
+    // Full-text search (see PendingTransactionFts.matchQuery) within local days
+    // fromDay..toDay (yyyyMMdd), newest first, paged; null type = both. The index has
+    // text columns of the same names, hence the qualified columns.
+    String SEARCH_QUERY = "SELECT p.id, p.type, p.amount, p.merchant, p.bank_name AS bankName, "
+            + "p.category, p.note, p.transaction_at AS transactionAt, p.local_day AS localDay, p.synced "
+            + "FROM pending_transactions p "
+            + "JOIN pending_transactions_fts ON pending_transactions_fts.rowid = p.id "
+            + "WHERE pending_transactions_fts MATCH :match AND p.local_day BETWEEN :fromDay AND :toDay "
+            + "AND (:type IS NULL OR p.type = :type) ORDER BY p.transaction_at DESC";
+
+    @Query(SEARCH_QUERY)
+    PagingSource<Integer, TransactionRow> search(String match, int fromDay, int toDay, String type);
 
     @Query("SELECT * FROM pending_transactions WHERE synced = 0 ORDER BY transaction_at ASC")
     List<PendingTransaction> getUnsynced();
@@ -35,7 +121,9 @@ public interface PendingTransactionDao {
     @Query("SELECT COUNT(*) FROM pending_transactions WHERE synced = 0")
     LiveData<Integer> getUnsyncedCountLive();
     
-    @Query("SELECT COUNT(*) FROM pending_transactions WHERE source = 'notification'")
+    String NOTIFICATION_COUNT_QUERY = "SELECT COUNT(*) FROM pending_transactions WHERE source = 'notification'";
+
+    @Query(NOTIFICATION_COUNT_QUERY)
     LiveData<Integer> getNotificationParsedCountLive();
 
     @Query("SELECT EXISTS(SELECT 1 FROM pending_transactions WHERE sms_hash = :smsHash)")
@@ -52,21 +140,6 @@ public interface PendingTransactionDao {
     @Query("DELETE FROM pending_transactions WHERE synced = 1 AND created_at > 1577836800000 AND created_at < :beforeTimestamp")
     void deleteOldSynced(long beforeTimestamp);
 
-    @Query("SELECT COALESCE(SUM(CASE WHEN type = 'income' THEN amount ELSE 0 END), 0) - COALESCE(SUM(CASE WHEN type = 'expense' THEN amount ELSE 0 END), 0) FROM pending_transactions")
-    LiveData<Double> getNetBalanceLive();
-
-    @Query("SELECT COALESCE(SUM(amount), 0) FROM pending_transactions WHERE type = 'income'")
-    LiveData<Double> getTotalIncomeLive();
-
-    @Query("SELECT COALESCE(SUM(amount), 0) FROM pending_transactions WHERE type = 'income'")
-    double getTotalIncomeSync();
-
-    @Query("SELECT COALESCE(SUM(amount), 0) FROM pending_transactions WHERE type = 'expense'")
-    LiveData<Double> getTotalExpenseLive();
-
-    @Query("SELECT COALESCE(SUM(amount), 0) FROM pending_transactions WHERE type = 'expense'")
-    double getTotalExpenseSync();
-
     @Query("UPDATE pending_transactions SET category = :category, synced = 0 WHERE id = :id")
     void updateCategory(long id, String category);
 
@@ -85,60 +158,169 @@ public interface PendingTransactionDao {
     @Query("DELETE FROM pending_transactions WHERE id = :id")
     void deleteById(long id);
 
-    // Find duplicate transaction (same amount, merchant, within time range)
-    @Query("SELECT * FROM pending_transactions WHERE amount = :amount AND merchant = :merchant AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1")
+    // Rows captured after an incremental job's watermark, in id order
+    @Query("SELECT * FROM pending_transactions WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<PendingTransaction> getAfterId(long afterId, int limit);
+
+    // Latest earlier transaction with the same canonical merchant at a similar amount
+    @Query("SELECT * FROM pending_transactions WHERE merchant_id = :merchantId AND type = :type "
+            + "AND amount BETWEEN :minAmount AND :maxAmount AND transaction_at <= :before "
+            + "ORDER BY transaction_at DESC LIMIT 1")
+    PendingTransaction findPreviousByMerchantId(long merchantId, String type, double minAmount,
+                                                double maxAmount, long before);
+
+    @Query("SELECT * FROM pending_transactions WHERE merchant_key = :merchantKey AND type = :type "
+            + "AND amount BETWEEN :minAmount AND :maxAmount AND transaction_at <= :before "
+            + "ORDER BY transaction_at DESC LIMIT 1")
+    PendingTransaction findPreviousByMerchantKey(String merchantKey, String type, double minAmount,
+                                                 double maxAmount, long before);
+
+    // Occurrences of a recurring series up to a row, oldest first
+    @Query("SELECT * FROM pending_transactions WHERE merchant_id = :merchantId AND type = :type "
+            + "AND amount BETWEEN :minAmount AND :maxAmount AND id <= :maxId "
+            + "ORDER BY transaction_at ASC, id ASC")
+    List<PendingTransaction> getSeriesByMerchantId(long merchantId, String type, double minAmount,
+                                                   double maxAmount, long maxId);
+
+    @Query("SELECT * FROM pending_transactions WHERE merchant_key = :merchantKey AND type = :type "
+            + "AND amount BETWEEN :minAmount AND :maxAmount AND id <= :maxId "
+            + "ORDER BY transaction_at ASC, id ASC")
+    List<PendingTransaction> getSeriesByMerchantKey(String merchantKey, String type, double minAmount,
+                                                    double maxAmount, long maxId);
+
+    // Exact cross-source match on UPI reference / UTR (indexed)
+    @Query("SELECT * FROM pending_transactions WHERE reference_id = :referenceId LIMIT 1")
+    PendingTransaction findByReferenceId(String referenceId);
+
+    // ============================================
+    // BULK RECONCILE (see ServerReconciler; at most 500 keys per call)
+    // ============================================
+
+    @Query("SELECT sms_hash FROM pending_transactions WHERE sms_hash IN (:smsHashes)")
+    List<String> findExistingHashes(List<String> smsHashes);
+
+    @Query("SELECT * FROM pending_transactions WHERE reference_id IN (:referenceIds)")
+    List<PendingTransaction> findByReferenceIds(List<String> referenceIds);
+
+    // Not yet linked to a server row, with one of the amounts, in a time range (seeks on amount + time)
+    String FIND_UNLINKED_BY_AMOUNTS_QUERY = "SELECT * FROM pending_transactions WHERE amount IN (:amounts) "
+            + "AND transaction_at BETWEEN :startTime AND :endTime AND server_id IS NULL";
+
+    @Query(FIND_UNLINKED_BY_AMOUNTS_QUERY)
+    List<PendingTransaction> findUnlinkedByAmounts(List<Double> amounts, long startTime, long endTime);
+
+    // Find duplicate transaction (same amount, merchant, within time range; indexed on amount + time)
+    String FIND_DUPLICATE_QUERY = "SELECT * FROM pending_transactions WHERE amount = :amount "
+            + "AND merchant = :merchant AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1";
+
+    @Query(FIND_DUPLICATE_QUERY)
     PendingTransaction findDuplicate(double amount, String merchant, long startTime, long endTime);
     
-    // Find duplicate by amount and time only (for cross-source deduplication: SMS vs Notification)
+    // Find duplicate by amount and time only (for cross-source deduplication: SMS vs Notification; indexed)
     // This catches cases where bank SMS and UPI notification both report same transaction
-    @Query("SELECT * FROM pending_transactions WHERE amount = :amount AND type = :type AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1")
+    String FIND_DUPLICATE_BY_AMOUNT_AND_TIME_QUERY = "SELECT * FROM pending_transactions "
+            + "WHERE amount = :amount AND type = :type AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1";
+
+    @Query(FIND_DUPLICATE_BY_AMOUNT_AND_TIME_QUERY)
     PendingTransaction findDuplicateByAmountAndTime(double amount, String type, long startTime, long endTime);
 
     // Loose duplicate check with potentially different merchant names (e.g. "UPI-REF" vs "Amazon")
     // Amount must match exactly.
-    @Query("SELECT * FROM pending_transactions WHERE amount = :amount AND type = :type AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1")
+    String FIND_DUPLICATE_LOOSE_QUERY = "SELECT * FROM pending_transactions "
+            + "WHERE amount = :amount AND type = :type AND transaction_at BETWEEN :startTime AND :endTime LIMIT 1";
+
+    @Query(FIND_DUPLICATE_LOOSE_QUERY)
     PendingTransaction findDuplicateLoose(double amount, String type, long startTime, long endTime);
     
     // Update merchant name (used when notification has better info than SMS)
-    @Query("UPDATE pending_transactions SET merchant = :merchant, synced = 0 WHERE id = :id")
-    void updateMerchant(long id, String merchant);
+    default void updateMerchant(long id, String merchant) {
+        MerchantMatcher.Signature signature = MerchantMatcher.signature(merchant);
+        updateMerchant(id, merchant, signature.isEmpty() ? null : signature.key,
+                signature.isEmpty() ? null : signature.sketch);
+    }
+
+    @Query("UPDATE pending_transactions SET merchant = :merchant, merchant_key = :merchantKey, "
+            + "merchant_sketch = :merchantSketch, synced = 0 WHERE id = :id")
+    void updateMerchant(long id, String merchant, String merchantKey, Long merchantSketch);
+    
+    // Merge an updated re-post of a payment notification into the row it created
+    default void updateFromNotification(long id, double amount, String type, String merchant, String category) {
+        MerchantMatcher.Signature signature = MerchantMatcher.signature(merchant);
+        updateFromNotification(id, amount, type, merchant, signature.isEmpty() ? null : signature.key,
+                signature.isEmpty() ? null : signature.sketch, category);
+    }
+
+    @Query("UPDATE pending_transactions SET amount = :amount, type = :type, merchant = :merchant, "
+            + "merchant_key = :merchantKey, merchant_sketch = :merchantSketch, category = :category, "
+            + "synced = 0 WHERE id = :id")
+    void updateFromNotification(long id, double amount, String type, String merchant,
+                                String merchantKey, Long merchantSketch, String category);
+    
+    // Apply a learned category to a merchant's rows that have none yet
+    @Query("UPDATE pending_transactions SET category = :category, category_icon = :icon, "
+            + "category_color = :color, synced = 0 WHERE merchant_key = :merchantKey "
+            + "AND (category IS NULL OR category = '' OR category = 'Other')")
+    int applyCategoryToUncategorized(String merchantKey, String category, String icon, String color);
+
+    // Point the row at its canonical merchant
+    @Query("UPDATE pending_transactions SET merchant_id = :merchantId WHERE id = :id")
+    void updateMerchantId(long id, Long merchantId);
+
+    // All transactions with one canonical merchant (indexed)
+    @Query("SELECT * FROM pending_transactions WHERE merchant_id = :merchantId ORDER BY transaction_at DESC")
+    List<PendingTransaction> getByMerchantId(long merchantId);
+    
+    // Attach a UPI reference learned from another source
+    @Query("UPDATE pending_transactions SET reference_id = :referenceId WHERE id = :id")
+    void updateReferenceId(long id, String referenceId);
     
     // Update amount
     @Query("UPDATE pending_transactions SET amount = :amount, synced = 0 WHERE id = :id")
     void updateAmount(long id, double amount);
     
     // Update transaction date/time
-    @Query("UPDATE pending_transactions SET transaction_at = :transactionAt, synced = 0 WHERE id = :id")
-    void updateTransactionAt(long id, long transactionAt);
+    default void updateTransactionAt(long id, long transactionAt) {
+        updateTransactionAt(id, transactionAt, LocalDates.yearMonth(transactionAt), LocalDates.localDay(transactionAt));
+    }
+
+    @Query("UPDATE pending_transactions SET transaction_at = :transactionAt, year_month = :yearMonth, "
+            + "local_day = :localDay, synced = 0 WHERE id = :id")
+    void updateTransactionAt(long id, long transactionAt, int yearMonth, int localDay);
     
     // Update bank info (used when SMS has better info than notification)
-    @Query("UPDATE pending_transactions SET bank_name = :bankName, last_4_digits = :last4Digits, synced = 0 WHERE id = :id")
-    void updateBankInfo(long id, String bankName, String last4Digits);
+    @Query("UPDATE pending_transactions SET bank_name = :bankName, last_4_digits = :last4Digits, "
+            + "balance = COALESCE(:balance, balance), synced = 0 WHERE id = :id")
+    void updateBankInfo(long id, String bankName, String last4Digits, Double balance);
+
+    // Latest transaction of an account that carried a bank-reported balance (indexed)
+    @Query("SELECT * FROM pending_transactions WHERE last_4_digits = :last4Digits AND balance IS NOT NULL "
+            + "ORDER BY transaction_at DESC, id DESC LIMIT 1")
+    PendingTransaction getLatestReading(String last4Digits);
+
+    // Net effect (income - expense) of an account's transactions after a time (indexed)
+    @Query("SELECT COALESCE(SUM(CASE WHEN type = 'income' THEN amount WHEN type = 'expense' THEN -amount "
+            + "ELSE 0 END), 0) FROM pending_transactions WHERE last_4_digits = :last4Digits "
+            + "AND transaction_at > :after AND id != :excludeId")
+    double getNetAfter(String last4Digits, long after, long excludeId);
     
     // Update server info after successful backend save (prevents duplicate on fetch)
     @Query("UPDATE pending_transactions SET server_id = :serverId, sms_hash = :smsHash, synced = 1 WHERE id = :id")
     void updateServerInfo(long id, String serverId, String smsHash);
 
-    // Category stats for expenses
-    @Query("SELECT category, SUM(amount) as total, COUNT(*) as count FROM pending_transactions WHERE type = 'expense' GROUP BY category ORDER BY total DESC")
-    List<CategoryStatResult> getCategoryStatsForExpenses();
-
-    // Category stats for income
-    @Query("SELECT category, SUM(amount) as total, COUNT(*) as count FROM pending_transactions WHERE type = 'income' GROUP BY category ORDER BY total DESC")
-    List<CategoryStatResult> getCategoryStatsForIncome();
-    
-    // Category stats for expenses filtered by month
-    @Query("SELECT category, SUM(amount) as total, COUNT(*) as count FROM pending_transactions WHERE type = 'expense' AND strftime('%Y', transaction_at/1000, 'unixepoch') = :year AND strftime('%m', transaction_at/1000, 'unixepoch') = :month GROUP BY category ORDER BY total DESC")
-    List<CategoryStatResult> getCategoryStatsForExpensesByMonth(String year, String month);
-
-    // Category stats for income filtered by month
-    @Query("SELECT category, SUM(amount) as total, COUNT(*) as count FROM pending_transactions WHERE type = 'income' AND strftime('%Y', transaction_at/1000, 'unixepoch') = :year AND strftime('%m', transaction_at/1000, 'unixepoch') = :month GROUP BY category ORDER BY total DESC")
-    List<CategoryStatResult> getCategoryStatsForIncomeByMonth(String year, String month);
-
-    // Inner class for category stats result
-    class CategoryStatResult {
+    /**
+     * What a transaction list shows of a row (see ROW_COLUMNS); load the entity
+     * with getById to edit or delete it
+     */
+    class TransactionRow {
+        public long id;
+        public String type;
+        public double amount;
+        public String merchant;
+        public String bankName;
         public String category;
-        public double total;
-        public int count;
+        public String note;
+        public long transactionAt;
+        public int localDay;
+        public boolean synced;
     }
 }
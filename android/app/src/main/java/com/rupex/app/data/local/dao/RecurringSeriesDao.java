@@ -0,0 +1,39 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import com.rupex.app.data.local.entity.RecurringSeries;
+
+import java.util.List;
+
+/**
+ * DAO for detected recurring series
+ */
+@Dao
+public interface RecurringSeriesDao {
+
+    @Insert
+    long insert(RecurringSeries series);
+
+    @Update
+    void update(RecurringSeries series);
+
+    // Candidate series for a transaction (indexed)
+    @Query("SELECT * FROM recurring_series WHERE merchant_id = :merchantId AND type = :type")
+    List<RecurringSeries> getByMerchantId(long merchantId, String type);
+
+    @Query("SELECT * FROM recurring_series WHERE merchant_key = :merchantKey AND type = :type")
+    List<RecurringSeries> getByMerchantKey(String merchantKey, String type);
+
+    // Confirmed series due in [from, to], soonest first
+    @Query("SELECT * FROM recurring_series WHERE period_days > 0 AND type = :type "
+            + "AND next_expected_at BETWEEN :from AND :to ORDER BY next_expected_at ASC LIMIT :limit")
+    LiveData<List<RecurringSeries>> getUpcomingLive(String type, long from, long to, int limit);
+
+    @Query("DELETE FROM recurring_series")
+    void deleteAll();
+}
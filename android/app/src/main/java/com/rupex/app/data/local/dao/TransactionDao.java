@@ -1,5 +1,6 @@
 package com.rupex.app.data.local.dao;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
@@ -7,6 +8,7 @@ import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import com.rupex.app.data.local.PageCursor;
 import com.rupex.app.data.local.entity.Transaction;
 
 import java.util.List;
@@ -29,8 +31,25 @@ public interface TransactionDao {
     @Query("SELECT * FROM transactions ORDER BY transaction_at DESC")
     LiveData<List<Transaction>> getAllLive();
 
-    @Query("SELECT * FROM transactions ORDER BY transaction_at DESC LIMIT :limit OFFSET :offset")
-    List<Transaction> getPaginated(int limit, int offset);
+    /**
+     * One page, newest first (keyset paging): null for the first page, then the
+     * token of the previous page's last row (PageCursor.of(row).token())
+     */
+    default List<Transaction> getPage(@Nullable String cursor, int limit) {
+        PageCursor after = PageCursor.parse(cursor);
+        return after == null ? getNewest(limit) : getOlderThan(after.transactionAt, after.id, limit);
+    }
+
+    @Query("SELECT * FROM transactions ORDER BY transaction_at DESC, id DESC LIMIT :limit")
+    List<Transaction> getNewest(int limit);
+
+    // Rows after (transaction_at, id) in newest-first order: a seek on the time index
+    String OLDER_THAN_QUERY = "SELECT * FROM transactions WHERE transaction_at <= :transactionAt "
+            + "AND (transaction_at < :transactionAt OR id < :id) "
+            + "ORDER BY transaction_at DESC, id DESC LIMIT :limit";
+
+    @Query(OLDER_THAN_QUERY)
+    List<Transaction> getOlderThan(long transactionAt, String id, int limit);
 
     @Query("SELECT * FROM transactions WHERE id = :id")
     Transaction getById(String id);
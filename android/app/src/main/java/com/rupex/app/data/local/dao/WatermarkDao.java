@@ -0,0 +1,28 @@
+package com.rupex.app.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.rupex.app.data.local.entity.Watermark;
+
+/**
+ * DAO for incremental job watermarks
+ */
+@Dao
+public interface WatermarkDao {
+
+    // Last processed pending_transactions id, 0 if the job never ran
+    @Query("SELECT COALESCE((SELECT last_id FROM watermarks WHERE name = :name), 0)")
+    long get(String name);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void set(Watermark watermark);
+
+    @Query("DELETE FROM watermarks WHERE name = :name")
+    void reset(String name);
+
+    @Query("DELETE FROM watermarks")
+    void deleteAll();
+}
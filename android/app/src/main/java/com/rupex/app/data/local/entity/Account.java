@@ -11,6 +11,9 @@ import androidx.room.PrimaryKey;
 @Entity(tableName = "accounts")
 public class Account {
 
+    // Accounts discovered from bank SMS (by last 4 digits) that don't exist on the server
+    public static final String LOCAL_ID_PREFIX = "sms_";
+
     @PrimaryKey
     @NonNull
     @ColumnInfo(name = "id")
@@ -45,6 +48,15 @@ public class Account {
     @ColumnInfo(name = "updated_at")
     private long updatedAt;
 
+    @ColumnInfo(name = "reported_balance")
+    private double reportedBalance; // Latest balance reported by the bank (SMS "Avl Bal")
+
+    @ColumnInfo(name = "reported_at")
+    private long reportedAt; // When it was reported, 0 = balance unknown
+
+    @ColumnInfo(name = "drift")
+    private double drift; // Reported minus computed balance at the latest reading
+
     // Getters and Setters
     @NonNull
     public String getId() { return id; }
@@ -78,4 +90,17 @@ public class Account {
 
     public long getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public double getReportedBalance() { return reportedBalance; }
+    public void setReportedBalance(double reportedBalance) { this.reportedBalance = reportedBalance; }
+
+    public long getReportedAt() { return reportedAt; }
+    public void setReportedAt(long reportedAt) { this.reportedAt = reportedAt; }
+
+    public double getDrift() { return drift; }
+    public void setDrift(double drift) { this.drift = drift; }
+
+    public boolean isLocalOnly() {
+        return id.startsWith(LOCAL_ID_PREFIX);
+    }
 }
@@ -7,18 +7,27 @@ import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
- * Activity log entity - tracks what the app captured, added, or rejected
+ * Activity log entity - tracks what the app captured, added, or rejected.
+ *
+ * Stored as a fixed-size ring: entry {@code seq} lives in slot {@code seq % RING_SIZE}
+ * and is written with INSERT OR REPLACE, so the table never exceeds RING_SIZE rows.
  */
 @Entity(
     tableName = "activity_logs",
     indices = {
-        @Index(value = "timestamp")
+        @Index(value = "seq", unique = true)
     }
 )
 public class ActivityLog {
 
-    @PrimaryKey(autoGenerate = true)
-    private long id;
+    public static final int RING_SIZE = 100;
+
+    @PrimaryKey
+    @ColumnInfo(name = "slot")
+    private int slot;
+
+    @ColumnInfo(name = "seq")
+    private long seq; // Monotonic write order
 
     @NonNull
     @ColumnInfo(name = "type")
@@ -43,8 +52,14 @@ public class ActivityLog {
     private long timestamp;
 
     // Getters and Setters
-    public long getId() { return id; }
-    public void setId(long id) { this.id = id; }
+    public int getSlot() { return slot; }
+    public void setSlot(int slot) { this.slot = slot; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) {
+        this.seq = seq;
+        this.slot = (int) (seq % RING_SIZE);
+    }
 
     @NonNull
     public String getType() { return type; }
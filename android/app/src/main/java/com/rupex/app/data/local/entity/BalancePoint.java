@@ -0,0 +1,77 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Balance point entity - an account's balance right after one transaction,
+ * either reported by the bank or computed from the previous point
+ */
+@Entity(
+    tableName = "balance_points",
+    indices = {
+        @Index(value = {"account_id", "recorded_at"})
+    }
+)
+public class BalancePoint {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    @ColumnInfo(name = "account_id")
+    private String accountId = "";
+
+    @ColumnInfo(name = "transaction_id")
+    private long transactionId;
+
+    @ColumnInfo(name = "recorded_at")
+    private long recordedAt; // Transaction time
+
+    @ColumnInfo(name = "balance")
+    private double balance;
+
+    @ColumnInfo(name = "reported")
+    private boolean reported; // From an SMS balance, not interpolated
+
+    @ColumnInfo(name = "drift")
+    private double drift; // Reported minus computed (reported points only)
+
+    public BalancePoint() {}
+
+    public BalancePoint(@NonNull String accountId, long transactionId, long recordedAt,
+                        double balance, boolean reported, double drift) {
+        this.accountId = accountId;
+        this.transactionId = transactionId;
+        this.recordedAt = recordedAt;
+        this.balance = balance;
+        this.reported = reported;
+        this.drift = drift;
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getAccountId() { return accountId; }
+    public void setAccountId(@NonNull String accountId) { this.accountId = accountId; }
+
+    public long getTransactionId() { return transactionId; }
+    public void setTransactionId(long transactionId) { this.transactionId = transactionId; }
+
+    public long getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(long recordedAt) { this.recordedAt = recordedAt; }
+
+    public double getBalance() { return balance; }
+    public void setBalance(double balance) { this.balance = balance; }
+
+    public boolean isReported() { return reported; }
+    public void setReported(boolean reported) { this.reported = reported; }
+
+    public double getDrift() { return drift; }
+    public void setDrift(double drift) { this.drift = drift; }
+}
@@ -0,0 +1,43 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Budget entity - monthly spending limit for one category
+ */
+@Entity(tableName = "budgets")
+public class Budget {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "monthly_limit")
+    private double monthlyLimit;
+
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    public Budget() {}
+
+    public Budget(@NonNull String category, double monthlyLimit, long updatedAt) {
+        this.category = category;
+        this.monthlyLimit = monthlyLimit;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getCategory() { return category; }
+    public void setCategory(@NonNull String category) { this.category = category; }
+
+    public double getMonthlyLimit() { return monthlyLimit; }
+    public void setMonthlyLimit(double monthlyLimit) { this.monthlyLimit = monthlyLimit; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,45 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Category rule entity - category the user chose for a merchant (by canonical merchant key)
+ */
+@Entity(tableName = "category_rules")
+public class CategoryRule {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "merchant_key")
+    private String merchantKey;
+
+    @NonNull
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    public CategoryRule() {}
+
+    public CategoryRule(@NonNull String merchantKey, @NonNull String category, long updatedAt) {
+        this.merchantKey = merchantKey;
+        this.category = category;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getMerchantKey() { return merchantKey; }
+    public void setMerchantKey(@NonNull String merchantKey) { this.merchantKey = merchantKey; }
+
+    @NonNull
+    public String getCategory() { return category; }
+    public void setCategory(@NonNull String category) { this.category = category; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+}
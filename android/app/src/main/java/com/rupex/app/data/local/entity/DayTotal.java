@@ -0,0 +1,40 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Running total of one (local day, type), maintained by triggers on pending_transactions
+ * (see DatabaseTriggers). Days without transactions have no row.
+ */
+@Entity(tableName = "agg_day", primaryKeys = {"local_day", "type"})
+public class DayTotal {
+
+    @ColumnInfo(name = "local_day")
+    private int localDay; // yyyyMMdd
+
+    @NonNull
+    @ColumnInfo(name = "type")
+    private String type = "";
+
+    @ColumnInfo(name = "total")
+    private double total;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    // Getters and Setters
+    public int getLocalDay() { return localDay; }
+    public void setLocalDay(int localDay) { this.localDay = localDay; }
+
+    @NonNull
+    public String getType() { return type; }
+    public void setType(@NonNull String type) { this.type = type; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
@@ -0,0 +1,54 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Merchant entity - one row per canonical payee, whatever name variants it shows up under
+ */
+@Entity(
+    tableName = "merchants",
+    indices = {
+        @Index(value = "canonical_key", unique = true)
+    }
+)
+public class Merchant {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    @ColumnInfo(name = "display_name")
+    private String displayName;
+
+    @NonNull
+    @ColumnInfo(name = "canonical_key")
+    private String canonicalKey; // MerchantMatcher key of the first name seen
+
+    @ColumnInfo(name = "category_hint")
+    private String categoryHint; // Category to suggest for new transactions
+
+    @ColumnInfo(name = "created_at")
+    private long createdAt;
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(@NonNull String displayName) { this.displayName = displayName; }
+
+    @NonNull
+    public String getCanonicalKey() { return canonicalKey; }
+    public void setCanonicalKey(@NonNull String canonicalKey) { this.canonicalKey = canonicalKey; }
+
+    public String getCategoryHint() { return categoryHint; }
+    public void setCategoryHint(String categoryHint) { this.categoryHint = categoryHint; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+}
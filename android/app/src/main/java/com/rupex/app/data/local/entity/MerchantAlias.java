@@ -0,0 +1,57 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Merchant alias entity - maps a raw name variant (VPA, SMS name, notification name),
+ * reduced to its canonical key, to a merchant
+ */
+@Entity(
+    tableName = "merchant_aliases",
+    foreignKeys = @ForeignKey(
+        entity = Merchant.class,
+        parentColumns = "id",
+        childColumns = "merchant_id",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {
+        @Index(value = "merchant_id")
+    }
+)
+public class MerchantAlias {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "alias")
+    private String alias;
+
+    @ColumnInfo(name = "merchant_id")
+    private long merchantId;
+
+    @ColumnInfo(name = "source")
+    private String source; // "sms", "notification", "synced", "manual"
+
+    public MerchantAlias() {}
+
+    public MerchantAlias(@NonNull String alias, long merchantId, String source) {
+        this.alias = alias;
+        this.merchantId = merchantId;
+        this.source = source;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getAlias() { return alias; }
+    public void setAlias(@NonNull String alias) { this.alias = alias; }
+
+    public long getMerchantId() { return merchantId; }
+    public void setMerchantId(long merchantId) { this.merchantId = merchantId; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+}
@@ -0,0 +1,58 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Running total of one (month, type, category): the rows summary screens read instead of
+ * summing pending_transactions.
+ *
+ * Maintained by triggers on pending_transactions (see DatabaseTriggers), never written by the app
+ * except when rebuilding. year_month is the rows' yyyyMM bucket; blank categories count as "Other".
+ * A row whose transactions were all removed stays with count 0, keeping its alert level.
+ */
+@Entity(tableName = "agg_month_category", primaryKeys = {"year_month", "type", "category"})
+public class MonthCategoryTotal {
+
+    @ColumnInfo(name = "year_month")
+    private int yearMonth;
+
+    @NonNull
+    @ColumnInfo(name = "type")
+    private String type = "";
+
+    @NonNull
+    @ColumnInfo(name = "category")
+    private String category = "";
+
+    @ColumnInfo(name = "total")
+    private double total;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    @ColumnInfo(name = "alert_level")
+    private int alertLevel; // Highest budget threshold (percent) already notified this month (expenses)
+
+    // Getters and Setters
+    public int getYearMonth() { return yearMonth; }
+    public void setYearMonth(int yearMonth) { this.yearMonth = yearMonth; }
+
+    @NonNull
+    public String getType() { return type; }
+    public void setType(@NonNull String type) { this.type = type; }
+
+    @NonNull
+    public String getCategory() { return category; }
+    public void setCategory(@NonNull String category) { this.category = category; }
+
+    public double getTotal() { return total; }
+    public void setTotal(double total) { this.total = total; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public int getAlertLevel() { return alertLevel; }
+    public void setAlertLevel(int alertLevel) { this.alertLevel = alertLevel; }
+}
@@ -6,6 +6,8 @@ import androidx.room.Entity;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.rupex.app.util.LocalDates;
+
 /**
  * Pending transaction entity - transactions parsed from SMS awaiting sync
  */
@@ -13,7 +15,17 @@ import androidx.room.PrimaryKey;
     tableName = "pending_transactions",
     indices = {
         @Index(value = "sms_hash", unique = true),
-        @Index(value = "synced")
+        @Index(value = "synced"),
+        @Index(value = "reference_id"),
+        @Index(value = "merchant_id"),
+        @Index(value = "merchant_key"),
+        @Index(value = {"last_4_digits", "transaction_at"}),
+        @Index(value = {"amount", "transaction_at"}),
+        @Index(value = "transaction_at"),
+        @Index(value = "server_id"),
+        @Index(value = "source"),
+        @Index(value = {"year_month", "transaction_at"}),
+        @Index(value = "local_day")
     }
 )
 public class PendingTransaction {
@@ -50,6 +62,12 @@ public class PendingTransaction {
     @ColumnInfo(name = "transaction_at")
     private long transactionAt;
 
+    @ColumnInfo(name = "year_month")
+    private int yearMonth; // yyyyMM of transaction_at in the device's zone when written
+
+    @ColumnInfo(name = "local_day")
+    private int localDay; // yyyyMMdd, likewise
+
     @ColumnInfo(name = "created_at")
     private long createdAt;
 
@@ -77,6 +95,15 @@ public class PendingTransaction {
     @ColumnInfo(name = "source")
     private String source;  // "sms" or "notification" - where this transaction came from
 
+    @ColumnInfo(name = "merchant_key")
+    private String merchantKey;  // Canonical merchant key (see MerchantMatcher)
+
+    @ColumnInfo(name = "merchant_sketch")
+    private Long merchantSketch;  // MinHash sketch of merchantKey
+
+    @ColumnInfo(name = "merchant_id")
+    private Long merchantId;  // Canonical merchant (merchants.id)
+
     // Getters and Setters
     public long getId() { return id; }
     public void setId(long id) { this.id = id; }
@@ -110,6 +137,20 @@ public class PendingTransaction {
     public long getTransactionAt() { return transactionAt; }
     public void setTransactionAt(long transactionAt) { this.transactionAt = transactionAt; }
 
+    public int getYearMonth() { return yearMonth; }
+    public void setYearMonth(int yearMonth) { this.yearMonth = yearMonth; }
+
+    public int getLocalDay() { return localDay; }
+    public void setLocalDay(int localDay) { this.localDay = localDay; }
+
+    /**
+     * Set year_month / local_day from transaction_at in the current time zone
+     */
+    public void updateLocalDate() {
+        yearMonth = LocalDates.yearMonth(transactionAt);
+        localDay = LocalDates.localDay(transactionAt);
+    }
+
     public long getCreatedAt() { return createdAt; }
     public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
 
@@ -136,4 +177,13 @@ public class PendingTransaction {
     
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
+
+    public String getMerchantKey() { return merchantKey; }
+    public void setMerchantKey(String merchantKey) { this.merchantKey = merchantKey; }
+
+    public Long getMerchantSketch() { return merchantSketch; }
+    public void setMerchantSketch(Long merchantSketch) { this.merchantSketch = merchantSketch; }
+
+    public Long getMerchantId() { return merchantId; }
+    public void setMerchantId(Long merchantId) { this.merchantId = merchantId; }
 }
@@ -0,0 +1,72 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+import java.util.Locale;
+
+/**
+ * Full-text index over the searchable text of pending_transactions. It stores no
+ * text of its own (external content); Room keeps it in step with triggers, and its
+ * rowid is the transaction's id. Prefix indexes make 2-3 letter prefixes cheap.
+ */
+@Fts4(contentEntity = PendingTransaction.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61,
+        prefix = {2, 3})
+@Entity(tableName = "pending_transactions_fts")
+public class PendingTransactionFts {
+
+    private static final int MAX_TERMS = 8;
+
+    @ColumnInfo(name = "merchant")
+    private String merchant;
+
+    @ColumnInfo(name = "note")
+    private String note;
+
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "bank_name")
+    private String bankName;
+
+    @ColumnInfo(name = "reference_id")
+    private String referenceId;
+
+    /**
+     * MATCH expression for search-as-you-type: every word of the text as a prefix,
+     * all required ("swig foo" → "swig* foo*"). Null if the text has no words.
+     */
+    @Nullable
+    public static String matchQuery(@Nullable String text) {
+        if (text == null) return null;
+        StringBuilder match = new StringBuilder();
+        int terms = 0;
+        // Lowercase so that AND / OR / NOT are words, not operators
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (terms == MAX_TERMS) break;
+            if (terms++ > 0) match.append(' ');
+            match.append(word).append('*');
+        }
+        return terms > 0 ? match.toString() : null;
+    }
+
+    // Getters and Setters
+    public String getMerchant() { return merchant; }
+    public void setMerchant(String merchant) { this.merchant = merchant; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getBankName() { return bankName; }
+    public void setBankName(String bankName) { this.bankName = bankName; }
+
+    public String getReferenceId() { return referenceId; }
+    public void setReferenceId(String referenceId) { this.referenceId = referenceId; }
+}
@@ -0,0 +1,110 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Recurring series entity - a payment that repeats with the same merchant at a
+ * similar amount (subscription, rent, SIP, EMI...). Maintained by RecurringDetector.
+ */
+@Entity(
+    tableName = "recurring_series",
+    indices = {
+        @Index(value = "merchant_id"),
+        @Index(value = "merchant_key"),
+        @Index(value = "next_expected_at")
+    }
+)
+public class RecurringSeries {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "merchant_id")
+    private Long merchantId; // Canonical merchant, if resolved
+
+    @NonNull
+    @ColumnInfo(name = "merchant_key")
+    private String merchantKey = "";
+
+    @ColumnInfo(name = "merchant")
+    private String merchant; // Display name (latest seen)
+
+    @ColumnInfo(name = "type")
+    private String type; // "income" or "expense"
+
+    @ColumnInfo(name = "amount")
+    private double amount; // Expected amount (smoothed)
+
+    @ColumnInfo(name = "occurrences")
+    private int occurrences;
+
+    @ColumnInfo(name = "interval_mean")
+    private double intervalMean; // Days between occurrences
+
+    @ColumnInfo(name = "interval_m2")
+    private double intervalM2; // Sum of squared deviations (Welford)
+
+    @ColumnInfo(name = "period_days")
+    private int periodDays; // Detected period, 0 until the intervals are regular
+
+    @ColumnInfo(name = "last_transaction_id")
+    private long lastTransactionId;
+
+    @ColumnInfo(name = "last_seen_at")
+    private long lastSeenAt;
+
+    @ColumnInfo(name = "next_expected_at")
+    private long nextExpectedAt; // 0 until a period is detected
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public Long getMerchantId() { return merchantId; }
+    public void setMerchantId(Long merchantId) { this.merchantId = merchantId; }
+
+    @NonNull
+    public String getMerchantKey() { return merchantKey; }
+    public void setMerchantKey(@NonNull String merchantKey) { this.merchantKey = merchantKey; }
+
+    public String getMerchant() { return merchant; }
+    public void setMerchant(String merchant) { this.merchant = merchant; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+
+    public int getOccurrences() { return occurrences; }
+    public void setOccurrences(int occurrences) { this.occurrences = occurrences; }
+
+    public double getIntervalMean() { return intervalMean; }
+    public void setIntervalMean(double intervalMean) { this.intervalMean = intervalMean; }
+
+    public double getIntervalM2() { return intervalM2; }
+    public void setIntervalM2(double intervalM2) { this.intervalM2 = intervalM2; }
+
+    public int getPeriodDays() { return periodDays; }
+    public void setPeriodDays(int periodDays) { this.periodDays = periodDays; }
+
+    public long getLastTransactionId() { return lastTransactionId; }
+    public void setLastTransactionId(long lastTransactionId) { this.lastTransactionId = lastTransactionId; }
+
+    public long getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(long lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+
+    public long getNextExpectedAt() { return nextExpectedAt; }
+    public void setNextExpectedAt(long nextExpectedAt) { this.nextExpectedAt = nextExpectedAt; }
+
+    /**
+     * Detected as periodic (shown as upcoming)
+     */
+    public boolean isConfirmed() {
+        return periodDays > 0;
+    }
+}
@@ -15,7 +15,7 @@ import androidx.room.PrimaryKey;
     indices = {
         @Index(value = "account_id"),
         @Index(value = "category_id"),
-        @Index(value = "transaction_at")
+        @Index(value = {"transaction_at", "id"})
     }
 )
 public class Transaction {
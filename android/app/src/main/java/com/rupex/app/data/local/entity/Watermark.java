@@ -0,0 +1,36 @@
+package com.rupex.app.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Watermark entity - last pending_transactions id an incremental job has processed
+ */
+@Entity(tableName = "watermarks")
+public class Watermark {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "last_id")
+    private long lastId;
+
+    public Watermark() {}
+
+    public Watermark(@NonNull String name, long lastId) {
+        this.name = name;
+        this.lastId = lastId;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getName() { return name; }
+    public void setName(@NonNull String name) { this.name = name; }
+
+    public long getLastId() { return lastId; }
+    public void setLastId(long lastId) { this.lastId = lastId; }
+}
@@ -0,0 +1,122 @@
+package com.rupex.app.insights;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.AccountDao;
+import com.rupex.app.data.local.entity.Account;
+import com.rupex.app.data.local.entity.BalancePoint;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.util.AppLog;
+
+/**
+ * Per-account balance timeline from bank SMS balances ("Avl Bal").
+ *
+ * Accounts are keyed by the card / account last 4 digits. Each reported balance
+ * is stored on the account; transactions in between move the balance by their
+ * amount (income +, expense -), so the current balance is always the latest
+ * reading plus the deltas after it and reading it is a single-row lookup.
+ * Every applied transaction adds a {@link BalancePoint}.
+ *
+ * When a reading disagrees with the balance computed from the previous one by
+ * {@link #DRIFT_TOLERANCE} or more (a missed SMS, a charge with no alert), the
+ * difference is kept as the account's drift and on the point.
+ *
+ * All methods run inside the caller's transaction.
+ */
+public final class BalanceTracker {
+
+    private static final String TAG = "BalanceTracker";
+    private static final double DRIFT_TOLERANCE = 1.0; // ₹, ignores paise rounding
+
+    private BalanceTracker() {}
+
+    /**
+     * Apply a transaction that was just stored or just got its account (last 4 digits).
+     * Call once per transaction.
+     */
+    public static void apply(RupexDatabase db, PendingTransaction txn) {
+        String last4 = txn.getLast4Digits();
+        if (last4 == null || last4.isEmpty()) return;
+
+        AccountDao dao = db.accountDao();
+        Account account = dao.getByLast4Digits(last4);
+        Double reported = txn.getBalance();
+        if (account == null) {
+            if (reported == null) return; // Balance unknown until the first reading
+            account = newAccount(txn);
+            dao.insert(account);
+        }
+
+        long at = txn.getTransactionAt();
+        long now = System.currentTimeMillis();
+        if (reported != null && at >= account.getReportedAt()) {
+            // Transactions already applied that happened after this one (SMS can arrive out of order)
+            double later = db.pendingTransactionDao().getNetAfter(last4, at, txn.getId());
+            double drift = 0;
+            if (account.getReportedAt() > 0) {
+                double computed = account.getBalance() - later + delta(txn);
+                drift = reported - computed;
+                if (Math.abs(drift) < DRIFT_TOLERANCE) {
+                    drift = 0;
+                } else {
+                    AppLog.w(TAG, "Balance drift on ••{}: reported {}, computed {}", last4, reported, computed);
+                }
+            }
+            dao.recordReading(account.getId(), reported + later, reported, at, drift, now);
+            dao.insertPoint(new BalancePoint(account.getId(), txn.getId(), at, reported, true, drift));
+        } else if (account.getReportedAt() > 0 && at > account.getReportedAt()) {
+            double balance = account.getBalance() + delta(txn);
+            dao.updateBalance(account.getId(), balance, now);
+            dao.insertPoint(new BalancePoint(account.getId(), txn.getId(), at, balance, false, 0));
+        }
+        // Otherwise the transaction predates the latest reading, which already includes it
+    }
+
+    /**
+     * Recompute an account's current balance from its latest reading, after a
+     * transaction of that account was edited or deleted. If that was the reading
+     * itself, the latest remaining one takes its place.
+     */
+    public static void recompute(RupexDatabase db, String last4) {
+        if (last4 == null || last4.isEmpty()) return;
+
+        AccountDao dao = db.accountDao();
+        Account account = dao.getByLast4Digits(last4);
+        if (account == null || account.getReportedAt() == 0) return;
+
+        long now = System.currentTimeMillis();
+        PendingTransaction reading = db.pendingTransactionDao().getLatestReading(last4);
+        if (reading == null) {
+            // No reported balance left, so the balance is unknown again
+            dao.clearReading(account.getId(), now);
+            return;
+        }
+
+        double reported = reading.getBalance();
+        double balance = reported
+                + db.pendingTransactionDao().getNetAfter(last4, reading.getTransactionAt(), reading.getId());
+        if (reading.getTransactionAt() == account.getReportedAt() && reported == account.getReportedBalance()) {
+            dao.updateBalance(account.getId(), balance, now);
+        } else {
+            // An earlier reading; the drift measured at the removed one doesn't apply to it
+            dao.recordReading(account.getId(), balance, reported, reading.getTransactionAt(), 0, now);
+        }
+    }
+
+    private static double delta(PendingTransaction txn) {
+        if ("income".equals(txn.getType())) return txn.getAmount();
+        if ("expense".equals(txn.getType())) return -txn.getAmount();
+        return 0;
+    }
+
+    private static Account newAccount(PendingTransaction txn) {
+        String bank = txn.getBankName() != null && !txn.getBankName().isEmpty() ? txn.getBankName() : "Bank";
+        Account account = new Account();
+        account.setId(Account.LOCAL_ID_PREFIX + txn.getLast4Digits());
+        account.setName(bank + " ••" + txn.getLast4Digits());
+        account.setType("bank");
+        account.setInstitution(txn.getBankName());
+        account.setLast4Digits(txn.getLast4Digits());
+        account.setActive(true);
+        return account;
+    }
+}
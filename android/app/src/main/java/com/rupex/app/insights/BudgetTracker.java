@@ -0,0 +1,146 @@
+package com.rupex.app.insights;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.rupex.app.R;
+import com.rupex.app.RupexApplication;
+import com.rupex.app.data.local.DatabaseTriggers;
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.BudgetDao;
+import com.rupex.app.data.local.entity.Budget;
+import com.rupex.app.ui.MainActivity;
+import com.rupex.app.util.LocalDates;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monthly category budgets and their alerts.
+ *
+ * Spending per (month, category) is kept in agg_month_category by triggers
+ * on pending_transactions ({@link DatabaseTriggers}), so totals are updated in
+ * the same transaction as every insert, edit and delete and are never re-summed.
+ * Checking budgets is one join over the budgeted categories of the current month.
+ * Months are the rows' year_month, fixed in the local zone when they were written.
+ *
+ * Crossing {@link #THRESHOLDS} posts one notification per threshold per month on
+ * {@link RupexApplication#CHANNEL_ALERTS}; the level reached is stored with the
+ * total and raised with a conditional update, so concurrent checks notify once.
+ */
+public class BudgetTracker {
+
+    private static final String TAG = "BudgetTracker";
+    private static final int[] THRESHOLDS = {80, 100}; // Percent of the budget, ascending
+
+    private static volatile BudgetTracker INSTANCE;
+
+    private final Context appContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean checkQueued = new AtomicBoolean();
+
+    private BudgetTracker(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static BudgetTracker getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (BudgetTracker.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BudgetTracker(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Set a category's monthly limit (0 or less removes the budget)
+     */
+    public void setBudget(String category, double monthlyLimit) {
+        executor.execute(() -> {
+            BudgetDao dao = RupexDatabase.getInstance(appContext).budgetDao();
+            if (monthlyLimit > 0) {
+                dao.upsert(new Budget(category, monthlyLimit, System.currentTimeMillis()));
+            } else {
+                dao.delete(category);
+            }
+        });
+        checkAlerts();
+    }
+
+    /**
+     * Compare this month's spending with the budgets and notify on newly crossed
+     * thresholds. Requests made while a check is queued are coalesced into it.
+     */
+    public void checkAlerts() {
+        if (checkQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                checkQueued.set(false);
+                check();
+            });
+        }
+    }
+
+    private void check() {
+        try {
+            BudgetDao dao = RupexDatabase.getInstance(appContext).budgetDao();
+            int yearMonth = LocalDates.yearMonth(System.currentTimeMillis());
+            List<BudgetDao.BudgetStatus> statuses = dao.getStatus(yearMonth);
+            for (BudgetDao.BudgetStatus status : statuses) {
+                int level = 0;
+                for (int threshold : THRESHOLDS) {
+                    if (status.spent >= status.monthlyLimit * threshold / 100) level = threshold;
+                }
+                if (level > status.alertLevel) {
+                    if (dao.raiseAlertLevel(yearMonth, status.category, level) > 0) {
+                        notify(status, level);
+                    }
+                } else if (level < status.alertLevel) {
+                    dao.lowerAlertLevel(yearMonth, status.category, level);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking budgets", e);
+        }
+    }
+
+    private void notify(BudgetDao.BudgetStatus status, int level) {
+        NotificationManagerCompat manager = NotificationManagerCompat.from(appContext);
+        if (!manager.areNotificationsEnabled()) return;
+
+        String title = level >= 100
+                ? status.category + " budget exceeded"
+                : status.category + " budget " + level + "% used";
+        String text = String.format(Locale.getDefault(), "₹%.0f of ₹%.0f spent this month",
+                status.spent, status.monthlyLimit);
+
+        Intent intent = new Intent(appContext, MainActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(appContext, 0, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        try {
+            // One notification per category, replaced when the next threshold is crossed
+            manager.notify(("budget_" + status.category).hashCode(),
+                    new NotificationCompat.Builder(appContext, RupexApplication.CHANNEL_ALERTS)
+                            .setSmallIcon(R.drawable.ic_notification)
+                            .setContentTitle(title)
+                            .setContentText(text)
+                            .setContentIntent(contentIntent)
+                            .setAutoCancel(true)
+                            .setPriority(NotificationCompat.PRIORITY_HIGH)
+                            .build());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Notification permission not granted");
+        }
+    }
+}
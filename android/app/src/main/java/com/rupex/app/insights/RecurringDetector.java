@@ -0,0 +1,336 @@
+package com.rupex.app.insights;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.RecurringSeries;
+import com.rupex.app.data.local.entity.Watermark;
+import com.rupex.app.util.AppLog;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Detects recurring payments (subscriptions, rent, SIP, EMI, weekly milk...).
+ *
+ * Runs incrementally: each scan reads only pending_transactions rows above the
+ * "recurring" watermark, in id order, and folds each one into a series of the
+ * same canonical merchant and type whose amount is within {@link #AMOUNT_TOLERANCE}.
+ * A series keeps running interval statistics (Welford mean / variance, in days)
+ * over its occurrences in transaction_at order, so a new occurrence is O(1).
+ * A row older than the series' latest occurrence (a delayed SMS, a backdated
+ * manual entry) would break that order; the series is then replayed from its rows.
+ *
+ * A series gets a period once it has {@link #MIN_INTERVALS} regular intervals
+ * close to a known cycle (weekly, fortnightly, monthly, quarterly, half-yearly,
+ * yearly); from then on it has a next expected date and amount.
+ *
+ * Series and watermark are updated in the same transaction, so a crash never
+ * counts a row twice. Edits to already processed rows are not replayed;
+ * {@link #rebuild()} recomputes everything from scratch.
+ */
+public class RecurringDetector {
+
+    private static final String TAG = "RecurringDetector";
+    private static final String WATERMARK = "recurring";
+    private static final int BATCH_SIZE = 200;
+
+    private static final double AMOUNT_TOLERANCE = 0.15; // ±15% of the expected amount
+    private static final double MIN_AMOUNT_TOLERANCE = 5; // ₹, for small amounts
+    private static final double SMOOTHING = 0.5; // Weight of the latest amount
+    private static final int MIN_INTERVAL_DAYS = 5; // Closer repeats are separate purchases
+    private static final int MIN_INTERVALS = 2; // i.e. three occurrences
+    private static final double MAX_DEVIATION_RATIO = 0.12; // Interval stddev / mean
+    private static final double MIN_DEVIATION_DAYS = 2; // Calendar months vary by up to 3 days
+
+    // Known cycles: period, lowest and highest mean interval (days), calendar months (0 = use days)
+    private static final int[][] PERIODS = {
+            {7, 6, 8, 0},
+            {14, 13, 15, 0},
+            {30, 26, 35, 1},
+            {91, 84, 98, 3},
+            {182, 172, 192, 6},
+            {365, 350, 380, 12}
+    };
+
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static volatile RecurringDetector INSTANCE;
+
+    private final Context appContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean scanQueued = new AtomicBoolean();
+
+    private RecurringDetector(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static RecurringDetector getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (RecurringDetector.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new RecurringDetector(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Process new transactions in the background. Requests made while a scan
+     * is queued are coalesced into it.
+     */
+    public void requestScan() {
+        if (scanQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                scanQueued.set(false);
+                scan();
+            });
+        }
+    }
+
+    /**
+     * Drop all series and process the whole history again
+     */
+    public void rebuild() {
+        executor.execute(() -> {
+            RupexDatabase db = RupexDatabase.getInstance(appContext);
+            db.runInTransaction(() -> {
+                db.recurringSeriesDao().deleteAll();
+                db.watermarkDao().reset(WATERMARK);
+            });
+            scan();
+        });
+    }
+
+    private void scan() {
+        scan(RupexDatabase.getInstance(appContext));
+    }
+
+    /**
+     * Fold the rows above the watermark into their series (on the calling thread)
+     */
+    static void scan(RupexDatabase db) {
+        try {
+            int processed;
+            do {
+                processed = db.runInTransaction(() -> {
+                    long watermark = db.watermarkDao().get(WATERMARK);
+                    List<PendingTransaction> rows = db.pendingTransactionDao().getAfterId(watermark, BATCH_SIZE);
+                    if (rows.isEmpty()) return 0;
+                    for (PendingTransaction txn : rows) {
+                        process(db, txn);
+                    }
+                    long last = rows.get(rows.size() - 1).getId();
+                    db.watermarkDao().set(new Watermark(WATERMARK, last));
+                    return rows.size();
+                });
+                AppLog.d(TAG, "Processed {} transactions", (long) processed);
+            } while (processed == BATCH_SIZE);
+        } catch (Exception e) {
+            Log.e(TAG, "Error detecting recurring payments", e);
+        }
+    }
+
+    // ============================================
+    // SERIES UPDATE
+    // ============================================
+
+    private static void process(RupexDatabase db, PendingTransaction txn) {
+        String key = txn.getMerchantKey();
+        if (key == null || key.isEmpty() || txn.getType() == null || txn.getAmount() <= 0) return;
+
+        RecurringSeries series = findSeries(db, txn);
+        if (series == null) {
+            seed(db, txn);
+            return;
+        }
+
+        if (txn.getTransactionAt() < series.getLastSeenAt()) {
+            // Arrived after a newer occurrence: the running statistics can't take it out of order
+            replay(db, series, txn);
+            db.recurringSeriesDao().update(series);
+            return;
+        }
+        if (fold(series, txn)) {
+            db.recurringSeriesDao().update(series);
+        }
+    }
+
+    /**
+     * Add an occurrence after the series' latest one
+     *
+     * @return false if it is too close to the latest to count as a new cycle
+     */
+    private static boolean fold(RecurringSeries series, PendingTransaction txn) {
+        long gapMs = txn.getTransactionAt() - series.getLastSeenAt();
+        if (gapMs < MIN_INTERVAL_DAYS * DAY_MS) {
+            return false; // A second purchase within the same cycle
+        }
+        double interval = gapMs / (double) DAY_MS;
+
+        if (series.isConfirmed()) {
+            long cycles = Math.round(interval / series.getPeriodDays());
+            if (cycles > 1 && Math.abs(interval - cycles * series.getPeriodDays()) <= series.getPeriodDays() * 0.25) {
+                interval /= cycles; // Missed occurrences in between, keep the cadence
+            }
+        }
+
+        addInterval(series, interval);
+        if (!series.isConfirmed() && series.getOccurrences() > MIN_INTERVALS + 1 && deviation(series) > maxDeviation(series)) {
+            // Irregular (e.g. frequent food orders): restart from the latest interval
+            series.setOccurrences(2);
+            series.setIntervalMean(interval);
+            series.setIntervalM2(0);
+        }
+
+        series.setAmount(SMOOTHING * txn.getAmount() + (1 - SMOOTHING) * series.getAmount());
+        series.setMerchant(txn.getMerchant());
+        if (txn.getMerchantId() != null) series.setMerchantId(txn.getMerchantId());
+        series.setLastTransactionId(txn.getId());
+        series.setLastSeenAt(txn.getTransactionAt());
+        classify(series);
+        return true;
+    }
+
+    /**
+     * Recompute a series from its occurrences up to {@code txn}, oldest first.
+     * Rows after it are still above the watermark and get folded as usual.
+     */
+    private static void replay(RupexDatabase db, RecurringSeries series, PendingTransaction txn) {
+        double amount = series.getAmount();
+        double tolerance = tolerance(amount);
+        List<PendingTransaction> rows = series.getMerchantId() != null
+                ? db.pendingTransactionDao().getSeriesByMerchantId(series.getMerchantId(), series.getType(),
+                        amount - tolerance, amount + tolerance, txn.getId())
+                : db.pendingTransactionDao().getSeriesByMerchantKey(series.getMerchantKey(), series.getType(),
+                        amount - tolerance, amount + tolerance, txn.getId());
+        if (rows.isEmpty()) return;
+
+        PendingTransaction first = rows.get(0);
+        series.setAmount(first.getAmount());
+        series.setOccurrences(1);
+        series.setIntervalMean(0);
+        series.setIntervalM2(0);
+        series.setPeriodDays(0);
+        series.setNextExpectedAt(0);
+        series.setLastTransactionId(first.getId());
+        series.setLastSeenAt(first.getTransactionAt());
+        for (int i = 1; i < rows.size(); i++) {
+            fold(series, rows.get(i));
+        }
+        AppLog.d(TAG, "Replayed series for {} after an out-of-order occurrence", series.getMerchantKey());
+    }
+
+    /**
+     * Series of the transaction's merchant and type whose amount is within tolerance (closest wins)
+     */
+    private static RecurringSeries findSeries(RupexDatabase db, PendingTransaction txn) {
+        List<RecurringSeries> candidates = txn.getMerchantId() != null
+                ? db.recurringSeriesDao().getByMerchantId(txn.getMerchantId(), txn.getType())
+                : db.recurringSeriesDao().getByMerchantKey(txn.getMerchantKey(), txn.getType());
+
+        RecurringSeries best = null;
+        double bestDiff = Double.MAX_VALUE;
+        for (RecurringSeries series : candidates) {
+            double diff = Math.abs(series.getAmount() - txn.getAmount());
+            if (diff <= tolerance(series.getAmount()) && diff < bestDiff) {
+                best = series;
+                bestDiff = diff;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Start a candidate series if an earlier payment to the same merchant at a similar amount exists
+     */
+    private static void seed(RupexDatabase db, PendingTransaction txn) {
+        double amount = txn.getAmount();
+        double tolerance = tolerance(amount);
+        long before = txn.getTransactionAt() - MIN_INTERVAL_DAYS * DAY_MS;
+        PendingTransaction previous = txn.getMerchantId() != null
+                ? db.pendingTransactionDao().findPreviousByMerchantId(txn.getMerchantId(), txn.getType(),
+                        amount - tolerance, amount + tolerance, before)
+                : db.pendingTransactionDao().findPreviousByMerchantKey(txn.getMerchantKey(), txn.getType(),
+                        amount - tolerance, amount + tolerance, before);
+        if (previous == null) return;
+
+        RecurringSeries series = new RecurringSeries();
+        series.setMerchantId(txn.getMerchantId());
+        series.setMerchantKey(txn.getMerchantKey());
+        series.setMerchant(txn.getMerchant());
+        series.setType(txn.getType());
+        series.setAmount((amount + previous.getAmount()) / 2);
+        series.setOccurrences(2);
+        series.setIntervalMean((txn.getTransactionAt() - previous.getTransactionAt()) / (double) DAY_MS);
+        series.setLastTransactionId(txn.getId());
+        series.setLastSeenAt(txn.getTransactionAt());
+        db.recurringSeriesDao().insert(series);
+        AppLog.d(TAG, "New candidate series for {}", txn.getMerchantKey());
+    }
+
+    private static double tolerance(double amount) {
+        return Math.max(MIN_AMOUNT_TOLERANCE, amount * AMOUNT_TOLERANCE);
+    }
+
+    // ============================================
+    // INTERVAL STATISTICS
+    // ============================================
+
+    private static void addInterval(RecurringSeries series, double interval) {
+        int intervals = series.getOccurrences(); // after adding this one
+        double delta = interval - series.getIntervalMean();
+        double mean = series.getIntervalMean() + delta / intervals;
+        series.setIntervalMean(mean);
+        series.setIntervalM2(series.getIntervalM2() + delta * (interval - mean));
+        series.setOccurrences(series.getOccurrences() + 1);
+    }
+
+    private static double deviation(RecurringSeries series) {
+        int intervals = series.getOccurrences() - 1;
+        return intervals > 1 ? Math.sqrt(series.getIntervalM2() / (intervals - 1)) : 0;
+    }
+
+    private static double maxDeviation(RecurringSeries series) {
+        return Math.max(MIN_DEVIATION_DAYS, series.getIntervalMean() * MAX_DEVIATION_RATIO);
+    }
+
+    /**
+     * Assign a known period if the intervals are regular and set the next expected date
+     */
+    private static void classify(RecurringSeries series) {
+        int[] period = null;
+        if (series.getOccurrences() - 1 >= MIN_INTERVALS && deviation(series) <= maxDeviation(series)) {
+            double mean = series.getIntervalMean();
+            for (int[] candidate : PERIODS) {
+                if (mean >= candidate[1] && mean <= candidate[2]) {
+                    period = candidate;
+                    break;
+                }
+            }
+        }
+
+        if (period == null) {
+            series.setPeriodDays(0);
+            series.setNextExpectedAt(0);
+            return;
+        }
+
+        series.setPeriodDays(period[0]);
+        Calendar next = Calendar.getInstance();
+        next.setTimeInMillis(series.getLastSeenAt());
+        if (period[3] > 0) {
+            next.add(Calendar.MONTH, period[3]); // Same day of month (clamped)
+        } else {
+            next.add(Calendar.DAY_OF_YEAR, period[0]);
+        }
+        series.setNextExpectedAt(next.getTimeInMillis());
+    }
+}
@@ -0,0 +1,141 @@
+package com.rupex.app.merchant;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.entity.CategoryRule;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.sms.parser.CategoryDetector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remembers the category the user picked for a merchant.
+ *
+ * Rules are keyed by canonical merchant key and persisted in category_rules.
+ * All of them are loaded into memory at startup, so {@link #categorize} on the
+ * capture path is a map lookup with no database access, and no correction is
+ * forgotten however old. The map holds one short entry per merchant the user has
+ * categorized, so it stays small (a few thousand entries at most in practice).
+ * Merchants without a learned rule go to the {@link NaiveBayesCategorizer}
+ * trained on the same choices, then to {@link CategoryDetector}.
+ */
+public class CategoryMemory {
+
+    private static final String TAG = "CategoryMemory";
+
+    private static volatile CategoryMemory INSTANCE;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Map<String, String> rules = new HashMap<>();
+
+    private CategoryMemory() {}
+
+    public static CategoryMemory getInstance() {
+        if (INSTANCE == null) {
+            synchronized (CategoryMemory.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CategoryMemory();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Load learned rules in the background, then apply them to uncategorized rows
+     */
+    public void load(Context context) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                NaiveBayesCategorizer.getInstance().open(appContext);
+                RupexDatabase db = RupexDatabase.getInstance(appContext);
+                List<CategoryRule> all = db.categoryRuleDao().getAll();
+                synchronized (this) {
+                    // A rule learned while loading is newer than the stored one
+                    for (CategoryRule rule : all) {
+                        rules.putIfAbsent(rule.getMerchantKey(), rule.getCategory());
+                    }
+                }
+                db.runInTransaction(() -> {
+                    for (CategoryRule rule : all) {
+                        applyToUncategorized(db, rule.getMerchantKey(), rule.getCategory());
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading category rules", e);
+            }
+        });
+    }
+
+    /**
+     * Learned category for a canonical merchant key, or null
+     */
+    public synchronized String lookup(String merchantKey) {
+        return merchantKey == null || merchantKey.isEmpty() ? null : rules.get(merchantKey);
+    }
+
+    /**
+     * Category for a newly captured transaction: the user's choice for this merchant if known,
+     * else the learned model if it is confident, else keyword detection
+     */
+    public String categorize(String merchant, String bankName, double amount, long timestamp, boolean income) {
+        String learned = lookup(MerchantMatcher.canonicalKey(merchant));
+        if (learned != null) return learned;
+
+        String predicted = NaiveBayesCategorizer.getInstance()
+                .predict(merchant, bankName, amount, timestamp, income);
+        return predicted != null ? predicted : CategoryDetector.detectCategory(merchant);
+    }
+
+    /**
+     * Train the model on a category the user chose (without creating a merchant rule).
+     * Each call is one more labeled example, so call it once per actual choice.
+     */
+    public void observe(PendingTransaction txn, String category) {
+        NaiveBayesCategorizer.getInstance().train(txn.getMerchant(), txn.getBankName(), txn.getAmount(),
+                txn.getTransactionAt(), "income".equals(txn.getType()), category);
+    }
+
+    /**
+     * Remember a user's category choice for the transaction's merchant and apply it to
+     * the merchant's uncategorized rows. Call off the main thread, and only for a
+     * category the user actually picked; pair it with {@link #observe} to train the model.
+     */
+    public void learn(RupexDatabase db, PendingTransaction txn, String category) {
+        if (category == null || category.isEmpty()) return;
+
+        String merchantKey = txn.getMerchantKey();
+        Long merchantId = txn.getMerchantId();
+        if (merchantKey == null || merchantKey.isEmpty()) return;
+
+        synchronized (this) {
+            rules.put(merchantKey, category);
+        }
+        db.runInTransaction(() -> {
+            db.categoryRuleDao().upsert(new CategoryRule(merchantKey, category, System.currentTimeMillis()));
+            if (merchantId != null) {
+                db.merchantDao().updateCategoryHint(merchantId, category);
+            }
+            applyToUncategorized(db, merchantKey, category);
+        });
+    }
+
+    public synchronized void clear() {
+        rules.clear();
+    }
+
+    private static void applyToUncategorized(RupexDatabase db, String merchantKey, String category) {
+        int updated = db.pendingTransactionDao().applyCategoryToUncategorized(merchantKey, category,
+                CategoryDetector.getCategoryIcon(category), CategoryDetector.getCategoryColor(category));
+        if (updated > 0) {
+            Log.d(TAG, "Categorized " + updated + " existing transactions as " + category);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.rupex.app.merchant;
+
+import com.rupex.app.data.local.entity.PendingTransaction;
+
+import java.util.Arrays;
+
+/**
+ * Shared merchant similarity engine used when deduplicating captures
+ * (SMS vs notification vs server).
+ *
+ * Each merchant string is reduced once, at ingestion, to a {@link Signature}:
+ *  - a canonical key: upper-case alphanumeric tokens, VPA domain, titles and
+ *    payment-rail noise ("UPI", "DR", reference numbers...) removed
+ *  - a 64-bit b-bit MinHash sketch (8 × 8-bit minimums) of the key's character 3-grams
+ * Both are stored on the row, so comparisons never re-normalize.
+ *
+ * Two signatures match when their sketches are identical, or when the score
+ * reaches the threshold ({@link #setThreshold(double)}). If one name's tokens all
+ * appear in the other ("RAHUL" in "RAHUL VERMA"), the score is the share of the
+ * longer name they cover, so a shared first name alone doesn't match. Otherwise it
+ * is the better of Jaro-Winkler (on the key without spaces) and the sketch's
+ * Jaccard estimate.
+ */
+public final class MerchantMatcher {
+
+    public static final double DEFAULT_THRESHOLD = 0.88;
+
+    private static final int SKETCH_HASHES = 8;
+    private static final int[] SEEDS = {
+            0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F,
+            0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09
+    };
+
+    // Dropped anywhere in the name: titles and payment-rail words
+    private static final String[] NOISE_TOKENS = {
+            "MR", "MRS", "MS", "DR", "CR", "UPI", "IMPS", "NEFT", "RTGS", "PAYMENT", "TO"
+    };
+
+    private static volatile double threshold = DEFAULT_THRESHOLD;
+
+    private MerchantMatcher() {}
+
+    /**
+     * Canonical key and sketch of one merchant string
+     */
+    public static final class Signature {
+        public final String key;
+        public final long sketch;
+
+        public Signature(String key, long sketch) {
+            this.key = key != null ? key : "";
+            this.sketch = sketch;
+        }
+
+        public boolean isEmpty() {
+            return key.isEmpty();
+        }
+    }
+
+    private static final Signature EMPTY = new Signature("", 0);
+
+    /**
+     * Minimum score (0..1) for two merchants to be considered the same
+     */
+    public static void setThreshold(double value) {
+        threshold = value;
+    }
+
+    public static double getThreshold() {
+        return threshold;
+    }
+
+    public static Signature signature(String merchant) {
+        String key = canonicalKey(merchant);
+        return key.isEmpty() ? EMPTY : new Signature(key, sketch(key));
+    }
+
+    /**
+     * Signature stored on the row (computed on the fly for rows that predate it)
+     */
+    public static Signature of(PendingTransaction txn) {
+        if (txn.getMerchantKey() != null && txn.getMerchantSketch() != null) {
+            return new Signature(txn.getMerchantKey(), txn.getMerchantSketch());
+        }
+        return signature(txn.getMerchant());
+    }
+
+    /**
+     * Store the canonical key and sketch of the row's merchant on the row
+     */
+    public static void stamp(PendingTransaction txn) {
+        Signature signature = signature(txn.getMerchant());
+        txn.setMerchantKey(signature.isEmpty() ? null : signature.key);
+        txn.setMerchantSketch(signature.isEmpty() ? null : signature.sketch);
+    }
+
+    public static boolean isSimilar(String merchant1, String merchant2) {
+        return isSimilar(signature(merchant1), signature(merchant2));
+    }
+
+    public static boolean isSimilar(Signature a, Signature b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return false; // Nothing left to compare - treat as different
+        }
+        if (a.sketch == b.sketch && a.key.equals(b.key)) {
+            return true;
+        }
+        return similarity(a, b) >= threshold;
+    }
+
+    /**
+     * Similarity score in 0..1
+     */
+    public static double similarity(Signature a, Signature b) {
+        if (a.isEmpty() || b.isEmpty()) return 0;
+        if (a.key.equals(b.key)) return 1;
+
+        // Both of these reward a shared prefix, so they don't apply to a contained name
+        double contained = containment(a.key, b.key);
+        if (contained >= 0) return contained;
+        return Math.max(jaroWinklerCompact(a.key, b.key), sketchSimilarity(a.sketch, b.sketch));
+    }
+
+    // ============================================
+    // CANONICAL KEY
+    // ============================================
+
+    /**
+     * Upper-case alphanumeric tokens separated by single spaces, without the
+     * VPA domain, noise tokens or purely numeric tokens. Empty if nothing remains.
+     */
+    public static String canonicalKey(String merchant) {
+        if (merchant == null) return "";
+
+        StringBuilder key = new StringBuilder(merchant.length());
+        int tokenStart = -1;
+        for (int i = 0, n = merchant.length(); i <= n; i++) {
+            char c = i < n ? merchant.charAt(i) : ' ';
+            if (c == '@') {
+                n = i; // VPA: keep only the handle
+                c = ' ';
+            }
+            boolean alnum = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+            if (alnum) {
+                if (tokenStart < 0) {
+                    if (key.length() > 0) key.append(' ');
+                    tokenStart = key.length();
+                }
+                key.append(Character.toUpperCase(c));
+            } else if (tokenStart >= 0) {
+                if (isDroppedToken(key, tokenStart)) {
+                    key.setLength(tokenStart > 0 ? tokenStart - 1 : 0);
+                }
+                tokenStart = -1;
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isDroppedToken(CharSequence key, int start) {
+        int length = key.length() - start;
+        boolean numeric = true;
+        for (int i = start; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                numeric = false;
+                break;
+            }
+        }
+        if (numeric) return true;
+
+        for (String noise : NOISE_TOKENS) {
+            if (noise.length() == length && regionEquals(key, start, noise)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(CharSequence s, int start, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            if (s.charAt(start + i) != other.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // ============================================
+    // SKETCH
+    // ============================================
+
+    /**
+     * b-bit MinHash over character 3-grams of the key (spaces ignored)
+     */
+    static long sketch(String key) {
+        int[] mins = new int[SKETCH_HASHES];
+        Arrays.fill(mins, -1); // 0xFFFFFFFF, max unsigned
+
+        char[] chars = compact(key);
+        int grams = Math.max(1, chars.length - 2);
+        for (int g = 0; g < grams; g++) {
+            int h = 0;
+            for (int i = g; i < Math.min(g + 3, chars.length); i++) {
+                h = 31 * h + chars[i];
+            }
+            for (int k = 0; k < SKETCH_HASHES; k++) {
+                int mixed = mix(h ^ SEEDS[k]);
+                if (Integer.compareUnsigned(mixed, mins[k]) < 0) {
+                    mins[k] = mixed;
+                }
+            }
+        }
+
+        long sketch = 0;
+        for (int k = 0; k < SKETCH_HASHES; k++) {
+            sketch |= (long) (mins[k] & 0xFF) << (8 * k);
+        }
+        return sketch;
+    }
+
+    /**
+     * Jaccard estimate from two sketches (corrected for 8-bit collisions)
+     */
+    static double sketchSimilarity(long a, long b) {
+        long diff = a ^ b;
+        int equal = 0;
+        for (int k = 0; k < SKETCH_HASHES; k++) {
+            if (((diff >>> (8 * k)) & 0xFF) == 0) equal++;
+        }
+        double fraction = equal / (double) SKETCH_HASHES;
+        double collision = 1.0 / 256;
+        return Math.max(0, (fraction - collision) / (1 - collision));
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // ============================================
+    // STRING SIMILARITY
+    // ============================================
+
+    /**
+     * Jaro-Winkler on the keys with spaces removed, so "PSGOVINDAS" matches "P S GOVINDAS"
+     */
+    static double jaroWinklerCompact(String key1, String key2) {
+        char[] s1 = compact(key1);
+        char[] s2 = compact(key2);
+        if (s1.length == 0 || s2.length == 0) return 0;
+
+        int window = Math.max(0, Math.max(s1.length, s2.length) / 2 - 1);
+        boolean[] matched1 = new boolean[s1.length];
+        boolean[] matched2 = new boolean[s2.length];
+
+        int matches = 0;
+        for (int i = 0; i < s1.length; i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(s2.length - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matched2[j] && s1[i] == s2[j]) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) return 0;
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < s1.length; i++) {
+            if (!matched1[i]) continue;
+            while (!matched2[j]) j++;
+            if (s1[i] != s2[j]) transpositions++;
+            j++;
+        }
+
+        double m = matches;
+        double jaro = (m / s1.length + m / s2.length + (m - transpositions / 2.0) / m) / 3;
+
+        int prefix = 0;
+        while (prefix < 4 && prefix < s1.length && prefix < s2.length && s1[prefix] == s2[prefix]) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    /**
+     * If every token of the shorter name is in the longer one (the same token, or an
+     * initial of one) and they share a token of 3+ chars: the share of the longer
+     * name's letters covered the same way. "KISHORE S" covers all of "KISHORE SENTHIL",
+     * "RAHUL" half of "RAHUL VERMA", "PRIYA" 5/6 of "PRIYA S". Otherwise -1.
+     */
+    static double containment(String key1, String key2) {
+        String shorter = key1.length() <= key2.length() ? key1 : key2;
+        String longer = shorter == key1 ? key2 : key1;
+
+        boolean shared = false;
+        int start = 0;
+        while (start < shorter.length()) {
+            int end = shorter.indexOf(' ', start);
+            if (end < 0) end = shorter.length();
+            int length = end - start;
+            if (containsToken(longer, shorter, start, length)) {
+                shared |= length >= 3;
+            } else if (length != 1 || !hasTokenStartingWith(longer, shorter.charAt(start))) {
+                return -1;
+            }
+            start = end + 1;
+        }
+        if (!shared) return -1;
+
+        int letters = 0;
+        int covered = 0;
+        start = 0;
+        while (start < longer.length()) {
+            int end = longer.indexOf(' ', start);
+            if (end < 0) end = longer.length();
+            int length = end - start;
+            letters += length;
+            if (containsToken(shorter, longer, start, length) || containsToken(shorter, longer, start, 1)) {
+                covered += length;
+            }
+            start = end + 1;
+        }
+        return covered / (double) letters;
+    }
+
+    private static boolean hasTokenStartingWith(String text, char initial) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == initial && (i == 0 || text.charAt(i - 1) == ' ')) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsToken(String text, String source, int sourceStart, int length) {
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) end = text.length();
+            if (end - start == length && text.regionMatches(start, source, sourceStart, length)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static char[] compact(String key) {
+        int length = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != ' ') length++;
+        }
+        char[] chars = new char[length];
+        for (int i = 0, j = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c != ' ') chars[j++] = c;
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,116 @@
+package com.rupex.app.merchant;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.entity.Merchant;
+import com.rupex.app.data.local.entity.MerchantAlias;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.sms.parser.CategoryDetector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves raw merchant names to canonical merchant ids.
+ *
+ * A raw name is reduced to its {@link MerchantMatcher#canonicalKey canonical key}
+ * and looked up in the alias table; unknown names get a new merchant. Aliases
+ * are learned when two captures of the same transaction carry different names.
+ * Resolved aliases are kept in an in-memory LRU, so repeat payees cost no query.
+ */
+public class MerchantResolver {
+
+    private static final int CACHE_SIZE = 256;
+
+    private static volatile MerchantResolver INSTANCE;
+
+    private final Map<String, Long> aliasCache = new LinkedHashMap<String, Long>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private MerchantResolver() {}
+
+    public static MerchantResolver getInstance() {
+        if (INSTANCE == null) {
+            synchronized (MerchantResolver.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new MerchantResolver();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Merchant id for a raw name, creating the merchant on first sight.
+     *
+     * @param categoryHint category detected for this capture, stored on new merchants
+     * @return null if nothing is left of the name after canonicalization
+     */
+    public Long resolve(RupexDatabase db, String rawMerchant, String source, String categoryHint) {
+        String key = MerchantMatcher.canonicalKey(rawMerchant);
+        if (key.isEmpty()) return null;
+
+        Long cached = getCached(key);
+        if (cached != null) return cached;
+
+        Long merchantId = db.merchantDao().findMerchantIdByAlias(key);
+        if (merchantId == null) {
+            merchantId = findOrCreateMerchant(db, key, rawMerchant.trim(), categoryHint);
+            db.merchantDao().insertAlias(new MerchantAlias(key, merchantId, source));
+        }
+        putCached(key, merchantId);
+        return merchantId;
+    }
+
+    /**
+     * Record {@code rawMerchant} as another name of the existing row's merchant,
+     * unless the name already belongs to a merchant
+     */
+    public void linkAlias(RupexDatabase db, PendingTransaction existing, String rawMerchant, String source) {
+        Long merchantId = existing.getMerchantId();
+        String key = MerchantMatcher.canonicalKey(rawMerchant);
+        if (merchantId == null || key.isEmpty() || getCached(key) != null) return;
+
+        if (db.merchantDao().findMerchantIdByAlias(key) == null) {
+            db.merchantDao().insertAlias(new MerchantAlias(key, merchantId, source));
+            putCached(key, merchantId);
+        }
+    }
+
+    /**
+     * Forget cached aliases (after the tables are cleared)
+     */
+    public synchronized void clearCache() {
+        aliasCache.clear();
+    }
+
+    private long findOrCreateMerchant(RupexDatabase db, String key, String displayName, String categoryHint) {
+        Merchant existing = db.merchantDao().getByCanonicalKey(key);
+        if (existing != null) return existing.getId();
+
+        Merchant merchant = new Merchant();
+        merchant.setDisplayName(displayName);
+        merchant.setCanonicalKey(key);
+        if (categoryHint != null && !CategoryDetector.OTHER.equals(categoryHint)) {
+            merchant.setCategoryHint(categoryHint);
+        }
+        merchant.setCreatedAt(System.currentTimeMillis());
+        long id = db.merchantDao().insert(merchant);
+        if (id == -1) {
+            // Created concurrently by another writer
+            return db.merchantDao().getByCanonicalKey(key).getId();
+        }
+        return id;
+    }
+
+    private synchronized Long getCached(String key) {
+        return aliasCache.get(key);
+    }
+
+    private synchronized void putCached(String key, Long merchantId) {
+        aliasCache.put(key, merchantId);
+    }
+}
@@ -0,0 +1,247 @@
+package com.rupex.app.merchant;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.rupex.app.sms.parser.CategoryDetector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.TimeZone;
+
+/**
+ * On-device multinomial naive Bayes over hashed features, trained incrementally
+ * from the user's own category choices.
+ *
+ * Features: merchant tokens, VPA provider, bank, amount bucket (power of two),
+ * hour of day and debit/credit, each hashed into {@link #FEATURES} buckets.
+ *
+ * Counts live in a memory-mapped int file:
+ *   header[4] | docCounts[classes] | featureTotals[classes] | counts[classes × FEATURES]
+ * so training is O(features) writes into the map and nothing is parsed at startup.
+ * Inference reads the map with preallocated scratch arrays and allocates nothing.
+ */
+public class NaiveBayesCategorizer {
+
+    private static final String TAG = "NaiveBayesCategorizer";
+    private static final String FILE_NAME = "category_nb.bin";
+
+    private static final int MAGIC = 0x52584E42; // "RXNB"
+    private static final int VERSION = 1;
+
+    static final int FEATURES = 4096; // power of two
+    private static final int MAX_FEATURES = 32;
+    private static final int HEADER_INTS = 4;
+
+    private static final String[] CATEGORIES = {
+            CategoryDetector.FOOD_DINING, CategoryDetector.GROCERIES, CategoryDetector.TRANSPORT,
+            CategoryDetector.SHOPPING, CategoryDetector.ENTERTAINMENT, CategoryDetector.BILLS_UTILITIES,
+            CategoryDetector.HEALTH, CategoryDetector.PERSONAL_CARE, CategoryDetector.EDUCATION,
+            CategoryDetector.TRAVEL, CategoryDetector.TRANSFERS, CategoryDetector.OTHER
+    };
+    private static final int CLASSES = CATEGORIES.length;
+
+    private static final int DOC_COUNTS = HEADER_INTS;
+    private static final int FEATURE_TOTALS = DOC_COUNTS + CLASSES;
+    private static final int COUNTS = FEATURE_TOTALS + CLASSES;
+    private static final int TOTAL_INTS = COUNTS + CLASSES * FEATURES;
+
+    // Below these the model isn't trusted and CategoryDetector decides
+    private static final int MIN_TRAINING_DOCS = 20;
+    private static final double MIN_CONFIDENCE = 0.6;
+    private static final double ALPHA = 1.0; // Laplace smoothing
+
+    // Feature namespaces
+    private static final int NS_TOKEN = 1;
+    private static final int NS_VPA_PROVIDER = 2;
+    private static final int NS_BANK = 3;
+    private static final int NS_AMOUNT = 4;
+    private static final int NS_HOUR = 5;
+    private static final int NS_TYPE = 6;
+
+    private static volatile NaiveBayesCategorizer INSTANCE;
+
+    private MappedByteBuffer mapped;
+    private IntBuffer weights; // null until opened
+    private TimeZone timeZone;
+    private int totalDocs;
+
+    private final int[] features = new int[MAX_FEATURES];
+    private final double[] scores = new double[CLASSES];
+
+    private NaiveBayesCategorizer() {}
+
+    public static NaiveBayesCategorizer getInstance() {
+        if (INSTANCE == null) {
+            synchronized (NaiveBayesCategorizer.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new NaiveBayesCategorizer();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Map the weight file (created empty on first run). Call off the main thread.
+     */
+    public synchronized void open(Context context) {
+        if (weights != null) return;
+
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        long size = (long) TOTAL_INTS * Integer.BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() != size) {
+                raf.setLength(0);
+                raf.setLength(size);
+            }
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            weights = mapped.asIntBuffer();
+        } catch (IOException e) {
+            Log.e(TAG, "Error mapping category model", e);
+            return;
+        }
+
+        if (weights.get(0) != MAGIC || weights.get(1) != VERSION
+                || weights.get(2) != CLASSES || weights.get(3) != FEATURES) {
+            for (int i = 0; i < TOTAL_INTS; i++) weights.put(i, 0);
+            weights.put(0, MAGIC);
+            weights.put(1, VERSION);
+            weights.put(2, CLASSES);
+            weights.put(3, FEATURES);
+        }
+
+        timeZone = TimeZone.getDefault();
+        totalDocs = 0;
+        for (int c = 0; c < CLASSES; c++) {
+            totalDocs += weights.get(DOC_COUNTS + c);
+        }
+    }
+
+    /**
+     * Most likely category, or null if the model is untrained or not confident
+     */
+    public synchronized String predict(String merchant, String bankName, double amount,
+                                       long timestamp, boolean income) {
+        if (weights == null || totalDocs < MIN_TRAINING_DOCS) return null;
+
+        int count = extractFeatures(merchant, bankName, amount, timestamp, income);
+        double logDocs = Math.log(totalDocs + CLASSES);
+        double best = Double.NEGATIVE_INFINITY;
+        int bestClass = -1;
+        for (int c = 0; c < CLASSES; c++) {
+            double score = Math.log(weights.get(DOC_COUNTS + c) + 1) - logDocs;
+            double logTotal = Math.log(weights.get(FEATURE_TOTALS + c) + ALPHA * FEATURES);
+            int row = COUNTS + c * FEATURES;
+            for (int i = 0; i < count; i++) {
+                score += Math.log(weights.get(row + features[i]) + ALPHA) - logTotal;
+            }
+            scores[c] = score;
+            if (score > best) {
+                best = score;
+                bestClass = c;
+            }
+        }
+
+        double sum = 0;
+        for (int c = 0; c < CLASSES; c++) {
+            sum += Math.exp(scores[c] - best);
+        }
+        double confidence = 1 / sum;
+        return confidence >= MIN_CONFIDENCE ? CATEGORIES[bestClass] : null;
+    }
+
+    /**
+     * Add one labeled transaction: O(features) increments in the mapped file
+     */
+    public synchronized void train(String merchant, String bankName, double amount,
+                                   long timestamp, boolean income, String category) {
+        int c = classIndex(category);
+        if (weights == null || c < 0) return;
+
+        int count = extractFeatures(merchant, bankName, amount, timestamp, income);
+        int row = COUNTS + c * FEATURES;
+        for (int i = 0; i < count; i++) {
+            weights.put(row + features[i], weights.get(row + features[i]) + 1);
+        }
+        weights.put(FEATURE_TOTALS + c, weights.get(FEATURE_TOTALS + c) + count);
+        weights.put(DOC_COUNTS + c, weights.get(DOC_COUNTS + c) + 1);
+        totalDocs++;
+        mapped.force();
+    }
+
+    private static int classIndex(String category) {
+        if (category == null) return -1;
+        for (int c = 0; c < CLASSES; c++) {
+            if (CATEGORIES[c].equals(category)) return c;
+        }
+        return -1;
+    }
+
+    // ============================================
+    // FEATURES (hashed without creating strings)
+    // ============================================
+
+    private int extractFeatures(String merchant, String bankName, double amount, long timestamp, boolean income) {
+        int count = 0;
+
+        if (merchant != null) {
+            int namespace = NS_TOKEN;
+            int h = seed(namespace);
+            int length = 0;
+            for (int i = 0, n = merchant.length(); i <= n && count < MAX_FEATURES - 4; i++) {
+                char c = i < n ? Character.toUpperCase(merchant.charAt(i)) : ' ';
+                boolean alnum = (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+                if (alnum) {
+                    h = (h ^ c) * 0x01000193;
+                    length++;
+                    continue;
+                }
+                if (length >= 2) {
+                    features[count++] = bucket(h);
+                }
+                if (c == '@') {
+                    namespace = NS_VPA_PROVIDER; // rest of a VPA is the provider handle
+                } else if (namespace == NS_VPA_PROVIDER && c == '.') {
+                    break;
+                }
+                h = seed(namespace);
+                length = 0;
+            }
+        }
+
+        if (bankName != null && !bankName.isEmpty()) {
+            int h = seed(NS_BANK);
+            for (int i = 0; i < bankName.length(); i++) {
+                h = (h ^ Character.toUpperCase(bankName.charAt(i))) * 0x01000193;
+            }
+            features[count++] = bucket(h);
+        }
+
+        long rupees = (long) Math.max(0, amount);
+        int amountBucket = 64 - Long.numberOfLeadingZeros(rupees);
+        features[count++] = bucket((seed(NS_AMOUNT) ^ amountBucket) * 0x01000193);
+
+        long local = timestamp + timeZone.getOffset(timestamp);
+        int hour = (int) ((local / 3_600_000L) % 24);
+        features[count++] = bucket((seed(NS_HOUR) ^ hour) * 0x01000193);
+
+        features[count++] = bucket((seed(NS_TYPE) ^ (income ? 1 : 0)) * 0x01000193);
+        return count;
+    }
+
+    private static int seed(int namespace) {
+        return 0x811C9DC5 ^ (namespace * 0x9E3779B9);
+    }
+
+    private static int bucket(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & (FEATURES - 1);
+    }
+}
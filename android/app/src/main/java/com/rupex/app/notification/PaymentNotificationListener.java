@@ -7,17 +7,22 @@ import android.os.Parcelable;
 import android.service.notification.NotificationListenerService;
 import android.service.notification.StatusBarNotification;
 import android.text.TextUtils;
-import android.util.Log;
 import android.widget.RemoteViews;
 
+import com.rupex.app.data.local.CaptureBatcher;
 import com.rupex.app.data.local.RupexDatabase;
 import com.rupex.app.data.local.entity.PendingTransaction;
-import com.rupex.app.util.ActivityLogger;
+import com.rupex.app.merchant.MerchantMatcher;
+import com.rupex.app.merchant.MerchantResolver;
+import com.rupex.app.sms.parser.SmsParser;
+import com.rupex.app.util.AppLog;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Executors;
+import java.util.Set;
 
 /**
  * Listens to payment app notifications (GPay, PhonePe, Paytm, etc.)
@@ -35,12 +40,17 @@ public class PaymentNotificationListener extends NotificationListenerService {
     private static final String BHIM = "in.org.npci.upiapp";
     private static final String CRED = "com.dreamplug.androidapp";
 
+    private static final Set<String> PAYMENT_APPS = new HashSet<>(Arrays.asList(
+            GPAY, PHONEPE, PAYTM, AMAZON_PAY, BHIM, CRED));
+
+    private final RecentNotificationCache recentNotifications = new RecentNotificationCache();
+
     @Override
     public void onNotificationPosted(StatusBarNotification sbn) {
         String packageName = sbn.getPackageName();
         
         // Check if it's from a UPI payment app
-        if (!isPaymentApp(packageName)) {
+        if (!PAYMENT_APPS.contains(packageName)) {
             return;
         }
 
@@ -49,247 +59,307 @@ public class PaymentNotificationListener extends NotificationListenerService {
             return;
         }
 
-        Log.d(TAG, "Payment notification from " + packageName);
-        
-        // Log that notification was captured
-        ActivityLogger.logCaptured(getApplicationContext(), "notification", 
-                "Notification from " + getAppName(packageName), null, null);
-        
-        // Try multiple methods to extract notification text
-        String title = "";
-        String content = "";
-        
-        // Method 1: Standard extras
+        // Group summaries just repeat the child notifications
+        if ((notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0) {
+            return;
+        }
+
+        // Drop identical re-posts before doing any extraction or parsing
+        String notificationKey = sbn.getKey();
+        Bundle rawExtras = notification.extras;
+        int contentHash = rawExtras != null
+                ? RecentNotificationCache.hash(
+                        rawExtras.getCharSequence(Notification.EXTRA_TITLE),
+                        rawExtras.getCharSequence(Notification.EXTRA_TEXT),
+                        rawExtras.getCharSequence(Notification.EXTRA_BIG_TEXT),
+                        notification.tickerText)
+                : RecentNotificationCache.hash(notification.tickerText);
+        if (!recentNotifications.recordPost(notificationKey, contentHash)) {
+            AppLog.d(TAG, "Identical re-post of {}, skipping", notificationKey);
+            return;
+        }
+
         Bundle extras = notification.extras;
-        if (extras != null) {
-            title = getStringFromBundle(extras, Notification.EXTRA_TITLE);
-            content = getStringFromBundle(extras, Notification.EXTRA_BIG_TEXT);
-            if (TextUtils.isEmpty(content)) {
-                content = getStringFromBundle(extras, Notification.EXTRA_TEXT);
-            }
-            if (TextUtils.isEmpty(content)) {
-                content = getStringFromBundle(extras, Notification.EXTRA_INFO_TEXT);
-            }
-            if (TextUtils.isEmpty(content)) {
-                content = getStringFromBundle(extras, Notification.EXTRA_SUB_TEXT);
-            }
-            
-            // Try text lines for inbox style
-            CharSequence[] textLines = extras.getCharSequenceArray(Notification.EXTRA_TEXT_LINES);
-            if (textLines != null && textLines.length > 0) {
-                StringBuilder sb = new StringBuilder();
-                for (CharSequence line : textLines) {
-                    sb.append(line).append(" ");
-                }
-                if (TextUtils.isEmpty(content)) {
-                    content = sb.toString().trim();
-                }
-            }
-            
-            // Log all extras for debugging
-            Log.d(TAG, "=== Notification Extras ===");
-            for (String key : extras.keySet()) {
-                Object value = extras.get(key);
-                if (value instanceof CharSequence || value instanceof String) {
-                    Log.d(TAG, key + " = " + value);
-                }
+        CharSequence title = extras != null ? extras.getCharSequence(Notification.EXTRA_TITLE) : null;
+        CharSequence text = extras != null ? extras.getCharSequence(Notification.EXTRA_TEXT) : null;
+        CharSequence bigText = extras != null ? extras.getCharSequence(Notification.EXTRA_BIG_TEXT) : null;
+        CharSequence[] textLines = extras != null ? extras.getCharSequenceArray(Notification.EXTRA_TEXT_LINES) : null;
+        CharSequence subText = extras != null ? extras.getCharSequence(Notification.EXTRA_SUB_TEXT) : null;
+        CharSequence infoText = extras != null ? extras.getCharSequence(Notification.EXTRA_INFO_TEXT) : null;
+
+        // Cheap early exit: without an amount marker, or a number next to a payment word,
+        // none of the parser's patterns can match. Promotions (the majority) stop here
+        // without building any strings.
+        int hints = UpiNotificationParser.scanHints(title) | UpiNotificationParser.scanHints(text)
+                | UpiNotificationParser.scanHints(bigText) | UpiNotificationParser.scanHints(subText)
+                | UpiNotificationParser.scanHints(infoText)
+                | UpiNotificationParser.scanHints(notification.tickerText);
+        if (textLines != null) {
+            for (CharSequence line : textLines) {
+                hints |= UpiNotificationParser.scanHints(line);
             }
         }
-        
-        // Method 2: Try tickerText
-        if (TextUtils.isEmpty(content) && notification.tickerText != null) {
-            content = notification.tickerText.toString();
-            Log.d(TAG, "Using tickerText: " + content);
+        if (!UpiNotificationParser.mayContainTransaction(hints)) {
+            return;
         }
-        
-        Log.d(TAG, "Title: " + title);
-        Log.d(TAG, "Content: " + content);
 
-        // Parse the notification
-        UpiNotificationParser.ParsedNotification parsed = 
-                UpiNotificationParser.parse(packageName, title, content);
+        if (AppLog.isDebugEnabled()) {
+            dumpExtras(packageName, extras);
+        }
 
-        if (parsed != null && parsed.amount > 0) {
-            saveTransaction(parsed, packageName);
+        // Extract lazily in priority order and stop as soon as one source parses
+        String titleStr = title != null ? title.toString() : "";
+        UpiNotificationParser.ParsedNotification parsed = null;
+        if (!TextUtils.isEmpty(bigText)) {
+            parsed = tryParse(packageName, titleStr, bigText.toString());
+        }
+        if (parsed == null && !TextUtils.isEmpty(text) && !TextUtils.equals(text, bigText)) {
+            parsed = tryParse(packageName, titleStr, text.toString());
+        }
+        if (parsed == null && textLines != null && textLines.length > 0) {
+            parsed = tryParse(packageName, titleStr, TextUtils.join(" ", textLines));
+        }
+        if (parsed == null) {
+            CharSequence extra = !TextUtils.isEmpty(infoText) ? infoText : subText;
+            if (!TextUtils.isEmpty(extra)) {
+                parsed = tryParse(packageName, titleStr, extra.toString());
+            }
+        }
+        if (parsed == null && !TextUtils.isEmpty(notification.tickerText)) {
+            parsed = tryParse(packageName, titleStr, notification.tickerText.toString());
+        }
+
+        if (parsed != null) {
+            // Apps often put the UTR only in the expanded view
+            if (parsed.referenceId == null) {
+                parsed.referenceId = findUpiReference(bigText, textLines,
+                        extras != null ? extras.getCharSequence(Notification.EXTRA_SUMMARY_TEXT) : null,
+                        subText);
+            }
+            saveTransaction(parsed, packageName, notificationKey);
         } else {
-            Log.d(TAG, "Could not parse transaction from notification");
-            ActivityLogger.logRejected(getApplicationContext(), "notification",
-                    "Could not parse notification: " + (title + " " + content).substring(0, Math.min(50, (title + " " + content).length())),
-                    "Parse failed", null, null);
+            AppLog.d(TAG, "No transaction in notification from {}", packageName);
         }
     }
-    
-    private String getStringFromBundle(Bundle bundle, String key) {
-        CharSequence cs = bundle.getCharSequence(key);
-        return cs != null ? cs.toString() : "";
+
+    private UpiNotificationParser.ParsedNotification tryParse(String packageName, String title, String content) {
+        UpiNotificationParser.ParsedNotification parsed = UpiNotificationParser.parse(packageName, title, content);
+        return parsed != null && parsed.amount > 0 ? parsed : null;
     }
 
-    private boolean isPaymentApp(String packageName) {
-        return GPAY.equals(packageName)
-                || PHONEPE.equals(packageName)
-                || PAYTM.equals(packageName)
-                || AMAZON_PAY.equals(packageName)
-                || BHIM.equals(packageName)
-                || CRED.equals(packageName);
+    private static String findUpiReference(CharSequence bigText, CharSequence[] textLines,
+                                           CharSequence summaryText, CharSequence subText) {
+        String ref = SmsParser.extractUpiReference(bigText);
+        if (ref == null && textLines != null) {
+            for (CharSequence line : textLines) {
+                ref = SmsParser.extractUpiReference(line);
+                if (ref != null) break;
+            }
+        }
+        if (ref == null) ref = SmsParser.extractUpiReference(summaryText);
+        if (ref == null) ref = SmsParser.extractUpiReference(subText);
+        return ref;
     }
 
-    private void saveTransaction(UpiNotificationParser.ParsedNotification parsed, String packageName) {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                RupexDatabase db = RupexDatabase.getInstance(getApplicationContext());
+    /**
+     * Debug-only dump of notification text extras (compiled out of release builds via AppLog)
+     */
+    private void dumpExtras(String packageName, Bundle extras) {
+        AppLog.d(TAG, "=== Notification Extras ({}) ===", packageName);
+        if (extras == null) return;
+        for (String key : extras.keySet()) {
+            Object value = extras.get(key);
+            if (value instanceof CharSequence) {
+                AppLog.d(TAG, "{} = {}", key, value);
+            }
+        }
+    }
 
-                long now = System.currentTimeMillis();
-                long timeWindow = 900000; // 15 minutes for robustness
-                long startTime = now - timeWindow;
-                long endTime = now + timeWindow;
+    private void saveTransaction(UpiNotificationParser.ParsedNotification parsed, String packageName,
+                                 String notificationKey) {
+        long now = System.currentTimeMillis();
+        String appName = getAppName(packageName);
 
-                String type = parsed.isIncome ? "income" : "expense";
-                
-                // Check 1: Exact duplicate (same amount, merchant, within window)
-                PendingTransaction existing = db.pendingTransactionDao()
-                        .findDuplicate(parsed.amount, parsed.merchant, startTime, endTime);
-                
-                if (existing != null) {
-                    Log.d(TAG, "Duplicate transaction (same merchant), skipping");
-                    ActivityLogger.logRejected(getApplicationContext(), "notification",
-                            "Duplicate transaction detected",
-                            "Same merchant and amount",
-                            parsed.amount, parsed.merchant);
-                    return;
-                }
-                
-                // Check 2: Cross-source duplicate (SMS might have different merchant name)
-                // e.g., SMS says "UPI/DR" but notification says "KISHORE SENTHIL"
-                // BUT: Two DIFFERENT transactions with same amount at same time from DIFFERENT people
-                // should NOT be considered duplicates!
-                PendingTransaction crossSource = db.pendingTransactionDao()
-                        .findDuplicateLoose(parsed.amount, type, startTime, endTime);
-                
-                if (crossSource != null) {
-                    String existingMerchant = crossSource.getMerchant();
-                    String existingSource = crossSource.getSource();
-                    String newMerchant = parsed.merchant != null ? parsed.merchant.trim() : "";
-                    
-                    Log.d(TAG, "Potential cross-source duplicate. Amount: ₹" + parsed.amount 
-                            + ", existing merchant: " + existingMerchant 
-                            + ", new merchant: " + newMerchant
-                            + ", existing source: " + existingSource);
-                    
-                    // Determine if this is truly a duplicate or two different transactions
-                    boolean isGenericMerchant = existingMerchant == null || existingMerchant.isEmpty()
-                            || existingMerchant.contains("UPI") || existingMerchant.contains("IMPS")
-                            || existingMerchant.contains("DR/") || existingMerchant.contains("CR/");
-                    
-                    boolean merchantsAreSimilar = areMerchantsSimilar(existingMerchant, newMerchant);
-                    
-                    // Only consider it a duplicate if:
-                    // 1. Existing merchant is generic (SMS with UPI ref) - notification has better info
-                    // 2. OR merchant names are similar enough to be the same person
-                    if (isGenericMerchant || merchantsAreSimilar) {
-                        // This is a true cross-source duplicate
-                        if (isGenericMerchant && !newMerchant.isEmpty()) {
-                            // Update with better merchant name from notification
-                            db.pendingTransactionDao().updateMerchant(crossSource.getId(), newMerchant);
-                            Log.d(TAG, "Updated merchant name to: " + newMerchant);
-                            ActivityLogger.logAdded(getApplicationContext(), "notification",
-                                    "Updated merchant info for existing transaction",
-                                    parsed.amount, newMerchant);
-                        } else {
-                            ActivityLogger.logRejected(getApplicationContext(), "notification",
-                                    "Cross-source duplicate",
-                                    "Already captured this transaction",
-                                    parsed.amount, newMerchant);
-                        }
-                        return;
-                    } else {
-                        // Different merchant names = different transactions, proceed to add
-                        Log.d(TAG, "Different merchants detected, treating as separate transaction. " +
-                                "Existing: '" + existingMerchant + "' vs New: '" + newMerchant + "'");
-                    }
-                }
+        // CaptureBatcher applies writes in order, so a re-post is always handled
+        // after the insert of the post it updates
+        CaptureBatcher.getInstance(getApplicationContext()).submit((db, batch) ->
+                store(db, batch, recentNotifications, parsed, appName, notificationKey, now));
+    }
 
-                // Create new transaction
-                PendingTransaction txn = new PendingTransaction();
-                txn.setAmount(parsed.amount);
-                txn.setType(type);
-                txn.setMerchant(parsed.merchant);
-                txn.setCategory(parsed.category);
-                txn.setBankName(getAppName(packageName));
-                txn.setTransactionAt(now);
-                txn.setCreatedAt(now);  // Important: set createdAt to prevent premature deletion
-                txn.setSynced(false);
-                txn.setSource("notification");  // Mark source as notification
-                // Generate unique hash for UPI notification
-                String merchantHash = parsed.merchant != null ? String.valueOf(parsed.merchant.hashCode()) : "unknown";
-                String hash = "UPI_" + now + "_" + parsed.amount + "_" + merchantHash;
-                txn.setSmsHash(hash);
+    /**
+     * Merge a parsed notification into the row it duplicates or insert a new one.
+     * Runs inside the capture batch transaction.
+     */
+    static void store(RupexDatabase db, CaptureBatcher.Batch batch, RecentNotificationCache cache,
+                      UpiNotificationParser.ParsedNotification parsed, String appName,
+                      String notificationKey, long now) {
+        MerchantResolver merchants = MerchantResolver.getInstance();
+        long timeWindow = 900000; // 15 minutes for robustness
+        long startTime = now - timeWindow;
+        long endTime = now + timeWindow;
 
-                db.pendingTransactionDao().insert(txn);
-                Log.d(TAG, "Saved UPI transaction: ₹" + parsed.amount + " to " + parsed.merchant);
-                
-                // Log successful addition
-                ActivityLogger.logAdded(getApplicationContext(), "notification",
-                        "Transaction added from " + getAppName(packageName),
-                        parsed.amount, parsed.merchant);
+        String type = parsed.isIncome ? "income" : "expense";
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error saving transaction", e);
+        // Updated re-post of a notification we already stored: merge into that row.
+        // Apps also reuse one key for the next payment, so only when it is the same payment.
+        long previousRowId = cache.getRowId(notificationKey);
+        // Row ids cached below must not outlive a rollback (AUTOINCREMENT hands them out again)
+        batch.onRollback(() -> cache.setRowId(notificationKey, previousRowId));
+        PendingTransaction previous = previousRowId != RecentNotificationCache.NO_ROW
+                ? db.pendingTransactionDao().getById(previousRowId) : null;
+        if (previous != null && Math.abs(previous.getAmount() - parsed.amount) < 0.01
+                && !SmsParser.referencesConflict(previous.getReferenceId(), parsed.referenceId)) {
+            db.pendingTransactionDao().updateFromNotification(previousRowId,
+                    parsed.amount, type, parsed.merchant, parsed.category);
+            if (SmsParser.isCorrelatableReference(parsed.referenceId) && previous.getReferenceId() == null) {
+                db.pendingTransactionDao().updateReferenceId(previousRowId, parsed.referenceId);
             }
-        });
-    }
-    
-    /**
-     * Check if two merchant names are similar enough to be considered the same person/entity.
-     * This helps distinguish between:
-     * - Same transaction from different sources (SMS: "UPI-REF123" vs Notification: "MANO RAJKUMAR") 
-     * - Two DIFFERENT transactions from different people with same amount
-     */
-    private boolean areMerchantsSimilar(String merchant1, String merchant2) {
-        if (merchant1 == null || merchant2 == null) {
-            return false; // If either is null, can't compare - treat as different
+            db.pendingTransactionDao().updateMerchantId(previousRowId,
+                    merchants.resolve(db, parsed.merchant, "notification", parsed.category));
+            AppLog.d(TAG, "Merged updated notification into transaction {}", previousRowId);
+            batch.logAdded("notification",
+                    "Updated transaction from " + appName,
+                    parsed.amount, parsed.merchant);
+            return;
         }
         
-        // Normalize: trim, uppercase, remove common prefixes
-        String norm1 = normalizeMerchant(merchant1);
-        String norm2 = normalizeMerchant(merchant2);
-        
-        if (norm1.isEmpty() || norm2.isEmpty()) {
-            return false; // Empty after normalization = can't compare
+        // Check 1: Exact UPI reference match (indexed lookup, no fuzzy matching needed)
+        boolean hasReference = SmsParser.isCorrelatableReference(parsed.referenceId);
+        if (hasReference) {
+            PendingTransaction byReference = db.pendingTransactionDao().findByReferenceId(parsed.referenceId);
+            if (byReference != null) {
+                cache.setRowId(notificationKey, byReference.getId());
+                String newMerchant = parsed.merchant != null ? parsed.merchant.trim() : "";
+                if (isGenericMerchant(byReference.getMerchant()) && !newMerchant.isEmpty()) {
+                    db.pendingTransactionDao().updateMerchant(byReference.getId(), newMerchant);
+                    db.pendingTransactionDao().updateMerchantId(byReference.getId(),
+                            merchants.resolve(db, newMerchant, "notification", parsed.category));
+                    batch.logAdded("notification",
+                            "Updated merchant info for existing transaction",
+                            parsed.amount, newMerchant);
+                } else {
+                    merchants.linkAlias(db, byReference, newMerchant, "notification");
+                    batch.logRejected("notification",
+                            "Duplicate transaction detected",
+                            "Same UPI reference",
+                            parsed.amount, parsed.merchant);
+                }
+                return;
+            }
         }
+
+        // Fuzzy checks below only merge when references don't contradict each other
+
+        // Check 2: Exact duplicate (same amount, merchant, within window)
+        PendingTransaction existing = db.pendingTransactionDao()
+                .findDuplicate(parsed.amount, parsed.merchant, startTime, endTime);
         
-        // Exact match after normalization
-        if (norm1.equals(norm2)) {
-            return true;
+        if (existing != null && !SmsParser.referencesConflict(existing.getReferenceId(), parsed.referenceId)) {
+            cache.setRowId(notificationKey, existing.getId());
+            AppLog.d(TAG, "Duplicate transaction (same merchant), skipping");
+            batch.logRejected("notification",
+                    "Duplicate transaction detected",
+                    "Same merchant and amount",
+                    parsed.amount, parsed.merchant);
+            return;
         }
         
-        // Check if one contains the other (partial match)
-        // e.g., "MANO RAJKUMAR" contains "MANO"
-        if (norm1.contains(norm2) || norm2.contains(norm1)) {
-            return true;
-        }
+        // Check 3: Cross-source duplicate (SMS might have different merchant name)
+        // e.g., SMS says "UPI/DR" but notification says "KISHORE SENTHIL"
+        // BUT: Two DIFFERENT transactions with same amount at same time from DIFFERENT people
+        // should NOT be considered duplicates!
+        PendingTransaction crossSource = db.pendingTransactionDao()
+                .findDuplicateLoose(parsed.amount, type, startTime, endTime);
         
-        // Check first word match (often the first name)
-        String[] words1 = norm1.split("\\s+");
-        String[] words2 = norm2.split("\\s+");
-        if (words1.length > 0 && words2.length > 0 && 
-            words1[0].length() > 2 && words2[0].length() > 2 &&
-            words1[0].equals(words2[0])) {
-            return true;
+        if (crossSource != null && !SmsParser.referencesConflict(crossSource.getReferenceId(), parsed.referenceId)) {
+            String existingMerchant = crossSource.getMerchant();
+            String existingSource = crossSource.getSource();
+            String newMerchant = parsed.merchant != null ? parsed.merchant.trim() : "";
+            
+            AppLog.d(TAG, "Potential cross-source duplicate. Amount: ₹{}, existing merchant: {}, "
+                    + "new merchant: {}, existing source: {}",
+                    parsed.amount, existingMerchant, newMerchant, existingSource);
+            
+            // Determine if this is truly a duplicate or two different transactions
+            boolean isGenericMerchant = isGenericMerchant(existingMerchant);
+            
+            boolean merchantsAreSimilar = MerchantMatcher.isSimilar(
+                    MerchantMatcher.of(crossSource), MerchantMatcher.signature(newMerchant));
+            
+            // Only consider it a duplicate if:
+            // 1. Existing merchant is generic (SMS with UPI ref) - notification has better info
+            // 2. OR merchant names are similar enough to be the same person
+            if (isGenericMerchant || merchantsAreSimilar) {
+                // This is a true cross-source duplicate
+                cache.setRowId(notificationKey, crossSource.getId());
+                if (hasReference && crossSource.getReferenceId() == null) {
+                    db.pendingTransactionDao().updateReferenceId(crossSource.getId(), parsed.referenceId);
+                }
+                if (isGenericMerchant && !newMerchant.isEmpty()) {
+                    // Update with better merchant name from notification
+                    db.pendingTransactionDao().updateMerchant(crossSource.getId(), newMerchant);
+                    db.pendingTransactionDao().updateMerchantId(crossSource.getId(),
+                            merchants.resolve(db, newMerchant, "notification", parsed.category));
+                    AppLog.d(TAG, "Updated merchant name to: {}", newMerchant);
+                    batch.logAdded("notification",
+                            "Updated merchant info for existing transaction",
+                            parsed.amount, newMerchant);
+                } else {
+                    merchants.linkAlias(db, crossSource, newMerchant, "notification");
+                    batch.logRejected("notification",
+                            "Cross-source duplicate",
+                            "Already captured this transaction",
+                            parsed.amount, newMerchant);
+                }
+                return;
+            } else {
+                // Different merchant names = different transactions, proceed to add
+                AppLog.d(TAG, "Different merchants detected, treating as separate transaction. "
+                        + "Existing: '{}' vs New: '{}'", existingMerchant, newMerchant);
+            }
         }
+
+        // Create new transaction
+        PendingTransaction txn = new PendingTransaction();
+        txn.setAmount(parsed.amount);
+        txn.setType(type);
+        txn.setMerchant(parsed.merchant);
+        txn.setCategory(parsed.category);
+        txn.setBankName(appName);
+        txn.setTransactionAt(now);
+        txn.setCreatedAt(now);  // Important: set createdAt to prevent premature deletion
+        txn.setSynced(false);
+        txn.setSource("notification");  // Mark source as notification
+        txn.setReferenceId(parsed.referenceId);
+        MerchantMatcher.stamp(txn);
+        txn.setMerchantId(merchants.resolve(db, parsed.merchant, "notification", parsed.category));
+        // Generate unique hash for UPI notification
+        String merchantHash = parsed.merchant != null ? String.valueOf(parsed.merchant.hashCode()) : "unknown";
+        String hash = "UPI_" + now + "_" + parsed.amount + "_" + merchantHash;
+        txn.setSmsHash(hash);
+
+        long id = db.pendingTransactionDao().insert(txn);
+        if (id != -1) {
+            cache.setRowId(notificationKey, id);
+        }
+        AppLog.d(TAG, "Saved UPI transaction: ₹{} to {}", parsed.amount, parsed.merchant);
         
-        return false;
+        // Log successful addition
+        batch.logAdded("notification",
+                "Transaction added from " + appName,
+                parsed.amount, parsed.merchant);
     }
     
-    private String normalizeMerchant(String merchant) {
-        if (merchant == null) return "";
-        return merchant.trim()
-                .toUpperCase()
-                .replaceAll("^(MR\\s*|MRS\\s*|MS\\s*|DR\\s*)", "") // Remove titles
-                .replaceAll("[^A-Z0-9\\s]", "") // Remove special chars
-                .trim();
+    /**
+     * Merchant strings that only describe the payment rail (e.g. SMS "UPI/DR/...")
+     */
+    private static boolean isGenericMerchant(String merchant) {
+        return merchant == null || merchant.isEmpty()
+                || merchant.contains("UPI") || merchant.contains("IMPS")
+                || merchant.contains("DR/") || merchant.contains("CR/");
     }
 
-    private String getAppName(String packageName) {
+    private static String getAppName(String packageName) {
         switch (packageName) {
             case GPAY: return "Google Pay";
             case PHONEPE: return "PhonePe";
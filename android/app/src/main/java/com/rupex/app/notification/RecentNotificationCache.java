@@ -0,0 +1,91 @@
+package com.rupex.app.notification;
+
+import android.os.SystemClock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived memory of recently posted payment notifications, keyed by
+ * {@code StatusBarNotification.getKey()}.
+ *
+ * Payment apps re-post the same notification several times (progress → success,
+ * re-alerts). This lets the listener drop identical re-posts before parsing and
+ * merge updated ones into the row the first post created.
+ */
+class RecentNotificationCache {
+
+    static final long NO_ROW = -1;
+
+    private static final int MAX_ENTRIES = 64;
+    private static final long TTL_MS = 10 * 60 * 1000; // 10 minutes
+
+    private static class Entry {
+        int contentHash;
+        long rowId = NO_ROW;
+        long seenAt;
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Record a post of {@code key} with the given content hash.
+     *
+     * @return false if this exact content was already seen for the key (drop it)
+     */
+    synchronized boolean recordPost(String key, int contentHash) {
+        long now = SystemClock.elapsedRealtime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.seenAt > TTL_MS) {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        } else if (entry.contentHash == contentHash) {
+            entry.seenAt = now;
+            return false;
+        }
+
+        entry.contentHash = contentHash;
+        entry.seenAt = now;
+        return true;
+    }
+
+    /**
+     * Row created (or matched) by an earlier post of this key, or {@link #NO_ROW}
+     */
+    synchronized long getRowId(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.rowId : NO_ROW;
+    }
+
+    synchronized void setRowId(String key, long rowId) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.rowId = rowId;
+        }
+    }
+
+    /**
+     * Order-sensitive hash of notification text, computed without allocating strings
+     */
+    static int hash(CharSequence... parts) {
+        int h = 17;
+        for (CharSequence part : parts) {
+            h = 31 * h;
+            if (part == null) continue;
+            for (int i = 0, n = part.length(); i < n; i++) {
+                h = 31 * h + part.charAt(i);
+            }
+        }
+        return h;
+    }
+}
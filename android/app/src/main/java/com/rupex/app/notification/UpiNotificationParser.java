@@ -1,8 +1,8 @@
 package com.rupex.app.notification;
 
-import android.util.Log;
-
-import com.rupex.app.sms.parser.CategoryDetector;
+import com.rupex.app.merchant.CategoryMemory;
+import com.rupex.app.sms.parser.SmsParser;
+import com.rupex.app.util.AppLog;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,44 +47,109 @@ public class UpiNotificationParser {
     private static final Pattern PAYTM_PAID = Pattern.compile(
             "(?:Paid|Payment)\\s+(?:₹|Rs\\.?)\\s*([\\d,]+(?:\\.\\d{2})?)", Pattern.CASE_INSENSITIVE);
 
+    // Words every transaction pattern above starts from (matched at the start of a word)
+    private static final String[] HINT_KEYWORDS = {
+            "paid", "sent", "received", "got", "credited", "debited", "payment"};
+
+    static final int HINT_CURRENCY = 1;
+    static final int HINT_DIGIT = 2;
+    static final int HINT_KEYWORD = 4;
+
     public static class ParsedNotification {
         public double amount;
         public String merchant;
         public boolean isIncome;
         public String category;
         public String originalText;
+        public String referenceId; // UPI reference / UTR if the app exposes it
 
         public ParsedNotification(double amount, String merchant, boolean isIncome, String originalText) {
             this.amount = amount;
             this.merchant = merchant;
             this.isIncome = isIncome;
             this.originalText = originalText;
-            this.category = CategoryDetector.detectCategory(merchant);
+            this.category = CategoryMemory.getInstance()
+                    .categorize(merchant, null, amount, System.currentTimeMillis(), isIncome);
         }
     }
 
     public static ParsedNotification parse(String packageName, String title, String text) {
         String combined = title + " " + text;
         
-        Log.d(TAG, "Parsing: " + combined);
+        AppLog.d(TAG, "Parsing: {}", combined);
 
-        // Try GPay patterns
+        ParsedNotification result;
         if (packageName.contains("google") || packageName.contains("gpay")) {
-            return parseGPay(combined);
+            // Try GPay patterns
+            result = parseGPay(combined);
+        } else if (packageName.contains("phonepe")) {
+            // Try PhonePe patterns
+            result = parsePhonePe(combined);
+        } else if (packageName.contains("paytm")) {
+            // Try Paytm patterns
+            result = parsePaytm(combined);
+        } else {
+            // Generic UPI parsing
+            result = parseGeneric(combined);
+        }
+
+        if (result != null) {
+            result.referenceId = SmsParser.extractUpiReference(combined);
         }
+        return result;
+    }
 
-        // Try PhonePe patterns
-        if (packageName.contains("phonepe")) {
-            return parsePhonePe(combined);
+    /**
+     * Flags ({@code HINT_*}) for what the text contains that the patterns need: a currency
+     * marker ("₹", standalone "Rs" / "INR"), a digit, a transaction keyword.
+     * Scans the CharSequence in place so rejected notifications allocate nothing.
+     */
+    static int scanHints(CharSequence cs) {
+        if (cs == null) return 0;
+        int hints = 0;
+        for (int i = 0, n = cs.length(); i < n; i++) {
+            char c = cs.charAt(i);
+            if (c == '₹') {
+                hints |= HINT_CURRENCY;
+            } else if (c >= '0' && c <= '9') {
+                hints |= HINT_DIGIT;
+            } else if (Character.isLetter(c) && (i == 0 || !Character.isLetter(cs.charAt(i - 1)))) {
+                if (tokenAt(cs, i, "rs") || tokenAt(cs, i, "inr")) {
+                    hints |= HINT_CURRENCY;
+                } else if ((hints & HINT_KEYWORD) == 0) {
+                    for (String keyword : HINT_KEYWORDS) {
+                        if (prefixAt(cs, i, keyword)) {
+                            hints |= HINT_KEYWORD;
+                            break;
+                        }
+                    }
+                }
+            }
         }
+        return hints;
+    }
 
-        // Try Paytm patterns
-        if (packageName.contains("paytm")) {
-            return parsePaytm(combined);
+    /**
+     * True if text with these hints can parse: an amount with a currency marker,
+     * or a bare number next to a transaction keyword ("Paid 150.00 to ...")
+     */
+    static boolean mayContainTransaction(int hints) {
+        return (hints & HINT_CURRENCY) != 0
+                || (hints & (HINT_DIGIT | HINT_KEYWORD)) == (HINT_DIGIT | HINT_KEYWORD);
+    }
+
+    private static boolean prefixAt(CharSequence cs, int start, String lowerWord) {
+        if (start + lowerWord.length() > cs.length()) return false;
+        for (int i = 0; i < lowerWord.length(); i++) {
+            if (Character.toLowerCase(cs.charAt(start + i)) != lowerWord.charAt(i)) return false;
         }
+        return true;
+    }
 
-        // Generic UPI parsing
-        return parseGeneric(combined);
+    private static boolean tokenAt(CharSequence cs, int start, String lowerToken) {
+        int end = start + lowerToken.length();
+        return prefixAt(cs, start, lowerToken)
+                && (end == cs.length() || !Character.isLetter(cs.charAt(end)));
     }
 
     private static ParsedNotification parseGPay(String text) {
@@ -93,7 +158,7 @@ public class UpiNotificationParser {
         if (paidYouMatcher.find()) {
             String sender = cleanMerchant(paidYouMatcher.group(1));
             double amount = parseAmount(paidYouMatcher.group(2));
-            Log.d(TAG, "Matched GPAY_PAID_YOU: amount=" + amount + ", sender=" + sender);
+            AppLog.d(TAG, "Matched GPAY_PAID_YOU: amount={}, sender={}", amount, sender);
             return new ParsedNotification(amount, sender, true, text);
         }
         
@@ -102,7 +167,7 @@ public class UpiNotificationParser {
         if (youPaidMatcher.find()) {
             String merchant = cleanMerchant(youPaidMatcher.group(1));
             double amount = parseAmount(youPaidMatcher.group(2));
-            Log.d(TAG, "Matched GPAY_YOU_PAID: amount=" + amount + ", merchant=" + merchant);
+            AppLog.d(TAG, "Matched GPAY_YOU_PAID: amount={}, merchant={}", amount, merchant);
             return new ParsedNotification(amount, merchant, false, text);
         }
         
@@ -8,14 +8,21 @@ import android.provider.Telephony;
 import android.telephony.SmsMessage;
 import android.util.Log;
 
-import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.CaptureBatcher;
 import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.insights.BalanceTracker;
+import com.rupex.app.merchant.MerchantMatcher;
+import com.rupex.app.merchant.MerchantResolver;
 import com.rupex.app.sms.parser.SmsParser;
 import com.rupex.app.sms.parser.ParsedSms;
-import com.rupex.app.sync.SyncManager;
-import com.rupex.app.util.ActivityLogger;
+import com.rupex.app.util.AppLog;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * BroadcastReceiver for intercepting incoming SMS messages.
@@ -28,6 +35,14 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
 
     private static final String TAG = "SmsBroadcastReceiver";
 
+    // Time we allow ourselves under goAsync() before handing off to WorkManager.
+    // The system kills receivers after ~10s, so stay well below that.
+    private static final long PROCESSING_BUDGET_MS = 4000;
+
+    // Parsing runs here; the write itself is group-committed by CaptureBatcher,
+    // so this thread only waits on it to enforce the deadline
+    private static final ExecutorService PARSE_EXECUTOR = Executors.newSingleThreadExecutor();
+
     @Override
     public void onReceive(Context context, Intent intent) {
         if (intent == null || !Telephony.Sms.Intents.SMS_RECEIVED_ACTION.equals(intent.getAction())) {
@@ -59,40 +74,78 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
         String smsBody = fullMessage.toString();
         String finalSender = sender != null ? sender : "UNKNOWN";
 
-        Log.d(TAG, "SMS received from: " + finalSender);
+        AppLog.d(TAG, "SMS received from: {}", finalSender);
 
         // Check if this is a bank SMS worth parsing
         if (!SmsParser.isBankSms(finalSender)) {
-            Log.d(TAG, "Not a bank SMS, ignoring");
+            AppLog.d(TAG, "Not a bank SMS, ignoring");
             return;
         }
 
-        // Process in background to avoid ANR
+        // Keep the receiver alive until processing finishes (or the budget runs out)
+        PendingResult pendingResult = goAsync();
+        Context appContext = context.getApplicationContext();
+        long deadline = System.currentTimeMillis() + PROCESSING_BUDGET_MS;
         long finalTimestamp = timestamp;
-        Executors.newSingleThreadExecutor().execute(() -> {
-            processBankSms(context, finalSender, smsBody, finalTimestamp);
+
+        PARSE_EXECUTOR.execute(() -> {
+            try {
+                processBankSms(appContext, finalSender, smsBody, finalTimestamp, deadline);
+            } finally {
+                pendingResult.finish();
+            }
         });
     }
 
     /**
-     * Process bank SMS and create pending transaction
+     * Parse bank SMS and persist it within the processing budget.
+     * If the write doesn't finish in time, the parsed payload is handed to an
+     * expedited {@link SmsCaptureWorker} so capture doesn't depend on this process surviving.
      */
-    private void processBankSms(Context context, String sender, String smsBody, long timestamp) {
+    private void processBankSms(Context context, String sender, String smsBody, long timestamp, long deadline) {
+        ParsedSms parsed;
         try {
-            // Parse the SMS
-            ParsedSms parsed = SmsParser.parse(sender, smsBody, timestamp);
+            parsed = SmsParser.parse(sender, smsBody, timestamp);
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing bank SMS", e);
+            return;
+        }
 
-            if (parsed == null || !parsed.isValid()) {
-                Log.d(TAG, "Could not parse SMS or invalid data");
-                return;
-            }
+        if (parsed == null || !parsed.isValid()) {
+            AppLog.d(TAG, "Could not parse SMS or invalid data");
+            return;
+        }
 
-            Log.i(TAG, String.format("Parsed transaction: %s ₹%.2f from %s | Merchant: %s | Category: %s",
-                    parsed.getType(), parsed.getAmount(), parsed.getBankName(),
-                    parsed.getMerchant(), parsed.getCategory()));
+        Future<Void> write = saveParsedSms(context, parsed, timestamp);
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            write.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Either still queued or mid-write. The worker is idempotent on sms_hash,
+            // so it is safe to enqueue it even if the in-flight write completes.
+            Log.w(TAG, "SMS processing exceeded " + PROCESSING_BUDGET_MS + "ms, deferring to WorkManager");
+            SmsCaptureWorker.enqueue(context, parsed, timestamp);
+        } catch (ExecutionException e) {
+            // The write was rolled back; the worker retries it with backoff
+            Log.e(TAG, "Storing bank SMS failed, deferring to WorkManager", e.getCause());
+            SmsCaptureWorker.enqueue(context, parsed, timestamp);
+        } catch (Exception e) {
+            Log.e(TAG, "Error processing bank SMS", e);
+        }
+    }
+
+    /**
+     * Dedupe and store a parsed bank SMS as a pending transaction.
+     * Shared by the receiver and {@link SmsCaptureWorker}; safe to call twice for the same SMS.
+     *
+     * @return future that completes when the capture batch containing this SMS has committed
+     */
+    static Future<Void> saveParsedSms(Context context, ParsedSms parsed, long timestamp) {
+        return CaptureBatcher.getInstance(context).submit((db, batch) -> {
+            AppLog.d(TAG, "Parsed transaction: {}", parsed);
 
             // Log that SMS was captured
-            ActivityLogger.logCaptured(context, "sms",
+            batch.logCaptured("sms",
                     "SMS from " + parsed.getBankName(),
                     parsed.getAmount(), parsed.getMerchant());
 
@@ -113,21 +166,33 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
             pendingTxn.setCreatedAt(System.currentTimeMillis());
             pendingTxn.setSynced(false);
             pendingTxn.setSource("sms");  // Mark source as SMS
+            MerchantMatcher.stamp(pendingTxn);
 
-            // Save to local database
-            RupexDatabase db = RupexDatabase.getInstance(context);
-            
             // Check 1: Duplicate by SMS hash (exact same SMS)
             if (db.pendingTransactionDao().existsBySmsHash(pendingTxn.getSmsHash())) {
-                Log.d(TAG, "Duplicate SMS detected, skipping");
-                ActivityLogger.logRejected(context, "sms",
+                AppLog.d(TAG, "Duplicate SMS detected, skipping");
+                batch.logRejected("sms",
                         "Duplicate SMS detected",
                         "Same SMS hash already exists",
                         parsed.getAmount(), parsed.getMerchant());
                 return;
             }
             
-            // Check 2: Cross-source duplicate (notification might have already captured this)
+            // Check 2: Same UPI reference already captured (e.g. by the payment app notification)
+            boolean hasReference = SmsParser.isCorrelatableReference(parsed.getReferenceId());
+            if (hasReference) {
+                PendingTransaction byReference = db.pendingTransactionDao()
+                        .findByReferenceId(parsed.getReferenceId());
+                if (byReference != null) {
+                    if (!isGenericMerchant(byReference.getMerchant()) && !isGenericMerchant(parsed.getMerchant())) {
+                        MerchantResolver.getInstance().linkAlias(db, byReference, parsed.getMerchant(), "sms");
+                    }
+                    mergeBankInfo(db, batch, byReference, parsed);
+                    return;
+                }
+            }
+
+            // Check 3: Cross-source duplicate (notification might have already captured this)
             // Use 15-minute window (900000ms) because SMS can be delayed significantly
             long timeWindow = 900000; 
             long startTime = timestamp - timeWindow;
@@ -136,113 +201,103 @@ public class SmsBroadcastReceiver extends BroadcastReceiver {
             PendingTransaction crossSource = db.pendingTransactionDao()
                     .findDuplicateLoose(parsed.getAmount(), parsed.getType(), startTime, endTime);
             
+            // Both sides carry a UPI reference and they differ: definitely separate transactions
+            if (crossSource != null
+                    && SmsParser.referencesConflict(crossSource.getReferenceId(), parsed.getReferenceId())) {
+                crossSource = null;
+            }
+
             if (crossSource != null) {
                 String existingMerchant = crossSource.getMerchant();
                 String newMerchant = parsed.getMerchant();
                 
-                Log.d(TAG, "Potential cross-source duplicate. Amount: ₹" + parsed.getAmount()
-                        + ", existing merchant: " + existingMerchant 
-                        + ", new merchant: " + newMerchant);
+                AppLog.d(TAG, "Potential cross-source duplicate. Amount: ₹{}, existing merchant: {}, new merchant: {}",
+                        parsed.getAmount(), existingMerchant, newMerchant);
                 
                 // Determine if this is truly a duplicate or two different transactions
-                boolean isGenericMerchant = existingMerchant == null || existingMerchant.isEmpty()
-                        || existingMerchant.contains("UPI") || existingMerchant.contains("IMPS")
-                        || existingMerchant.contains("DR/") || existingMerchant.contains("CR/");
-                
-                boolean existingHasGenericMerchant = isGenericMerchant;
-                boolean newHasGenericMerchant = newMerchant == null || newMerchant.isEmpty()
-                        || newMerchant.contains("UPI") || newMerchant.contains("IMPS")
-                        || newMerchant.contains("DR/") || newMerchant.contains("CR/");
+                boolean existingHasGenericMerchant = isGenericMerchant(existingMerchant);
+                boolean newHasGenericMerchant = isGenericMerchant(newMerchant);
                         
-                boolean merchantsAreSimilar = areMerchantsSimilar(existingMerchant, newMerchant);
+                boolean merchantsAreSimilar = MerchantMatcher.isSimilar(
+                        MerchantMatcher.of(crossSource), MerchantMatcher.of(pendingTxn));
                 
                 // Only consider it a duplicate if:
                 // 1. One or both have generic merchant (e.g., "UPI-REF" vs "John Doe")
                 // 2. OR merchant names are similar enough to be the same person
                 if (existingHasGenericMerchant || newHasGenericMerchant || merchantsAreSimilar) {
-                    // SMS usually has better bank info, so update the existing transaction
-                    if (parsed.getBankName() != null && !parsed.getBankName().isEmpty()) {
-                        // Update bank name and account info from SMS
-                        db.pendingTransactionDao().updateBankInfo(crossSource.getId(), 
-                                parsed.getBankName(), parsed.getLast4Digits());
-                        Log.d(TAG, "Updated bank info to: " + parsed.getBankName());
-                        ActivityLogger.logAdded(context, "sms",
-                                "Updated bank info for existing transaction",
-                                parsed.getAmount(), parsed.getMerchant());
-                    } else {
-                        ActivityLogger.logRejected(context, "sms",
-                                "Cross-source duplicate",
-                                "Notification already captured this transaction",
-                                parsed.getAmount(), parsed.getMerchant());
+                    if (hasReference && crossSource.getReferenceId() == null) {
+                        db.pendingTransactionDao().updateReferenceId(crossSource.getId(), parsed.getReferenceId());
+                    }
+                    if (merchantsAreSimilar && !existingHasGenericMerchant && !newHasGenericMerchant) {
+                        MerchantResolver.getInstance().linkAlias(db, crossSource, newMerchant, "sms");
                     }
+                    mergeBankInfo(db, batch, crossSource, parsed);
                     return;
                 } else {
                     // Different merchant names = different transactions, proceed to add
-                    Log.d(TAG, "Different merchants detected, treating as separate transaction. " +
-                            "Existing: '" + existingMerchant + "' vs New: '" + newMerchant + "'");
+                    AppLog.d(TAG, "Different merchants detected, treating as separate transaction. "
+                            + "Existing: '{}' vs New: '{}'", existingMerchant, newMerchant);
                 }
             }
 
-            // Insert into database
+            pendingTxn.setMerchantId(MerchantResolver.getInstance()
+                    .resolve(db, parsed.getMerchant(), "sms", parsed.getCategory()));
+
+            // Insert into database (IGNORE on sms_hash: a concurrent retry may have won the race)
             long id = db.pendingTransactionDao().insert(pendingTxn);
-            Log.i(TAG, "Saved pending transaction with ID: " + id);
+            if (id == -1) {
+                AppLog.d(TAG, "SMS already stored by a concurrent attempt, skipping");
+                return;
+            }
+            AppLog.d(TAG, "Saved pending transaction with ID: {}", id);
+            pendingTxn.setId(id);
+            BalanceTracker.apply(db, pendingTxn);
 
             // Log successful addition
-            ActivityLogger.logAdded(context, "sms",
+            batch.logAdded("sms",
                     "Transaction added from SMS",
                     parsed.getAmount(), parsed.getMerchant());
 
-            // Trigger sync
-            SyncManager.scheduleSyncNow(context);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing bank SMS", e);
-        }
+            // Trigger sync (once per batch)
+            batch.requestSync();
+        });
     }
     
     /**
-     * Check if two merchant names are similar enough to be considered the same person/entity.
+     * Merchant strings that only describe the payment rail (e.g. "UPI/DR/...")
      */
-    private boolean areMerchantsSimilar(String merchant1, String merchant2) {
-        if (merchant1 == null || merchant2 == null) {
-            return false;
-        }
-        
-        String norm1 = normalizeMerchant(merchant1);
-        String norm2 = normalizeMerchant(merchant2);
-        
-        if (norm1.isEmpty() || norm2.isEmpty()) {
-            return false;
-        }
-        
-        // Exact match after normalization
-        if (norm1.equals(norm2)) {
-            return true;
-        }
-        
-        // Check if one contains the other
-        if (norm1.contains(norm2) || norm2.contains(norm1)) {
-            return true;
-        }
-        
-        // Check first word match
-        String[] words1 = norm1.split("\\s+");
-        String[] words2 = norm2.split("\\s+");
-        if (words1.length > 0 && words2.length > 0 && 
-            words1[0].length() > 2 && words2[0].length() > 2 &&
-            words1[0].equals(words2[0])) {
-            return true;
-        }
-        
-        return false;
+    private static boolean isGenericMerchant(String merchant) {
+        return merchant == null || merchant.isEmpty()
+                || merchant.contains("UPI") || merchant.contains("IMPS")
+                || merchant.contains("DR/") || merchant.contains("CR/");
     }
-    
-    private String normalizeMerchant(String merchant) {
-        if (merchant == null) return "";
-        return merchant.trim()
-                .toUpperCase()
-                .replaceAll("^(MR\\s*|MRS\\s*|MS\\s*|DR\\s*)", "")
-                .replaceAll("[^A-Z0-9\\s]", "")
-                .trim();
+
+    /**
+     * SMS usually has better bank info than a notification, so copy it onto the existing row
+     */
+    private static void mergeBankInfo(RupexDatabase db, CaptureBatcher.Batch batch,
+                                      PendingTransaction existing, ParsedSms parsed) {
+        if (parsed.getBankName() != null && !parsed.getBankName().isEmpty()) {
+            // Update bank name, account info and balance from SMS
+            boolean newAccountInfo = existing.getLast4Digits() == null && parsed.getLast4Digits() != null;
+            db.pendingTransactionDao().updateBankInfo(existing.getId(),
+                    parsed.getBankName(), parsed.getLast4Digits(), parsed.getBalance());
+            AppLog.d(TAG, "Updated bank info to: {}", parsed.getBankName());
+            if (newAccountInfo) {
+                // First time this transaction is tied to an account
+                existing.setBankName(parsed.getBankName());
+                existing.setLast4Digits(parsed.getLast4Digits());
+                if (parsed.getBalance() != null) existing.setBalance(parsed.getBalance());
+                BalanceTracker.apply(db, existing);
+            }
+            batch.logAdded("sms",
+                    "Updated bank info for existing transaction",
+                    parsed.getAmount(), parsed.getMerchant());
+        } else {
+            batch.logRejected("sms",
+                    "Cross-source duplicate",
+                    "Notification already captured this transaction",
+                    parsed.getAmount(), parsed.getMerchant());
+        }
     }
 }
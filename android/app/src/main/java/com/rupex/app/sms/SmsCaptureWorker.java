@@ -0,0 +1,130 @@
+package com.rupex.app.sms;
+
+import android.app.Notification;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.rupex.app.R;
+import com.rupex.app.RupexApplication;
+import com.rupex.app.sms.parser.ParsedSms;
+
+/**
+ * Expedited worker that stores a bank SMS whose processing didn't finish
+ * within the {@link SmsBroadcastReceiver} time budget.
+ *
+ * Carries the already-parsed fields (never the raw SMS body).
+ */
+public class SmsCaptureWorker extends Worker {
+
+    private static final String TAG = "SmsCaptureWorker";
+    private static final String WORK_PREFIX = "sms_capture_";
+    private static final int NOTIFICATION_ID = 1002;
+
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_AMOUNT = "amount";
+    private static final String KEY_LAST_4 = "last_4_digits";
+    private static final String KEY_REFERENCE_ID = "reference_id";
+    private static final String KEY_MERCHANT = "merchant";
+    private static final String KEY_BALANCE = "balance";
+    private static final String KEY_BANK_NAME = "bank_name";
+    private static final String KEY_SMS_HASH = "sms_hash";
+    private static final String KEY_CATEGORY = "category";
+    private static final String KEY_CATEGORY_ICON = "category_icon";
+    private static final String KEY_CATEGORY_COLOR = "category_color";
+    private static final String KEY_TIMESTAMP = "timestamp";
+
+    public SmsCaptureWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Enqueue an expedited capture for a parsed SMS (one unique job per SMS hash)
+     */
+    public static void enqueue(Context context, ParsedSms parsed, long timestamp) {
+        Data.Builder data = new Data.Builder()
+                .putString(KEY_TYPE, parsed.getType())
+                .putDouble(KEY_AMOUNT, parsed.getAmount())
+                .putString(KEY_LAST_4, parsed.getLast4Digits())
+                .putString(KEY_REFERENCE_ID, parsed.getReferenceId())
+                .putString(KEY_MERCHANT, parsed.getMerchant())
+                .putString(KEY_BANK_NAME, parsed.getBankName())
+                .putString(KEY_SMS_HASH, parsed.getSmsHash())
+                .putString(KEY_CATEGORY, parsed.getCategory())
+                .putString(KEY_CATEGORY_ICON, parsed.getCategoryIcon())
+                .putString(KEY_CATEGORY_COLOR, parsed.getCategoryColor())
+                .putLong(KEY_TIMESTAMP, timestamp);
+        if (parsed.getBalance() != null) {
+            data.putDouble(KEY_BALANCE, parsed.getBalance());
+        }
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SmsCaptureWorker.class)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setInputData(data.build())
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_PREFIX + parsed.getSmsHash(), ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data input = getInputData();
+        ParsedSms parsed = new ParsedSms();
+        parsed.setType(input.getString(KEY_TYPE));
+        parsed.setAmount(input.getDouble(KEY_AMOUNT, 0));
+        parsed.setLast4Digits(input.getString(KEY_LAST_4));
+        parsed.setReferenceId(input.getString(KEY_REFERENCE_ID));
+        parsed.setMerchant(input.getString(KEY_MERCHANT));
+        parsed.setBankName(input.getString(KEY_BANK_NAME));
+        parsed.setSmsHash(input.getString(KEY_SMS_HASH));
+        parsed.setCategory(input.getString(KEY_CATEGORY));
+        parsed.setCategoryIcon(input.getString(KEY_CATEGORY_ICON));
+        parsed.setCategoryColor(input.getString(KEY_CATEGORY_COLOR));
+        if (input.hasKeyWithValueOfType(KEY_BALANCE, Double.class)) {
+            parsed.setBalance(input.getDouble(KEY_BALANCE, 0));
+        }
+
+        if (!parsed.isValid() || parsed.getSmsHash() == null) {
+            Log.w(TAG, "Dropping invalid deferred SMS payload");
+            return Result.success();
+        }
+
+        Log.i(TAG, "Storing deferred SMS capture");
+        try {
+            SmsBroadcastReceiver.saveParsedSms(getApplicationContext(), parsed,
+                    input.getLong(KEY_TIMESTAMP, System.currentTimeMillis())).get();
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Deferred SMS capture failed", e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Required for expedited work on Android 11 and below, where it runs as a foreground service
+     */
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        Notification notification = new NotificationCompat.Builder(
+                getApplicationContext(), RupexApplication.CHANNEL_SYNC)
+                .setContentTitle("0xRupex")
+                .setContentText("Saving transaction...")
+                .setSmallIcon(R.drawable.ic_sms)
+                .setOngoing(true)
+                .build();
+        return new ForegroundInfo(NOTIFICATION_ID, notification);
+    }
+}
@@ -1,6 +1,7 @@
 package com.rupex.app.sms.parser;
 
-import android.util.Log;
+import com.rupex.app.merchant.CategoryMemory;
+import com.rupex.app.util.AppLog;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -118,8 +119,15 @@ public class SmsParser {
     // EXTRACTION PATTERNS
     // ============================================
     
+    // UPI reference / UTR: 12-digit number near a UPI/UTR/Ref keyword
+    private static final Pattern UPI_REFERENCE_PATTERN = Pattern.compile(
+            "(?:UPI|UTR|RRN|Ref|Txn|Transaction)[^0-9]{0,20}?(\\d{12})(?!\\d)",
+            Pattern.CASE_INSENSITIVE
+    );
+
     // Reference ID patterns
     private static final Pattern[] REFERENCE_PATTERNS = {
+            UPI_REFERENCE_PATTERN,
             Pattern.compile("(?:UPI\\s*[Rr]ef|Ref(?:erence)?(?:\\s*No)?|Txn\\s*ID?)[\\s:]*([A-Za-z0-9]+)", Pattern.CASE_INSENSITIVE),
             Pattern.compile("(\\d{12,})")  // 12+ digit number as fallback
     };
@@ -177,7 +185,7 @@ public class SmsParser {
         }
 
         if (!matched) {
-            Log.d(TAG, "No pattern matched for SMS");
+            AppLog.d(TAG, "No pattern matched for SMS");
             return null;
         }
 
@@ -193,8 +201,9 @@ public class SmsParser {
             result.setMerchant(extractMerchant(smsBody));
         }
         
-        // Detect category from merchant name
-        String category = CategoryDetector.detectCategory(result.getMerchant());
+        // Detect category (learned rules / model, then merchant keywords)
+        String category = CategoryMemory.getInstance().categorize(result.getMerchant(),
+                result.getBankName(), result.getAmount(), timestamp, "income".equals(result.getType()));
         result.setCategory(category);
         result.setCategoryIcon(CategoryDetector.getCategoryIcon(category));
         result.setCategoryColor(CategoryDetector.getCategoryColor(category));
@@ -206,6 +215,37 @@ public class SmsParser {
         return result;
     }
 
+    /**
+     * Extract a 12-digit UPI reference (UTR) from free text, or null.
+     * Shared with the notification parser so both sources produce the same key.
+     */
+    public static String extractUpiReference(CharSequence text) {
+        if (text == null) return null;
+        Matcher matcher = UPI_REFERENCE_PATTERN.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Whether a reference ID is specific enough to correlate transactions across sources.
+     * Short tokens (e.g. "no" picked up from "Ref no") must never be used for exact merges.
+     */
+    public static boolean isCorrelatableReference(String referenceId) {
+        if (referenceId == null || referenceId.length() < 8) return false;
+        for (int i = 0; i < referenceId.length(); i++) {
+            if (Character.isDigit(referenceId.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True when both transactions carry usable references and they differ,
+     * i.e. they are definitely different transactions whatever the amount/time says.
+     */
+    public static boolean referencesConflict(String referenceId1, String referenceId2) {
+        return isCorrelatableReference(referenceId1) && isCorrelatableReference(referenceId2)
+                && !referenceId1.equals(referenceId2);
+    }
+
     // ============================================
     // PRIVATE HELPERS
     // ============================================
@@ -0,0 +1,229 @@
+package com.rupex.app.sync;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.remote.model.TransactionDto;
+import com.rupex.app.merchant.MerchantMatcher;
+import com.rupex.app.merchant.MerchantResolver;
+import com.rupex.app.sms.parser.SmsParser;
+import com.rupex.app.util.AppLog;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Stores a page of transactions fetched from the server. Each one is linked to
+ * the local capture it duplicates, if any, else inserted:
+ *  1. already stored (sms_hash "SERVER_" + id) → skipped
+ *  2. same UPI reference / UTR → linked
+ *  3. same amount and merchant within an hour → linked
+ *  4. same amount and type within an hour, similar merchant → linked, and the
+ *     server's merchant name recorded as an alias
+ *
+ * The page is reconciled in bulk: the stored hashes, the reference matches and
+ * the unlinked candidates in the page's time window are read with one query each
+ * (per {@link #CHUNK} keys), matched in memory, and the links and inserts written
+ * in the same transaction. A local row is linked to at most one server row.
+ */
+public final class ServerReconciler {
+
+    private static final String TAG = "ServerReconciler";
+    private static final String HASH_PREFIX = "SERVER_";
+    private static final long MATCH_WINDOW_MS = TimeUnit.HOURS.toMillis(1);
+    // Keys per IN (...) list, below SQLite's limit of 999 parameters
+    private static final int CHUNK = 500;
+
+    private ServerReconciler() {}
+
+    /**
+     * What happened to a page
+     */
+    public static final class Result {
+        public int inserted;
+        public int linked;
+        public int skipped;
+
+        @Override
+        public String toString() {
+            return inserted + " inserted, " + linked + " linked, " + skipped + " skipped";
+        }
+    }
+
+    /**
+     * Reconcile one page of server transactions. Call off the main thread.
+     */
+    public static Result reconcile(RupexDatabase db, List<TransactionDto> page) {
+        Result result = db.runInTransaction(() -> reconcileInTransaction(db, page));
+        AppLog.d(TAG, "Stored server page: {}", result);
+        return result;
+    }
+
+    private static Result reconcileInTransaction(RupexDatabase db, List<TransactionDto> page) {
+        PendingTransactionDao dao = db.pendingTransactionDao();
+        Result result = new Result();
+
+        // Lookup keys of the whole page
+        List<TransactionDto> dtos = new ArrayList<>(page.size());
+        List<String> hashes = new ArrayList<>(page.size());
+        List<String> references = new ArrayList<>();
+        Set<Double> amounts = new HashSet<>();
+        long[] times = new long[page.size()];
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (TransactionDto dto : page) {
+            if (dto.getId() == null || dto.getType() == null) {
+                result.skipped++;
+                continue;
+            }
+            long time = parseServerDate(dto.getTransactionAt());
+            times[dtos.size()] = time;
+            dtos.add(dto);
+            hashes.add(HASH_PREFIX + dto.getId());
+            if (SmsParser.isCorrelatableReference(dto.getReferenceId())) {
+                references.add(dto.getReferenceId());
+            }
+            amounts.add(dto.getAmount());
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+        if (dtos.isEmpty()) return result;
+
+        // One query per kind of match
+        Set<String> stored = new HashSet<>(inChunks(hashes, dao::findExistingHashes));
+        Map<String, PendingTransaction> byReference = new HashMap<>();
+        for (PendingTransaction row : inChunks(references, dao::findByReferenceIds)) {
+            byReference.putIfAbsent(row.getReferenceId(), row);
+        }
+        Map<Double, List<PendingTransaction>> byAmount = new HashMap<>();
+        for (PendingTransaction row : inChunks(new ArrayList<>(amounts), chunk -> dao.findUnlinkedByAmounts(
+                chunk, minTime - MATCH_WINDOW_MS, maxTime + MATCH_WINDOW_MS))) {
+            byAmount.computeIfAbsent(row.getAmount(), amount -> new ArrayList<>()).add(row);
+        }
+
+        Set<Long> claimed = new HashSet<>();
+        List<PendingTransaction> inserts = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TransactionDto dto = dtos.get(i);
+            String hash = hashes.get(i);
+            if (!stored.add(hash)) {
+                result.skipped++;
+                continue;
+            }
+
+            String reference = dto.getReferenceId();
+            String serverMerchant = dto.getMerchant() != null ? dto.getMerchant() : "";
+            PendingTransaction local = byReference.get(reference);
+            if (local != null) {
+                // Same reference: the same transaction, linked unless it already is
+                if (local.getServerId() == null && claimed.add(local.getId())) {
+                    dao.updateServerInfo(local.getId(), dto.getId(), hash);
+                    result.linked++;
+                } else {
+                    result.skipped++;
+                }
+                continue;
+            }
+
+            List<PendingTransaction> candidates = byAmount.get(dto.getAmount());
+            local = closest(candidates, claimed, times[i], reference,
+                    row -> serverMerchant.equals(row.getMerchant()));
+            if (local == null) {
+                // Merchant name formats differ between SMS and server
+                MerchantMatcher.Signature signature = MerchantMatcher.signature(serverMerchant);
+                local = closest(candidates, claimed, times[i], reference,
+                        row -> dto.getType().equals(row.getType())
+                                && MerchantMatcher.isSimilar(MerchantMatcher.of(row), signature));
+                if (local != null) {
+                    MerchantResolver.getInstance().linkAlias(db, local, serverMerchant, "synced");
+                }
+            }
+            if (local != null) {
+                claimed.add(local.getId());
+                dao.updateServerInfo(local.getId(), dto.getId(), hash);
+                result.linked++;
+                continue;
+            }
+
+            inserts.add(toPendingTransaction(db, dto, hash, times[i]));
+        }
+
+        dao.insertAll(inserts);
+        result.inserted = inserts.size();
+        return result;
+    }
+
+    // The unclaimed row nearest in time within the window that matches and has no conflicting reference
+    private static PendingTransaction closest(List<PendingTransaction> candidates, Set<Long> claimed,
+                                              long time, String reference,
+                                              Predicate<PendingTransaction> matches) {
+        if (candidates == null) return null;
+        PendingTransaction best = null;
+        long bestDistance = MATCH_WINDOW_MS + 1;
+        for (PendingTransaction row : candidates) {
+            long distance = Math.abs(row.getTransactionAt() - time);
+            if (distance < bestDistance && !claimed.contains(row.getId())
+                    && !SmsParser.referencesConflict(row.getReferenceId(), reference)
+                    && matches.test(row)) {
+                best = row;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    private static PendingTransaction toPendingTransaction(RupexDatabase db, TransactionDto dto,
+                                                           String hash, long time) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setAmount(dto.getAmount());
+        txn.setType(dto.getType());
+        txn.setMerchant(dto.getMerchant() != null ? dto.getMerchant() : dto.getDescription());
+        txn.setCategory(dto.getCategoryName());
+        txn.setNote(dto.getDescription());
+        txn.setSynced(true); // Already synced since it came from server
+        txn.setSource(dto.getSource() != null ? dto.getSource() : "synced");
+        txn.setSmsHash(hash);
+        txn.setServerId(dto.getId()); // Store server ID for backend delete
+        txn.setReferenceId(dto.getReferenceId());
+        MerchantMatcher.stamp(txn);
+        txn.setMerchantId(MerchantResolver.getInstance()
+                .resolve(db, txn.getMerchant(), "synced", txn.getCategory()));
+        txn.setTransactionAt(time);
+        txn.setCreatedAt(time);
+        return txn;
+    }
+
+    private static <K, V> List<V> inChunks(List<K> keys, Function<List<K>, List<V>> query) {
+        List<V> rows = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += CHUNK) {
+            rows.addAll(query.apply(keys.subList(from, Math.min(keys.size(), from + CHUNK))));
+        }
+        return rows;
+    }
+
+    /**
+     * Parse ISO date string from server
+     */
+    static long parseServerDate(String dateStr) {
+        if (dateStr == null) return System.currentTimeMillis();
+        try {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            Date date = sdf.parse(dateStr);
+            return date != null ? date.getTime() : System.currentTimeMillis();
+        } catch (Exception e) {
+            return System.currentTimeMillis();
+        }
+    }
+}
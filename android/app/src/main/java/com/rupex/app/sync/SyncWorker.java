@@ -97,7 +97,7 @@ public class SyncWorker extends Worker {
                 // Try to match account by last 4 digits
                 if (pending.getLast4Digits() != null) {
                     var account = db.accountDao().getByLast4Digits(pending.getLast4Digits());
-                    if (account != null) {
+                    if (account != null && !account.isLocalOnly()) {
                         request.setAccountId(account.getId());
                     }
                 }
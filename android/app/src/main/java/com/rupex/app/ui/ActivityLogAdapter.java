@@ -26,7 +26,7 @@ public class ActivityLogAdapter extends ListAdapter<ActivityLog, ActivityLogAdap
     private static final DiffUtil.ItemCallback<ActivityLog> DIFF_CALLBACK = new DiffUtil.ItemCallback<ActivityLog>() {
         @Override
         public boolean areItemsTheSame(@NonNull ActivityLog oldItem, @NonNull ActivityLog newItem) {
-            return oldItem.getId() == newItem.getId();
+            return oldItem.getSeq() == newItem.getSeq();
         }
 
         @Override
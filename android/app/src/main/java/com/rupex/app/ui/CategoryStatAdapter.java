@@ -67,7 +67,13 @@ public class CategoryStatAdapter extends ListAdapter<CategoryStat, CategoryStatA
         put("uncategorized", "❓");
     }};
 
+    public interface OnCategoryClickListener {
+        void onCategoryClick(CategoryStat stat);
+    }
+
     private final NumberFormat currencyFormat;
+    private Map<String, Double> budgets = new HashMap<>();
+    private OnCategoryClickListener listener;
 
     public CategoryStatAdapter() {
         super(DIFF_CALLBACK);
@@ -75,6 +81,18 @@ public class CategoryStatAdapter extends ListAdapter<CategoryStat, CategoryStatA
         currencyFormat.setMaximumFractionDigits(0);
     }
 
+    public void setOnCategoryClickListener(OnCategoryClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Monthly budget per category name, shown next to the amount spent
+     */
+    public void setBudgets(Map<String, Double> budgets) {
+        this.budgets = budgets;
+        notifyDataSetChanged();
+    }
+
     private static final DiffUtil.ItemCallback<CategoryStat> DIFF_CALLBACK =
             new DiffUtil.ItemCallback<CategoryStat>() {
                 @Override
@@ -142,8 +160,15 @@ public class CategoryStatAdapter extends ListAdapter<CategoryStat, CategoryStatA
             // Category name
             tvCategoryName.setText(stat.getCategoryName());
             
-            // Amount
-            tvAmount.setText(currencyFormat.format(stat.getTotal()));
+            // Amount, against the budget if one is set
+            Double budget = budgets.get(stat.getCategoryName());
+            tvAmount.setText(budget != null
+                    ? currencyFormat.format(stat.getTotal()) + " / " + currencyFormat.format(budget)
+                    : currencyFormat.format(stat.getTotal()));
+
+            itemView.setOnClickListener(v -> {
+                if (listener != null) listener.onCategoryClick(stat);
+            });
         }
     }
 }
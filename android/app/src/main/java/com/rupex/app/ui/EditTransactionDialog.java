@@ -22,7 +22,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
 import com.rupex.app.R;
-import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -83,16 +83,16 @@ public class EditTransactionDialog extends DialogFragment {
             new CategoryItem("Other", "📦", "#607D8B")
     };
 
-    public static EditTransactionDialog newInstance(PendingTransaction txn) {
+    public static EditTransactionDialog newInstance(PendingTransactionDao.TransactionRow txn) {
         EditTransactionDialog dialog = new EditTransactionDialog();
         Bundle args = new Bundle();
-        args.putLong(ARG_TRANSACTION_ID, txn.getId());
-        args.putString(ARG_MERCHANT, txn.getMerchant());
-        args.putDouble(ARG_AMOUNT, txn.getAmount());
-        args.putString(ARG_CURRENT_CATEGORY, txn.getCategory());
-        args.putString(ARG_CURRENT_TYPE, txn.getType());
-        args.putString(ARG_CURRENT_NOTE, txn.getNote());
-        args.putLong(ARG_TRANSACTION_DATE, txn.getTransactionAt());
+        args.putLong(ARG_TRANSACTION_ID, txn.id);
+        args.putString(ARG_MERCHANT, txn.merchant);
+        args.putDouble(ARG_AMOUNT, txn.amount);
+        args.putString(ARG_CURRENT_CATEGORY, txn.category);
+        args.putString(ARG_CURRENT_TYPE, txn.type);
+        args.putString(ARG_CURRENT_NOTE, txn.note);
+        args.putLong(ARG_TRANSACTION_DATE, txn.transactionAt);
         dialog.setArguments(args);
         return dialog;
     }
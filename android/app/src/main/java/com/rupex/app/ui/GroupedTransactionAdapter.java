@@ -8,31 +8,31 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.rupex.app.R;
-import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 /**
- * Adapter for transactions grouped by date
+ * Paged adapter for transactions grouped by date. Items are {@link PendingTransactionDao.TransactionRow}s
+ * and {@link DateGroup} headers, inserted as separators by MainViewModel.
  */
-public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+public class GroupedTransactionAdapter extends PagingDataAdapter<Object, RecyclerView.ViewHolder> {
 
     private static final int TYPE_DATE_HEADER = 0;
     private static final int TYPE_TRANSACTION = 1;
 
     public interface OnTransactionClickListener {
-        void onTransactionClick(PendingTransaction transaction);
+        void onTransactionClick(PendingTransactionDao.TransactionRow transaction);
     }
 
     // Category colors
@@ -64,49 +64,19 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
         put("uncategorized", "#9E9E9E");
     }};
 
-    private final List<Object> items = new ArrayList<>();
-    private final Map<String, DateGroup> dateGroups = new LinkedHashMap<>();
     private OnTransactionClickListener clickListener;
 
-    public void setOnTransactionClickListener(OnTransactionClickListener listener) {
-        this.clickListener = listener;
+    public GroupedTransactionAdapter() {
+        super(DIFF_CALLBACK);
     }
 
-    public void submitList(List<PendingTransaction> transactions) {
-        items.clear();
-        dateGroups.clear();
-
-        if (transactions == null || transactions.isEmpty()) {
-            notifyDataSetChanged();
-            return;
-        }
-
-        // Group transactions by date
-        SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        
-        for (PendingTransaction txn : transactions) {
-            String dateKey = dateKeyFormat.format(new Date(txn.getTransactionAt()));
-            
-            DateGroup group = dateGroups.get(dateKey);
-            if (group == null) {
-                group = new DateGroup(txn.getTransactionAt());
-                dateGroups.put(dateKey, group);
-            }
-            group.addTransaction(txn);
-        }
-
-        // Build flat list with headers
-        for (DateGroup group : dateGroups.values()) {
-            items.add(group); // Header
-            items.addAll(group.transactions); // Transactions
-        }
-
-        notifyDataSetChanged();
+    public void setOnTransactionClickListener(OnTransactionClickListener listener) {
+        this.clickListener = listener;
     }
 
     @Override
     public int getItemViewType(int position) {
-        return items.get(position) instanceof DateGroup ? TYPE_DATE_HEADER : TYPE_TRANSACTION;
+        return peek(position) instanceof DateGroup ? TYPE_DATE_HEADER : TYPE_TRANSACTION;
     }
 
     @NonNull
@@ -124,10 +94,11 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        if (holder instanceof DateHeaderViewHolder) {
-            ((DateHeaderViewHolder) holder).bind((DateGroup) items.get(position));
-        } else if (holder instanceof TransactionViewHolder) {
-            PendingTransaction txn = (PendingTransaction) items.get(position);
+        Object item = getItem(position); // Also tells the pager which part of the list is in view
+        if (holder instanceof DateHeaderViewHolder && item instanceof DateGroup) {
+            ((DateHeaderViewHolder) holder).bind((DateGroup) item);
+        } else if (holder instanceof TransactionViewHolder && item instanceof PendingTransactionDao.TransactionRow) {
+            PendingTransactionDao.TransactionRow txn = (PendingTransactionDao.TransactionRow) item;
             ((TransactionViewHolder) holder).bind(txn);
             holder.itemView.setOnClickListener(v -> {
                 if (clickListener != null) {
@@ -136,39 +107,22 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
             });
         }
     }
-
-    @Override
-    public int getItemCount() {
-        return items.size();
-    }
-    
-    /**
-     * Get item at position (can be DateGroup or PendingTransaction)
-     */
-    public Object getItemAt(int position) {
-        if (position >= 0 && position < items.size()) {
-            return items.get(position);
-        }
-        return null;
-    }
     
     /**
      * Check if item at position is a transaction (not a date header)
      */
     public boolean isTransaction(int position) {
-        if (position >= 0 && position < items.size()) {
-            return items.get(position) instanceof PendingTransaction;
-        }
-        return false;
+        return getTransactionAt(position) != null;
     }
     
     /**
-     * Get transaction at position (returns null if it's a date header)
+     * Get transaction at position (returns null if it's a date header or not loaded)
      */
-    public PendingTransaction getTransactionAt(int position) {
-        Object item = getItemAt(position);
-        if (item instanceof PendingTransaction) {
-            return (PendingTransaction) item;
+    public PendingTransactionDao.TransactionRow getTransactionAt(int position) {
+        if (position < 0 || position >= getItemCount()) return null;
+        Object item = peek(position);
+        if (item instanceof PendingTransactionDao.TransactionRow) {
+            return (PendingTransactionDao.TransactionRow) item;
         }
         return null;
     }
@@ -181,25 +135,58 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
 
     // ==================== Date Group ====================
 
-    static class DateGroup {
+    /**
+     * Header of one local day, with the day's totals (from agg_day, so they cover
+     * the whole day even when only part of it is loaded). A null total is not shown,
+     * for totals the list below does not add up to (other type, search results).
+     */
+    public static class DateGroup {
         final long timestamp;
-        final List<PendingTransaction> transactions = new ArrayList<>();
-        double totalIncome = 0;
-        double totalExpense = 0;
+        final int localDay;
+        final Double totalIncome;
+        final Double totalExpense;
 
-        DateGroup(long timestamp) {
+        public DateGroup(long timestamp, int localDay, Double totalIncome, Double totalExpense) {
             this.timestamp = timestamp;
+            this.localDay = localDay;
+            this.totalIncome = totalIncome;
+            this.totalExpense = totalExpense;
         }
+    }
 
-        void addTransaction(PendingTransaction txn) {
-            transactions.add(txn);
-            if ("income".equals(txn.getType())) {
-                totalIncome += txn.getAmount();
-            } else {
-                totalExpense += txn.getAmount();
+    private static final DiffUtil.ItemCallback<Object> DIFF_CALLBACK = new DiffUtil.ItemCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof DateGroup && newItem instanceof DateGroup) {
+                return ((DateGroup) oldItem).localDay == ((DateGroup) newItem).localDay;
+            }
+            if (oldItem instanceof PendingTransactionDao.TransactionRow
+                    && newItem instanceof PendingTransactionDao.TransactionRow) {
+                return ((PendingTransactionDao.TransactionRow) oldItem).id
+                        == ((PendingTransactionDao.TransactionRow) newItem).id;
             }
+            return false;
         }
-    }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof DateGroup) {
+                DateGroup a = (DateGroup) oldItem;
+                DateGroup b = (DateGroup) newItem;
+                return Objects.equals(a.totalIncome, b.totalIncome)
+                        && Objects.equals(a.totalExpense, b.totalExpense);
+            }
+            PendingTransactionDao.TransactionRow a = (PendingTransactionDao.TransactionRow) oldItem;
+            PendingTransactionDao.TransactionRow b = (PendingTransactionDao.TransactionRow) newItem;
+            return a.amount == b.amount
+                    && a.transactionAt == b.transactionAt
+                    && Objects.equals(a.type, b.type)
+                    && Objects.equals(a.category, b.category)
+                    && Objects.equals(a.merchant, b.merchant)
+                    && Objects.equals(a.bankName, b.bankName)
+                    && Objects.equals(a.note, b.note);
+        }
+    };
 
     // ==================== Date Header ViewHolder ====================
 
@@ -230,11 +217,17 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
             tvDayName.setText(dayNameFormat.format(date));
             tvFullDate.setText(monthYearFormat.format(date));
             
-            tvDayIncome.setText(String.format(Locale.getDefault(), "₹ %.2f", group.totalIncome));
-            tvDayExpense.setText(String.format(Locale.getDefault(), "₹ %.2f", group.totalExpense));
+            if (group.totalIncome != null) {
+                tvDayIncome.setText(String.format(Locale.getDefault(), "₹ %.2f", group.totalIncome));
+            }
+            if (group.totalExpense != null) {
+                tvDayExpense.setText(String.format(Locale.getDefault(), "₹ %.2f", group.totalExpense));
+            }
             
-            // Hide income if zero
-            tvDayIncome.setVisibility(group.totalIncome > 0 ? View.VISIBLE : View.INVISIBLE);
+            // Hide income if zero, and any total the header does not show
+            tvDayIncome.setVisibility(group.totalIncome != null && group.totalIncome > 0
+                    ? View.VISIBLE : View.INVISIBLE);
+            tvDayExpense.setVisibility(group.totalExpense != null ? View.VISIBLE : View.INVISIBLE);
         }
     }
 
@@ -258,9 +251,9 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
             tvAmount = itemView.findViewById(R.id.tvAmount);
         }
 
-        void bind(PendingTransaction txn) {
+        void bind(PendingTransactionDao.TransactionRow txn) {
             // Category tag
-            String category = txn.getCategory();
+            String category = txn.category;
             if (category == null || category.isEmpty()) {
                 category = "Other";
             }
@@ -275,17 +268,17 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
             tvCategoryTag.setBackground(bg);
 
             // Merchant name
-            String merchant = txn.getMerchant();
+            String merchant = txn.merchant;
             if (merchant == null || merchant.isEmpty()) {
-                merchant = txn.getBankName() != null ? txn.getBankName() : "Transaction";
+                merchant = txn.bankName != null ? txn.bankName : "Transaction";
             }
             tvMerchant.setText(merchant);
 
             // Time
-            tvTimeDate.setText(timeFormat.format(new Date(txn.getTransactionAt())));
+            tvTimeDate.setText(timeFormat.format(new Date(txn.transactionAt)));
 
             // Note (show if available)
-            String note = txn.getNote();
+            String note = txn.note;
             if (note != null && !note.isEmpty()) {
                 tvNote.setText(note);
                 tvNote.setVisibility(View.VISIBLE);
@@ -294,8 +287,8 @@ public class GroupedTransactionAdapter extends RecyclerView.Adapter<RecyclerView
             }
 
             // Single amount - color based on type
-            boolean isIncome = "income".equals(txn.getType());
-            tvAmount.setText(String.format(Locale.getDefault(), "₹ %.2f", txn.getAmount()));
+            boolean isIncome = "income".equals(txn.type);
+            tvAmount.setText(String.format(Locale.getDefault(), "₹ %.2f", txn.amount));
             tvAmount.setTextColor(Color.parseColor(isIncome ? "#4CAF50" : "#F44336"));
         }
     }
@@ -8,12 +8,26 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import androidx.room.InvalidationTracker;
 
+import com.rupex.app.data.local.MonthPagingSource;
 import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.AccountDao;
 import com.rupex.app.data.local.dao.ActivityLogDao;
+import com.rupex.app.data.local.dao.AggregateDao;
 import com.rupex.app.data.local.dao.PendingTransactionDao;
 import com.rupex.app.data.local.entity.ActivityLog;
+import com.rupex.app.data.local.entity.Budget;
+import com.rupex.app.data.local.entity.DayTotal;
 import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.PendingTransactionFts;
+import com.rupex.app.data.local.entity.RecurringSeries;
 import com.rupex.app.data.model.Account;
 import com.rupex.app.data.model.Category;
 import com.rupex.app.data.model.CategoryStat;
@@ -27,15 +41,30 @@ import com.rupex.app.data.remote.model.CategoryDto;
 import com.rupex.app.data.remote.model.CreateTransactionRequest;
 import com.rupex.app.data.remote.model.UpdateTransactionRequest;
 import com.rupex.app.data.remote.model.TransactionDto;
+import com.rupex.app.insights.BalanceTracker;
+import com.rupex.app.insights.BudgetTracker;
+import com.rupex.app.insights.RecurringDetector;
+import com.rupex.app.merchant.CategoryMemory;
+import com.rupex.app.merchant.MerchantMatcher;
+import com.rupex.app.merchant.MerchantResolver;
+import com.rupex.app.sync.ServerReconciler;
 import com.rupex.app.sync.SyncManager;
+import com.rupex.app.util.LocalDates;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -47,27 +76,55 @@ import retrofit2.Response;
 public class MainViewModel extends AndroidViewModel {
 
     private static final String TAG = "MainViewModel";
+
+    // Transactions on the home screen
+    private static final int RECENT_COUNT = 5;
+
+    // History paging: at most HISTORY_MAX_ITEMS rows are held, whatever the history size
+    private static final int HISTORY_PAGE_SIZE = 40;
+    private static final int HISTORY_MAX_ITEMS = 200;
+
+    // Months of stats kept in memory (the shown months and their neighbours)
+    private static final int MONTH_CACHE_SIZE = 6;
     
     private final RupexDatabase database;
     private final RupexApi api;
     
     // Local data
-    private final LiveData<List<PendingTransaction>> transactions;
+    private final LiveData<List<PendingTransactionDao.TransactionRow>> recentTransactions;
+    private final LiveData<Integer> transactionCount;
     private final LiveData<Integer> pendingCount;
     private final LiveData<Integer> notificationParsedCount;
     private final LiveData<List<ActivityLog>> activityLogs;
     private final LiveData<Double> totalBalance;
+    private final LiveData<List<AccountDao.AccountBalance>> accountBalances;
     private final LiveData<Double> totalIncome;
     private final LiveData<Double> totalExpense;
+    private final LiveData<List<RecurringSeries>> upcomingPayments;
+    private final LiveData<List<Budget>> budgets;
     private final MutableLiveData<String> syncStatus;
+    private final MutableLiveData<HistoryFilter> historyFilter;
+    private final LiveData<PagingData<Object>> history;
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor();
+
+    // Month stats, least recently used first; guarded by itself
+    private final Map<Integer, MonthStats> monthCache =
+            new LinkedHashMap<Integer, MonthStats>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, MonthStats> eldest) {
+                    return size() > MONTH_CACHE_SIZE;
+                }
+            };
+    // Bumped whenever the aggregates change, so a load that raced a write isn't cached
+    private final AtomicInteger monthCacheVersion = new AtomicInteger();
+    private final ExecutorService monthExecutor = Executors.newSingleThreadExecutor();
+    private final InvalidationTracker.Observer aggregatesObserver;
+    private final MonthView historyStats = new MonthView();
+    private final MonthView chartStats = new MonthView();
     
     // Remote data
-    private final MutableLiveData<MonthlySummary> monthlySummary;
-    private final MutableLiveData<List<CategoryStat>> categoryStats;
     private final MutableLiveData<List<Category>> categories;
     private final MutableLiveData<List<Account>> accounts;
-    
-    private String transactionFilter = "all";
 
     public MainViewModel(@NonNull Application application) {
         super(application);
@@ -76,27 +133,193 @@ public class MainViewModel extends AndroidViewModel {
         api = ApiClient.getInstance(application).getApi();
         
         // Local LiveData
-        transactions = database.pendingTransactionDao().getAllLive();
+        // List screens load only what they show
+        recentTransactions = database.pendingTransactionDao().getRecentRowsLive(RECENT_COUNT);
+        transactionCount = database.pendingTransactionDao().getCountLive();
         pendingCount = database.pendingTransactionDao().getUnsyncedCountLive();
         notificationParsedCount = database.pendingTransactionDao().getNotificationParsedCountLive();
         activityLogs = database.activityLogDao().getRecentLogs(50); // Show last 50 logs
         // Calculate balance from transactions (income - expense)
-        totalBalance = database.pendingTransactionDao().getNetBalanceLive();
-        totalIncome = database.pendingTransactionDao().getTotalIncomeLive();
-        totalExpense = database.pendingTransactionDao().getTotalExpenseLive();
+        totalBalance = database.aggregateDao().getNetLive();
+        // Real balances of accounts seen in bank SMS
+        accountBalances = database.accountDao().getBalancesLive();
+        // Summaries read the trigger-maintained aggregates, not every transaction
+        totalIncome = database.aggregateDao().getTotalLive("income");
+        totalExpense = database.aggregateDao().getTotalLive("expense");
+        // Recurring outflows due in the next 30 days (or overdue by up to 3)
+        long now = System.currentTimeMillis();
+        upcomingPayments = database.recurringSeriesDao().getUpcomingLive("expense",
+                now - TimeUnit.DAYS.toMillis(3), now + TimeUnit.DAYS.toMillis(30), 5);
+        budgets = database.budgetDao().getAllLive();
         syncStatus = new MutableLiveData<>("Ready");
+        // Transaction history of the selected month, paged, with a header per day
+        historyFilter = new MutableLiveData<>(
+                new HistoryFilter(LocalDates.yearMonth(System.currentTimeMillis()), null, null));
+        history = Transformations.switchMap(historyFilter, this::pageHistory);
+        // Cached month stats are dropped (and the shown months reloaded) on any aggregate change
+        aggregatesObserver = new InvalidationTracker.Observer("agg_month_category") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidateMonths();
+            }
+        };
+        database.getInvalidationTracker().addObserver(aggregatesObserver);
         
         // Remote LiveData
-        monthlySummary = new MutableLiveData<>();
-        categoryStats = new MutableLiveData<>();
         categories = new MutableLiveData<>();
         accounts = new MutableLiveData<>();
     }
 
     // ==================== TRANSACTIONS ====================
     
-    public LiveData<List<PendingTransaction>> getTransactions() {
-        return transactions;
+    /**
+     * The newest {@link #RECENT_COUNT} transactions
+     */
+    public LiveData<List<PendingTransactionDao.TransactionRow>> getRecentTransactions() {
+        return recentTransactions;
+    }
+
+    public LiveData<Integer> getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Paged history of the month set with {@link #setHistoryMonth(int)}, narrowed by
+     * {@link #setTransactionFilter(String)} and {@link #setHistorySearch(String)}:
+     * transactions newest first and {@link GroupedTransactionAdapter.DateGroup} headers
+     */
+    public LiveData<PagingData<Object>> getHistory() {
+        return history;
+    }
+
+    /**
+     * Select the history month (yyyyMM)
+     */
+    public void setHistoryMonth(int yearMonth) {
+        HistoryFilter current = historyFilter.getValue();
+        setHistoryFilter(new HistoryFilter(yearMonth, current.type, current.match));
+        showMonth(historyStats, yearMonth);
+    }
+
+    /**
+     * Search the history month's merchant, note, category, bank and reference ID;
+     * every word is matched as a prefix. Blank text shows the whole month.
+     */
+    public void setHistorySearch(String text) {
+        HistoryFilter current = historyFilter.getValue();
+        setHistoryFilter(new HistoryFilter(current.yearMonth, current.type,
+                PendingTransactionFts.matchQuery(text)));
+    }
+
+    /**
+     * Filter the history by type: "all", "expense" or "income"
+     */
+    public void setTransactionFilter(String filter) {
+        HistoryFilter current = historyFilter.getValue();
+        String type = "expense".equals(filter) || "income".equals(filter) ? filter : null;
+        setHistoryFilter(new HistoryFilter(current.yearMonth, type, current.match));
+    }
+
+    private void setHistoryFilter(HistoryFilter filter) {
+        if (!filter.equals(historyFilter.getValue())) {
+            historyFilter.setValue(filter);
+        }
+    }
+
+    /**
+     * Totals of the history month
+     */
+    public LiveData<MonthStats> getHistoryStats() {
+        return historyStats.stats;
+    }
+
+    // What the history shows: a month, optionally one type (null = both) and a MATCH expression
+    private static final class HistoryFilter {
+        final int yearMonth;
+        final String type;
+        final String match;
+
+        HistoryFilter(int yearMonth, String type, String match) {
+            this.yearMonth = yearMonth;
+            this.type = type;
+            this.match = match;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof HistoryFilter)) return false;
+            HistoryFilter other = (HistoryFilter) o;
+            return yearMonth == other.yearMonth && Objects.equals(type, other.type)
+                    && Objects.equals(match, other.match);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(yearMonth, type, match);
+        }
+    }
+
+    private LiveData<PagingData<Object>> pageHistory(HistoryFilter filter) {
+        // Searches start from the full-text index; the month's day range bounds them
+        int firstDay = filter.yearMonth * 100 + 1;
+        int lastDay = filter.yearMonth * 100 + 31;
+        PagingConfig config = new PagingConfig(HISTORY_PAGE_SIZE, HISTORY_PAGE_SIZE, false,
+                HISTORY_PAGE_SIZE * 2, HISTORY_MAX_ITEMS);
+        LiveData<PagingData<PendingTransactionDao.TransactionRow>> pages;
+        if (filter.match != null) {
+            // Search results are bounded by the month; Room pages them by offset
+            Pager<Integer, PendingTransactionDao.TransactionRow> pager = new Pager<>(config,
+                    () -> database.pendingTransactionDao().search(filter.match, firstDay, lastDay, filter.type));
+            pages = PagingLiveData.getLiveData(pager);
+        } else {
+            Pager<String, PendingTransactionDao.TransactionRow> pager = new Pager<>(config,
+                    () -> new MonthPagingSource(database, filter.yearMonth, filter.type));
+            pages = PagingLiveData.getLiveData(pager);
+        }
+        LiveData<PagingData<Object>> withHeaders = Transformations.map(pages, data -> {
+            // Day totals are read once per generation, for every header of the month
+            Map<Integer, double[]> dayTotals = new HashMap<>();
+            return PagingDataTransforms.insertSeparators(data, historyExecutor,
+                    (PendingTransactionDao.TransactionRow before,
+                     PendingTransactionDao.TransactionRow after) -> {
+                        if (after == null) return null;
+                        if (before != null && before.localDay == after.localDay) return null;
+                        return dateHeader(after, dayTotals, filter, firstDay, lastDay);
+                    });
+        });
+        return PagingLiveData.cachedIn(withHeaders, ViewModelKt.getViewModelScope(this));
+    }
+
+    // Header for the day of a transaction (runs on historyExecutor). The first header loads
+    // {income, expense} of every day in [firstDay, lastDay] from agg_day into dayTotals.
+    // agg_day has no notion of a search, so search headers carry no totals; a type filter
+    // keeps only that type's total.
+    private Object dateHeader(PendingTransactionDao.TransactionRow first, Map<Integer, double[]> dayTotals,
+                              HistoryFilter filter, int firstDay, int lastDay) {
+        if (filter.match != null) {
+            return new GroupedTransactionAdapter.DateGroup(first.transactionAt, first.localDay, null, null);
+        }
+        if (dayTotals.isEmpty()) {
+            for (DayTotal total : database.aggregateDao().getDayTotalsBetween(firstDay, lastDay)) {
+                double[] sums = dayTotals.get(total.getLocalDay());
+                if (sums == null) {
+                    sums = new double[2];
+                    dayTotals.put(total.getLocalDay(), sums);
+                }
+                sums["income".equals(total.getType()) ? 0 : 1] += total.getTotal();
+            }
+        }
+        double[] sums = dayTotals.get(first.localDay);
+        Double income = sums != null ? sums[0] : 0;
+        Double expense = sums != null ? sums[1] : 0;
+        if (filter.type != null) {
+            if ("income".equals(filter.type)) {
+                expense = null;
+            } else {
+                income = null;
+            }
+        }
+        return new GroupedTransactionAdapter.DateGroup(first.transactionAt, first.localDay, income, expense);
     }
 
     public LiveData<Integer> getPendingCount() {
@@ -115,6 +338,10 @@ public class MainViewModel extends AndroidViewModel {
         return totalBalance;
     }
 
+    public LiveData<List<AccountDao.AccountBalance>> getAccountBalances() {
+        return accountBalances;
+    }
+
     public LiveData<Double> getTotalIncome() {
         return totalIncome;
     }
@@ -123,15 +350,25 @@ public class MainViewModel extends AndroidViewModel {
         return totalExpense;
     }
 
+    public LiveData<List<RecurringSeries>> getUpcomingPayments() {
+        return upcomingPayments;
+    }
+
+    public LiveData<List<Budget>> getBudgets() {
+        return budgets;
+    }
+
+    /**
+     * Set a category's monthly budget (0 removes it)
+     */
+    public void setBudget(String category, double monthlyLimit) {
+        BudgetTracker.getInstance(getApplication()).setBudget(category, monthlyLimit);
+    }
+
     public LiveData<String> getSyncStatus() {
         return syncStatus;
     }
     
-    public void setTransactionFilter(String filter) {
-        this.transactionFilter = filter;
-        // In a real implementation, we'd filter the transactions
-    }
-
     public void loadTransactions() {
         updateSyncStatus();
         // Fetch transactions from backend and store locally
@@ -171,161 +408,46 @@ public class MainViewModel extends AndroidViewModel {
      */
     private void storeTransactionsLocally(List<TransactionDto> serverTransactions) {
         Executors.newSingleThreadExecutor().execute(() -> {
-            for (TransactionDto dto : serverTransactions) {
-                try {
-                    // Use server ID as hash to prevent duplicates
-                    String hash = "SERVER_" + dto.getId();
-                    
-                    // Check 1: Already exists with this server hash
-                    if (database.pendingTransactionDao().existsBySmsHash(hash)) {
-                        continue; // Skip duplicate
-                    }
-                    
-                    // Check 2: Check if there's a local transaction that matches this server transaction
-                    // Use a much longer time window (1 hour) since user might not open app for a while
-                    long txnTime = parseServerDate(dto.getTransactionAt());
-                    long oneHour = 60 * 60 * 1000;
-                    
-                    // First try to find by amount, type, AND merchant (most reliable)
-                    String serverMerchant = dto.getMerchant() != null ? dto.getMerchant() : "";
-                    PendingTransaction existing = database.pendingTransactionDao()
-                            .findDuplicate(dto.getAmount(), serverMerchant, 
-                                    txnTime - oneHour, txnTime + oneHour);
-                    
-                    if (existing != null) {
-                        // Exact match found - update with server info
-                        database.pendingTransactionDao().updateServerInfo(existing.getId(), dto.getId(), hash);
-                        Log.d(TAG, "Linked local txn (same merchant) with server ID: " + dto.getId());
-                        continue;
-                    }
-                    
-                    // Also check by amount and time only (fallback for merchant name variations)
-                    PendingTransaction existingByTime = database.pendingTransactionDao()
-                            .findDuplicateByAmountAndTime(dto.getAmount(), dto.getType(), 
-                                    txnTime - oneHour, txnTime + oneHour);
-                    
-                    if (existingByTime != null) {
-                        // Found a match by amount/time - check if merchants are similar
-                        String localMerchant = existingByTime.getMerchant();
-                        if (areMerchantsSimilar(localMerchant, serverMerchant)) {
-                            // Same transaction, different merchant name format
-                            database.pendingTransactionDao().updateServerInfo(existingByTime.getId(), dto.getId(), hash);
-                            Log.d(TAG, "Linked local txn (similar merchant) with server ID: " + dto.getId() 
-                                    + " [local: " + localMerchant + ", server: " + serverMerchant + "]");
-                            continue;
-                        } else {
-                            // Different merchant = different transaction, let it be added
-                            Log.d(TAG, "Different merchants, treat as separate: local='" + localMerchant 
-                                    + "' vs server='" + serverMerchant + "'");
-                        }
-                    }
-                    
-                    // Create new transaction only if no local match found
-                    PendingTransaction txn = new PendingTransaction();
-                    txn.setAmount(dto.getAmount());
-                    txn.setType(dto.getType());
-                    txn.setMerchant(dto.getMerchant() != null ? dto.getMerchant() : dto.getDescription());
-                    txn.setCategory(dto.getCategoryName());
-                    txn.setNote(dto.getDescription());
-                    txn.setSynced(true); // Already synced since it came from server
-                    txn.setSource(dto.getSource() != null ? dto.getSource() : "synced");
-                    txn.setSmsHash(hash);
-                    txn.setServerId(dto.getId()); // Store server ID for backend delete
-                    
-                    // Parse transaction date
-                    txn.setTransactionAt(txnTime);
-                    txn.setCreatedAt(txnTime);
-                    
-                    database.pendingTransactionDao().insert(txn);
-                    Log.d(TAG, "Stored from backend: " + dto.getMerchant() + " ₹" + dto.getAmount());
-                } catch (Exception e) {
-                    Log.e(TAG, "Error storing transaction: " + e.getMessage());
-                }
+            try {
+                // One transaction for the page: links to local captures, then inserts
+                ServerReconciler.reconcile(database, serverTransactions);
+            } catch (Exception e) {
+                Log.e(TAG, "Error storing transactions: " + e.getMessage());
             }
+            BudgetTracker.getInstance(getApplication()).checkAlerts();
+            RecurringDetector.getInstance(getApplication()).requestScan();
         });
     }
-    
-    /**
-     * Check if two merchant names are similar enough to be considered the same
-     */
-    private boolean areMerchantsSimilar(String merchant1, String merchant2) {
-        if (merchant1 == null || merchant2 == null) {
-            return false;
-        }
-        
-        String norm1 = normalizeMerchant(merchant1);
-        String norm2 = normalizeMerchant(merchant2);
-        
-        if (norm1.isEmpty() || norm2.isEmpty()) {
-            return false;
-        }
-        
-        // Exact match
-        if (norm1.equals(norm2)) {
-            return true;
-        }
-        
-        // One contains the other
-        if (norm1.contains(norm2) || norm2.contains(norm1)) {
-            return true;
-        }
-        
-        // First word match (often the first name)
-        String[] words1 = norm1.split("\\s+");
-        String[] words2 = norm2.split("\\s+");
-        if (words1.length > 0 && words2.length > 0 && 
-            words1[0].length() > 2 && words2[0].length() > 2 &&
-            words1[0].equals(words2[0])) {
-            return true;
-        }
-        
-        return false;
-    }
-    
-    private String normalizeMerchant(String merchant) {
-        if (merchant == null) return "";
-        return merchant.trim()
-                .toUpperCase()
-                .replaceAll("^(MR\\s*|MRS\\s*|MS\\s*|DR\\s*|PAYMENT TO\\s*)", "")
-                .replaceAll("[^A-Z0-9\\s]", "")
-                .trim();
-    }
-    
-    /**
-     * Parse ISO date string from server
-     */
-    private long parseServerDate(String dateStr) {
-        if (dateStr == null) return System.currentTimeMillis();
-        try {
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", java.util.Locale.US);
-            sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-            java.util.Date date = sdf.parse(dateStr);
-            return date != null ? date.getTime() : System.currentTimeMillis();
-        } catch (Exception e) {
-            return System.currentTimeMillis();
-        }
-    }
 
     /**
      * Update a transaction's category, type, note, amount, merchant, and date/time
      */
     public void updateTransaction(long transactionId, String category, String type, String note, Double amount, String merchant, Long transactionAt) {
         Executors.newSingleThreadExecutor().execute(() -> {
-            // Update local database
-            database.pendingTransactionDao().updateCategory(transactionId, category);
-            database.pendingTransactionDao().updateType(transactionId, type);
-            if (note != null) {
-                database.pendingTransactionDao().updateNote(transactionId, note);
-            }
-            if (amount != null && amount > 0) {
-                database.pendingTransactionDao().updateAmount(transactionId, amount);
-            }
-            if (merchant != null && !merchant.isEmpty()) {
-                database.pendingTransactionDao().updateMerchant(transactionId, merchant);
-            }
-            if (transactionAt != null && transactionAt > 0) {
-                database.pendingTransactionDao().updateTransactionAt(transactionId, transactionAt);
-            }
+            // Only an actual change of category is a correction worth learning from
+            PendingTransaction before = database.pendingTransactionDao().getById(transactionId);
+            boolean categoryChanged = before != null && category != null && !category.isEmpty()
+                    && !category.equals(before.getCategory());
+
+            // Update local database (one transaction, so category totals never see a half-applied edit)
+            database.runInTransaction(() -> {
+                database.pendingTransactionDao().updateCategory(transactionId, category);
+                database.pendingTransactionDao().updateType(transactionId, type);
+                if (note != null) {
+                    database.pendingTransactionDao().updateNote(transactionId, note);
+                }
+                if (amount != null && amount > 0) {
+                    database.pendingTransactionDao().updateAmount(transactionId, amount);
+                }
+                if (merchant != null && !merchant.isEmpty()) {
+                    database.pendingTransactionDao().updateMerchant(transactionId, merchant);
+                    database.pendingTransactionDao().updateMerchantId(transactionId,
+                            MerchantResolver.getInstance().resolve(database, merchant, "manual", category));
+                }
+                if (transactionAt != null && transactionAt > 0) {
+                    database.pendingTransactionDao().updateTransactionAt(transactionId, transactionAt);
+                }
+            });
             
             // Get the transaction to check if it has a server ID
             PendingTransaction txn = database.pendingTransactionDao().getById(transactionId);
@@ -333,6 +455,16 @@ public class MainViewModel extends AndroidViewModel {
                 Log.e(TAG, "Transaction not found for update: " + transactionId);
                 return;
             }
+
+            // Amount, type or date may have changed what the account's balance is
+            BalanceTracker.recompute(database, txn.getLast4Digits());
+
+            // Remember the user's choice for this merchant's future and uncategorized transactions
+            if (categoryChanged) {
+                CategoryMemory.getInstance().learn(database, txn, category);
+                CategoryMemory.getInstance().observe(txn, category);
+            }
+            BudgetTracker.getInstance(getApplication()).checkAlerts();
             
             // Check if this transaction exists on the server
             String serverId = txn.getServerId();
@@ -416,135 +548,147 @@ public class MainViewModel extends AndroidViewModel {
         syncStatus.postValue("Last sync: " + time);
     }
     
-    // ==================== MONTHLY SUMMARY ====================
-    
-    public LiveData<MonthlySummary> getMonthlySummary() {
-        return monthlySummary;
+    // ==================== MONTH STATS ====================
+
+    /**
+     * Totals and category stats of one month, from agg_month_category
+     */
+    public static class MonthStats {
+        public final int yearMonth;
+        public final MonthlySummary summary;
+        public final List<CategoryStat> expenseStats;
+        public final List<CategoryStat> incomeStats;
+
+        MonthStats(int yearMonth, MonthlySummary summary,
+                   List<CategoryStat> expenseStats, List<CategoryStat> incomeStats) {
+            this.yearMonth = yearMonth;
+            this.summary = summary;
+            this.expenseStats = expenseStats;
+            this.incomeStats = incomeStats;
+        }
+
+        public List<CategoryStat> getStats(String type) {
+            return "income".equals(type) ? incomeStats : expenseStats;
+        }
     }
-    
-    public void loadMonthlySummary() {
-        Calendar cal = Calendar.getInstance();
-        loadMonthlySummary(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1);
+
+    // A screen's selected month and the stats shown for it
+    private static class MonthView {
+        final MutableLiveData<MonthStats> stats = new MutableLiveData<>();
+        volatile int yearMonth;
     }
-    
-    public void loadMonthlySummary(int year, int month) {
-        // Load from local database using synchronous queries
-        Executors.newSingleThreadExecutor().execute(() -> {
-            double income = database.pendingTransactionDao().getTotalIncomeSync();
-            double expense = database.pendingTransactionDao().getTotalExpenseSync();
-            
-            MonthlySummary summary = new MonthlySummary(income, expense, 0);
-            monthlySummary.postValue(summary);
-        });
+
+    /**
+     * Stats of the month selected with {@link #setChartMonth(int)}
+     */
+    public LiveData<MonthStats> getChartStats() {
+        return chartStats.stats;
     }
-    
-    // ==================== CATEGORY STATS ====================
-    
-    public LiveData<List<CategoryStat>> getCategoryStats() {
-        return categoryStats;
+
+    /**
+     * Select the charts month (yyyyMM)
+     */
+    public void setChartMonth(int yearMonth) {
+        showMonth(chartStats, yearMonth);
     }
-    
-    public void loadCategoryStats(int year, int month) {
-        // Load from local database instead of API
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<PendingTransactionDao.CategoryStatResult> results = 
-                    database.pendingTransactionDao().getCategoryStatsForExpenses();
-            
-            if (results == null || results.isEmpty()) {
-                categoryStats.postValue(new ArrayList<>());
-                return;
-            }
-            
-            // Calculate total for percentage
-            double total = 0;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                total += result.total;
+
+    // Show a month, at once if cached, then prefetch the months either side of it
+    private void showMonth(MonthView view, int yearMonth) {
+        view.yearMonth = yearMonth;
+        MonthStats cached;
+        synchronized (monthCache) {
+            cached = monthCache.get(yearMonth);
+        }
+        if (cached != null && view.stats.getValue() != cached) {
+            view.stats.setValue(cached);
+        }
+        monthExecutor.execute(() -> {
+            if (cached == null) {
+                publish(view, monthStats(yearMonth));
             }
-            
-            // Convert to CategoryStat with percentage
-            List<CategoryStat> stats = new ArrayList<>();
-            int id = 1;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                double percentage = total > 0 ? (result.total / total) * 100 : 0;
-                String categoryName = result.category != null ? result.category : "Uncategorized";
-                stats.add(new CategoryStat(id++, categoryName, result.total, percentage));
+            monthStats(LocalDates.addMonths(yearMonth, -1));
+            int next = LocalDates.addMonths(yearMonth, 1);
+            if (next <= LocalDates.yearMonth(System.currentTimeMillis())) {
+                monthStats(next);
             }
-            
-            categoryStats.postValue(stats);
         });
     }
-    
-    public void loadCategoryStatsForType(String type) {
-        // Load from local database for specific type (expense or income)
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<PendingTransactionDao.CategoryStatResult> results;
-            if ("income".equals(type)) {
-                results = database.pendingTransactionDao().getCategoryStatsForIncome();
-            } else {
-                results = database.pendingTransactionDao().getCategoryStatsForExpenses();
-            }
-            
-            if (results == null || results.isEmpty()) {
-                categoryStats.postValue(new ArrayList<>());
-                return;
-            }
-            
-            // Calculate total for percentage
-            double total = 0;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                total += result.total;
-            }
-            
-            // Convert to CategoryStat with percentage
-            List<CategoryStat> stats = new ArrayList<>();
-            int id = 1;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                double percentage = total > 0 ? (result.total / total) * 100 : 0;
-                String categoryName = result.category != null ? result.category : "Uncategorized";
-                stats.add(new CategoryStat(id++, categoryName, result.total, percentage));
+
+    // Post stats unless the view has moved to another month meanwhile
+    private void publish(MonthView view, MonthStats stats) {
+        if (view.yearMonth == stats.yearMonth) {
+            view.stats.postValue(stats);
+        }
+    }
+
+    // Cached stats of a month, loading them on a miss (runs on monthExecutor)
+    private MonthStats monthStats(int yearMonth) {
+        synchronized (monthCache) {
+            MonthStats cached = monthCache.get(yearMonth);
+            if (cached != null) return cached;
+        }
+        int version = monthCacheVersion.get();
+        MonthStats stats = database.runInTransaction(() -> loadMonth(yearMonth));
+        synchronized (monthCache) {
+            if (version == monthCacheVersion.get()) {
+                monthCache.put(yearMonth, stats);
             }
-            
-            categoryStats.postValue(stats);
-        });
+        }
+        return stats;
     }
-    
-    public void loadCategoryStatsForType(String type, int year, int month) {
-        // Load from local database for specific type (expense or income) filtered by month
-        Executors.newSingleThreadExecutor().execute(() -> {
-            String yearStr = String.valueOf(year);
-            String monthStr = String.format("%02d", month); // Pad with leading zero
-            
-            List<PendingTransactionDao.CategoryStatResult> results;
-            if ("income".equals(type)) {
-                results = database.pendingTransactionDao().getCategoryStatsForIncomeByMonth(yearStr, monthStr);
+
+    private MonthStats loadMonth(int yearMonth) {
+        AggregateDao dao = database.aggregateDao();
+        double income = 0;
+        double expense = 0;
+        int count = 0;
+        for (AggregateDao.TypeTotal total : dao.getMonthTotals(yearMonth)) {
+            if ("income".equals(total.type)) {
+                income += total.total;
             } else {
-                results = database.pendingTransactionDao().getCategoryStatsForExpensesByMonth(yearStr, monthStr);
+                expense += total.total;
             }
-            
-            if (results == null || results.isEmpty()) {
-                categoryStats.postValue(new ArrayList<>());
-                return;
-            }
-            
-            // Calculate total for percentage
-            double total = 0;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                total += result.total;
-            }
-            
-            // Convert to CategoryStat with percentage
-            List<CategoryStat> stats = new ArrayList<>();
-            int id = 1;
-            for (PendingTransactionDao.CategoryStatResult result : results) {
-                double percentage = total > 0 ? (result.total / total) * 100 : 0;
-                String categoryName = result.category != null ? result.category : "Uncategorized";
-                stats.add(new CategoryStat(id++, categoryName, result.total, percentage));
+            count += total.count;
+        }
+        return new MonthStats(yearMonth, new MonthlySummary(income, expense, count),
+                toCategoryStats(dao.getCategoryStatsByMonth("expense", yearMonth)),
+                toCategoryStats(dao.getCategoryStatsByMonth("income", yearMonth)));
+    }
+
+    private static List<CategoryStat> toCategoryStats(List<AggregateDao.CategoryStatResult> results) {
+        // Calculate total for percentage
+        double total = 0;
+        for (AggregateDao.CategoryStatResult result : results) {
+            total += result.total;
+        }
+
+        // Convert to CategoryStat with percentage
+        List<CategoryStat> stats = new ArrayList<>();
+        int id = 1;
+        for (AggregateDao.CategoryStatResult result : results) {
+            double percentage = total > 0 ? (result.total / total) * 100 : 0;
+            String categoryName = result.category != null ? result.category : "Uncategorized";
+            stats.add(new CategoryStat(id++, categoryName, result.total, percentage));
+        }
+        return stats;
+    }
+
+    // Drop the cached months and reload the shown ones (called after any aggregate change)
+    private void invalidateMonths() {
+        synchronized (monthCache) {
+            monthCacheVersion.incrementAndGet();
+            monthCache.clear();
+        }
+        monthExecutor.execute(() -> {
+            for (MonthView view : new MonthView[] {historyStats, chartStats}) {
+                int yearMonth = view.yearMonth;
+                if (yearMonth != 0) {
+                    publish(view, monthStats(yearMonth));
+                }
             }
-            
-            categoryStats.postValue(stats);
         });
     }
-    
+
     // ==================== CATEGORIES ====================
     
     public LiveData<List<Category>> getCategories() {
@@ -648,12 +792,20 @@ public class MainViewModel extends AndroidViewModel {
                 txn.setCreatedAt(System.currentTimeMillis());
                 txn.setSynced(false);
                 txn.setSource("manual");
+                MerchantMatcher.stamp(txn);
+                txn.setMerchantId(MerchantResolver.getInstance()
+                        .resolve(database, txn.getMerchant(), "manual", txn.getCategory()));
                 String hash = "MANUAL_" + System.currentTimeMillis() + "_" + amount + "_" + description.hashCode();
                 txn.setSmsHash(hash);
                 
                 Log.d(TAG, "Inserting transaction: " + txn.getMerchant() + " amount=" + txn.getAmount());
-                database.pendingTransactionDao().insert(txn);
+                if (database.pendingTransactionDao().insert(txn) != -1) {
+                    // A category picked by hand is a labeled example; train once, on the stored row
+                    CategoryMemory.getInstance().observe(txn, txn.getCategory());
+                }
                 Log.d(TAG, "Transaction inserted successfully!");
+                BudgetTracker.getInstance(getApplication()).checkAlerts();
+                RecurringDetector.getInstance(getApplication()).requestScan();
             } catch (Exception e) {
                 Log.e(TAG, "Error inserting transaction: " + e.getMessage(), e);
             }
@@ -689,7 +841,6 @@ public class MainViewModel extends AndroidViewModel {
                             Log.d(TAG, "Updated local transaction with server ID: " + serverTxn.getId());
                         }
                     });
-                    loadMonthlySummary();
                 }
             }
             
@@ -730,6 +881,8 @@ public class MainViewModel extends AndroidViewModel {
             // Delete from local database first
             database.pendingTransactionDao().deleteById(transaction.getId());
             Log.d(TAG, "Deleted from local DB: " + transaction.getId());
+            BalanceTracker.recompute(database, transaction.getLast4Digits());
+            BudgetTracker.getInstance(getApplication()).checkAlerts();
             
             // Get server ID from either serverId field or extract from smsHash
             String serverId = transaction.getServerId();
@@ -780,4 +933,12 @@ public class MainViewModel extends AndroidViewModel {
     public PendingTransaction getTransactionById(long id) {
         return database.pendingTransactionDao().getById(id);
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        database.getInvalidationTracker().removeObserver(aggregatesObserver);
+        historyExecutor.shutdown();
+        monthExecutor.shutdown();
+    }
 }
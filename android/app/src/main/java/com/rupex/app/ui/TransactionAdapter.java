@@ -10,7 +10,7 @@ import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.rupex.app.R;
-import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
 import com.rupex.app.databinding.ItemTransactionBinding;
 
 import java.text.SimpleDateFormat;
@@ -22,10 +22,11 @@ import java.util.Map;
 /**
  * RecyclerView adapter for transactions
  */
-public class TransactionAdapter extends ListAdapter<PendingTransaction, TransactionAdapter.ViewHolder> {
+public class TransactionAdapter
+        extends ListAdapter<PendingTransactionDao.TransactionRow, TransactionAdapter.ViewHolder> {
 
     public interface OnTransactionClickListener {
-        void onTransactionClick(PendingTransaction transaction);
+        void onTransactionClick(PendingTransactionDao.TransactionRow transaction);
     }
 
     private static final SimpleDateFormat DATE_FORMAT = 
@@ -66,24 +67,24 @@ public class TransactionAdapter extends ListAdapter<PendingTransaction, Transact
         this.clickListener = listener;
     }
 
-    private static final DiffUtil.ItemCallback<PendingTransaction> DIFF_CALLBACK = 
-            new DiffUtil.ItemCallback<PendingTransaction>() {
+    private static final DiffUtil.ItemCallback<PendingTransactionDao.TransactionRow> DIFF_CALLBACK = 
+            new DiffUtil.ItemCallback<PendingTransactionDao.TransactionRow>() {
         @Override
-        public boolean areItemsTheSame(@NonNull PendingTransaction oldItem, 
-                                       @NonNull PendingTransaction newItem) {
-            return oldItem.getId() == newItem.getId();
+        public boolean areItemsTheSame(@NonNull PendingTransactionDao.TransactionRow oldItem, 
+                                       @NonNull PendingTransactionDao.TransactionRow newItem) {
+            return oldItem.id == newItem.id;
         }
 
         @Override
-        public boolean areContentsTheSame(@NonNull PendingTransaction oldItem, 
-                                          @NonNull PendingTransaction newItem) {
-            return oldItem.getAmount() == newItem.getAmount()
-                    && oldItem.getType().equals(newItem.getType())
-                    && oldItem.isSynced() == newItem.isSynced()
-                    && (oldItem.getCategory() == null ? newItem.getCategory() == null 
-                        : oldItem.getCategory().equals(newItem.getCategory()))
-                    && (oldItem.getNote() == null ? newItem.getNote() == null
-                        : oldItem.getNote().equals(newItem.getNote()));
+        public boolean areContentsTheSame(@NonNull PendingTransactionDao.TransactionRow oldItem, 
+                                          @NonNull PendingTransactionDao.TransactionRow newItem) {
+            return oldItem.amount == newItem.amount
+                    && oldItem.type.equals(newItem.type)
+                    && oldItem.synced == newItem.synced
+                    && (oldItem.category == null ? newItem.category == null 
+                        : oldItem.category.equals(newItem.category))
+                    && (oldItem.note == null ? newItem.note == null
+                        : oldItem.note.equals(newItem.note));
         }
     };
 
@@ -98,7 +99,7 @@ public class TransactionAdapter extends ListAdapter<PendingTransaction, Transact
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        PendingTransaction transaction = getItem(position);
+        PendingTransactionDao.TransactionRow transaction = getItem(position);
         holder.bind(transaction);
         holder.itemView.setOnClickListener(v -> {
             if (clickListener != null) {
@@ -121,16 +122,16 @@ public class TransactionAdapter extends ListAdapter<PendingTransaction, Transact
             this.binding = binding;
         }
 
-        void bind(PendingTransaction transaction) {
+        void bind(PendingTransactionDao.TransactionRow transaction) {
             // Amount with sign and color
             String amountText;
             int amountColor;
             
-            if ("income".equals(transaction.getType())) {
-                amountText = String.format(Locale.getDefault(), "+₹%.0f", transaction.getAmount());
+            if ("income".equals(transaction.type)) {
+                amountText = String.format(Locale.getDefault(), "+₹%.0f", transaction.amount);
                 amountColor = binding.getRoot().getContext().getColor(R.color.income);
             } else {
-                amountText = String.format(Locale.getDefault(), "-₹%.0f", transaction.getAmount());
+                amountText = String.format(Locale.getDefault(), "-₹%.0f", transaction.amount);
                 amountColor = binding.getRoot().getContext().getColor(R.color.expense);
             }
             
@@ -138,21 +139,21 @@ public class TransactionAdapter extends ListAdapter<PendingTransaction, Transact
             binding.textAmount.setTextColor(amountColor);
 
             // Merchant or bank name
-            String title = transaction.getMerchant();
+            String title = transaction.merchant;
             if (title == null || title.isEmpty()) {
-                title = transaction.getBankName();
+                title = transaction.bankName;
             }
             if (title == null || title.isEmpty()) {
-                title = transaction.getType().equals("income") ? "Income" : "Expense";
+                title = transaction.type.equals("income") ? "Income" : "Expense";
             }
             binding.textMerchant.setText(title);
 
             // Date and time
-            String dateText = DATE_FORMAT.format(new Date(transaction.getTransactionAt()));
+            String dateText = DATE_FORMAT.format(new Date(transaction.transactionAt));
             binding.textDate.setText(dateText);
 
             // Category icon
-            String category = transaction.getCategory();
+            String category = transaction.category;
             binding.tvCategoryIcon.setText(getCategoryIcon(category));
             
             // Category chip
@@ -164,7 +165,7 @@ public class TransactionAdapter extends ListAdapter<PendingTransaction, Transact
             }
 
             // Note (if exists)
-            String note = transaction.getNote();
+            String note = transaction.note;
             if (note != null && !note.isEmpty()) {
                 binding.tvNote.setText("📝 " + note);
                 binding.tvNote.setVisibility(View.VISIBLE);
@@ -2,9 +2,11 @@ package com.rupex.app.ui.fragment;
 
 import android.graphics.Color;
 import android.os.Bundle;
+import android.text.InputType;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -24,10 +26,13 @@ import com.github.mikephil.charting.data.PieEntry;
 import com.github.mikephil.charting.formatter.PercentFormatter;
 import com.github.mikephil.charting.highlight.Highlight;
 import com.github.mikephil.charting.listener.OnChartValueSelectedListener;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.rupex.app.R;
+import com.rupex.app.data.local.entity.Budget;
 import com.rupex.app.data.model.CategoryStat;
 import com.rupex.app.ui.CategoryStatAdapter;
 import com.rupex.app.ui.MainViewModel;
+import com.rupex.app.util.LocalDates;
 
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
@@ -80,7 +85,9 @@ public class ChartsFragment extends Fragment {
         put("uncategorized", "❓");
     }};
     
+    private MainViewModel.MonthStats monthStats;
     private List<CategoryStat> currentStats = new ArrayList<>();
+    private Map<String, Double> budgets = new HashMap<>();
 
     public ChartsFragment() {
         currencyFormat = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
@@ -128,7 +135,8 @@ public class ChartsFragment extends Fragment {
             if (!showingExpenses) {
                 showingExpenses = true;
                 updateTabState();
-                loadCategoryStats();
+                categoryAdapter.setBudgets(budgets);
+                showCategoryStats();
             }
         });
         
@@ -136,7 +144,8 @@ public class ChartsFragment extends Fragment {
             if (showingExpenses) {
                 showingExpenses = false;
                 updateTabState();
-                loadCategoryStats();
+                categoryAdapter.setBudgets(new HashMap<>());
+                showCategoryStats();
             }
         });
     }
@@ -155,10 +164,21 @@ public class ChartsFragment extends Fragment {
         }
     }
     
-    private void loadCategoryStats() {
-        int year = currentMonth.get(Calendar.YEAR);
-        int month = currentMonth.get(Calendar.MONTH) + 1;
-        viewModel.loadCategoryStatsForType(showingExpenses ? "expense" : "income", year, month);
+    // Show the selected tab's categories of the loaded month
+    private void showCategoryStats() {
+        if (monthStats == null) return;
+        List<CategoryStat> stats = monthStats.getStats(showingExpenses ? "expense" : "income");
+        if (!stats.isEmpty()) {
+            currentStats = stats;
+            updatePieChart(stats);
+            categoryAdapter.submitList(stats);
+            updateCenterText();
+        } else {
+            currentStats = new ArrayList<>();
+            pieChart.clear();
+            updateCenterText();
+            categoryAdapter.submitList(new ArrayList<>());
+        }
     }
 
     private void setupPieChart() {
@@ -216,11 +236,38 @@ public class ChartsFragment extends Fragment {
 
     private void setupRecyclerView() {
         categoryAdapter = new CategoryStatAdapter();
+        categoryAdapter.setOnCategoryClickListener(stat -> {
+            if (showingExpenses) showBudgetDialog(stat.getCategoryName());
+        });
         recyclerCategories.setLayoutManager(new LinearLayoutManager(requireContext()));
         recyclerCategories.setAdapter(categoryAdapter);
         recyclerCategories.setNestedScrollingEnabled(false);
     }
 
+    private void showBudgetDialog(String category) {
+        EditText input = new EditText(requireContext());
+        input.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+        input.setHint("Monthly limit");
+        Double current = budgets.get(category);
+        if (current != null) {
+            input.setText(String.format(Locale.US, "%.0f", current));
+        }
+
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle(category + " budget")
+                .setView(input)
+                .setNegativeButton("Cancel", null)
+                .setNeutralButton("Remove", (dialog, which) -> viewModel.setBudget(category, 0))
+                .setPositiveButton("Save", (dialog, which) -> {
+                    try {
+                        viewModel.setBudget(category, Double.parseDouble(input.getText().toString().trim()));
+                    } catch (NumberFormatException e) {
+                        // Empty or invalid - keep the current budget
+                    }
+                })
+                .show();
+    }
+
     private void setupNavigation() {
         btnPrevMonth.setOnClickListener(v -> {
             currentMonth.add(Calendar.MONTH, -1);
@@ -241,31 +288,27 @@ public class ChartsFragment extends Fragment {
     private void setupViewModel() {
         viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
 
-        // Observe category stats
-        viewModel.getCategoryStats().observe(getViewLifecycleOwner(), stats -> {
-            if (stats != null && !stats.isEmpty()) {
-                currentStats = stats;
-                updatePieChart(stats);
-                categoryAdapter.submitList(stats);
-                updateCenterText();
-            } else {
-                currentStats = new ArrayList<>();
-                pieChart.clear();
-                pieChart.setCenterText("No expenses");
-                categoryAdapter.submitList(new ArrayList<>());
+        // Observe the selected month's totals and category stats (cached per month)
+        viewModel.getChartStats().observe(getViewLifecycleOwner(), stats -> {
+            if (stats == null || stats.yearMonth != LocalDates.yearMonth(currentMonth)) return;
+            monthStats = stats;
+            tvTotalIncome.setText(currencyFormat.format(stats.summary.getIncome()));
+            tvTotalExpenses.setText(currencyFormat.format(stats.summary.getExpenses()));
+            if (tvSavings != null) {
+                tvSavings.setText(currencyFormat.format(stats.summary.getNetSavings()));
             }
+            showCategoryStats();
         });
 
-        // Observe monthly summary
-        viewModel.getMonthlySummary().observe(getViewLifecycleOwner(), summary -> {
-            if (summary != null) {
-                tvTotalIncome.setText(currencyFormat.format(summary.getIncome()));
-                tvTotalExpenses.setText(currencyFormat.format(summary.getExpenses()));
-                if (tvSavings != null) {
-                    double savings = summary.getIncome() - summary.getExpenses();
-                    tvSavings.setText(currencyFormat.format(savings));
+        // Observe budgets (shown against the expense categories)
+        viewModel.getBudgets().observe(getViewLifecycleOwner(), list -> {
+            budgets = new HashMap<>();
+            if (list != null) {
+                for (Budget budget : list) {
+                    budgets.put(budget.getCategory(), budget.getMonthlyLimit());
                 }
             }
+            categoryAdapter.setBudgets(showingExpenses ? budgets : new HashMap<>());
         });
     }
 
@@ -309,10 +352,7 @@ public class ChartsFragment extends Fragment {
     }
 
     private void loadData() {
-        int year = currentMonth.get(Calendar.YEAR);
-        int month = currentMonth.get(Calendar.MONTH) + 1;
-        viewModel.loadMonthlySummary(year, month);
-        loadCategoryStats();
+        viewModel.setChartMonth(LocalDates.yearMonth(currentMonth));
     }
 
     @Override
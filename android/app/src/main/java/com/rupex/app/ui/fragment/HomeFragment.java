@@ -4,6 +4,7 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -15,11 +16,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.rupex.app.R;
-import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.dao.AccountDao;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.RecurringSeries;
 import com.rupex.app.ui.EditTransactionDialog;
 import com.rupex.app.ui.TransactionAdapter;
 import com.rupex.app.ui.MainViewModel;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * Home fragment showing balance summary and recent transactions
  */
@@ -29,10 +37,16 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
     private TransactionAdapter adapter;
     
     private TextView tvTotalBalance;
+    private TextView tvBalanceNote;
     private TextView tvIncome;
     private TextView tvExpense;
     private RecyclerView recyclerRecent;
     private View layoutEmpty;
+    private View upcomingSection;
+    private LinearLayout upcomingList;
+
+    // Bank-reported balances; income minus expense is shown only until one is known
+    private boolean hasAccountBalances;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -45,10 +59,13 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
         
         // Initialize views
         tvTotalBalance = view.findViewById(R.id.tvTotalBalance);
+        tvBalanceNote = view.findViewById(R.id.tvBalanceNote);
         tvIncome = view.findViewById(R.id.tvIncome);
         tvExpense = view.findViewById(R.id.tvExpense);
         recyclerRecent = view.findViewById(R.id.rvRecentTransactions);
         layoutEmpty = view.findViewById(R.id.emptyState);
+        upcomingSection = view.findViewById(R.id.upcomingSection);
+        upcomingList = view.findViewById(R.id.upcomingList);
 
         setupRecyclerView();
         setupViewModel();
@@ -62,7 +79,7 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
         recyclerRecent.setNestedScrollingEnabled(false);
     }
 
-    private void showEditDialog(PendingTransaction transaction) {
+    private void showEditDialog(PendingTransactionDao.TransactionRow transaction) {
         EditTransactionDialog dialog = EditTransactionDialog.newInstance(transaction);
         dialog.show(getChildFragmentManager(), "edit_transaction");
     }
@@ -76,12 +93,10 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
     private void setupViewModel() {
         viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
 
-        // Observe transactions (show only recent 5)
-        viewModel.getTransactions().observe(getViewLifecycleOwner(), transactions -> {
+        // Observe the most recent transactions
+        viewModel.getRecentTransactions().observe(getViewLifecycleOwner(), transactions -> {
             if (transactions != null && !transactions.isEmpty()) {
-                // Show only last 5 transactions
-                int count = Math.min(transactions.size(), 5);
-                adapter.submitList(transactions.subList(0, count));
+                adapter.submitList(transactions);
                 recyclerRecent.setVisibility(View.VISIBLE);
                 layoutEmpty.setVisibility(View.GONE);
             } else {
@@ -90,9 +105,12 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
             }
         });
 
-        // Observe total balance
+        // Observe account balances (from bank SMS)
+        viewModel.getAccountBalances().observe(getViewLifecycleOwner(), this::showAccountBalances);
+
+        // Observe total balance (income - expense), until an account balance is known
         viewModel.getTotalBalance().observe(getViewLifecycleOwner(), balance -> {
-            if (balance != null) {
+            if (balance != null && !hasAccountBalances) {
                 tvTotalBalance.setText(String.format("₹%.2f", balance));
             }
         });
@@ -110,6 +128,71 @@ public class HomeFragment extends Fragment implements EditTransactionDialog.OnTr
                 tvExpense.setText(String.format("₹%.0f", expense));
             }
         });
+
+        // Observe upcoming recurring payments
+        viewModel.getUpcomingPayments().observe(getViewLifecycleOwner(), this::showUpcomingPayments);
+    }
+
+    private void showAccountBalances(List<AccountDao.AccountBalance> accounts) {
+        hasAccountBalances = accounts != null && !accounts.isEmpty();
+        if (!hasAccountBalances) {
+            tvBalanceNote.setVisibility(View.GONE);
+            Double net = viewModel.getTotalBalance().getValue();
+            if (net != null) tvTotalBalance.setText(String.format("₹%.2f", net));
+            return;
+        }
+
+        double total = 0;
+        AccountDao.AccountBalance drifted = null;
+        for (AccountDao.AccountBalance account : accounts) {
+            total += account.balance;
+            if (account.drift != 0 && drifted == null) drifted = account;
+        }
+        tvTotalBalance.setText(String.format("₹%.2f", total));
+
+        if (drifted != null) {
+            // Bank balance didn't match the transactions we captured (e.g. a missed SMS)
+            tvBalanceNote.setText(String.format(Locale.getDefault(), "••%s differs from captured transactions by ₹%.0f",
+                    drifted.last4Digits, Math.abs(drifted.drift)));
+        } else {
+            tvBalanceNote.setText(accounts.size() == 1
+                    ? "From " + accounts.get(0).name
+                    : "Across " + accounts.size() + " accounts");
+        }
+        tvBalanceNote.setVisibility(View.VISIBLE);
+    }
+
+    private void showUpcomingPayments(List<RecurringSeries> upcoming) {
+        upcomingList.removeAllViews();
+        if (upcoming == null || upcoming.isEmpty()) {
+            upcomingSection.setVisibility(View.GONE);
+            return;
+        }
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM", Locale.getDefault());
+        LayoutInflater inflater = LayoutInflater.from(requireContext());
+        for (RecurringSeries series : upcoming) {
+            View row = inflater.inflate(R.layout.item_upcoming_payment, upcomingList, false);
+            ((TextView) row.findViewById(R.id.text_merchant)).setText(series.getMerchant());
+            ((TextView) row.findViewById(R.id.text_due)).setText("Due "
+                    + dateFormat.format(new Date(series.getNextExpectedAt())) + " · " + periodLabel(series.getPeriodDays()));
+            ((TextView) row.findViewById(R.id.text_amount)).setText(
+                    String.format(Locale.getDefault(), "₹%.0f", series.getAmount()));
+            upcomingList.addView(row);
+        }
+        upcomingSection.setVisibility(View.VISIBLE);
+    }
+
+    private static String periodLabel(int periodDays) {
+        switch (periodDays) {
+            case 7: return "Weekly";
+            case 14: return "Fortnightly";
+            case 30: return "Monthly";
+            case 91: return "Quarterly";
+            case 182: return "Half-yearly";
+            case 365: return "Yearly";
+            default: return "Every " + periodDays + " days";
+        }
     }
 
     @Override
@@ -134,9 +134,9 @@ public class ProfileFragment extends Fragment {
         viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
 
         // Observe transaction count
-        viewModel.getTransactions().observe(getViewLifecycleOwner(), transactions -> {
-            if (transactions != null) {
-                tvTotalTransactions.setText(String.valueOf(transactions.size()));
+        viewModel.getTransactionCount().observe(getViewLifecycleOwner(), count -> {
+            if (count != null) {
+                tvTotalTransactions.setText(String.valueOf(count));
             }
         });
 
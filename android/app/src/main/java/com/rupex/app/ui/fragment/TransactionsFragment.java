@@ -5,9 +5,12 @@ import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -17,6 +20,7 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -26,17 +30,20 @@ import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.snackbar.Snackbar;
 import com.rupex.app.R;
-import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.model.MonthlySummary;
 import com.rupex.app.ui.EditTransactionDialog;
 import com.rupex.app.ui.GroupedTransactionAdapter;
 import com.rupex.app.ui.MainViewModel;
+import com.rupex.app.util.LocalDates;
 
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
-import java.util.List;
 import java.util.Locale;
 
+import kotlin.Unit;
+
 /**
  * Fragment showing full transaction history with date grouping
  */
@@ -49,6 +56,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
     private RecyclerView recyclerTransactions;
     private ChipGroup chipFilter;
     private View layoutEmpty;
+    private EditText etSearch;
     
     private TextView tvMonth;
     private TextView tvSummaryIncome;
@@ -84,6 +92,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         recyclerTransactions = view.findViewById(R.id.rvTransactions);
         chipFilter = view.findViewById(R.id.chipGroup);
         layoutEmpty = view.findViewById(R.id.emptyState);
+        etSearch = view.findViewById(R.id.etSearch);
         
         tvMonth = view.findViewById(R.id.tvMonth);
         tvSummaryIncome = view.findViewById(R.id.tvSummaryIncome);
@@ -137,7 +146,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
             @Override
             public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
                 int position = viewHolder.getAdapterPosition();
-                PendingTransaction transaction = adapter.getTransactionAt(position);
+                PendingTransactionDao.TransactionRow transaction = adapter.getTransactionAt(position);
                 
                 if (transaction != null) {
                     showDeleteConfirmation(transaction);
@@ -187,15 +196,15 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         new ItemTouchHelper(swipeCallback).attachToRecyclerView(recyclerTransactions);
     }
     
-    private void showDeleteConfirmation(PendingTransaction transaction) {
-        String merchant = transaction.getMerchant();
+    private void showDeleteConfirmation(PendingTransactionDao.TransactionRow transaction) {
+        String merchant = transaction.merchant;
         if (merchant == null || merchant.isEmpty()) {
-            merchant = transaction.getBankName();
+            merchant = transaction.bankName;
         }
         
         String message = String.format(Locale.getDefault(),
                 "Delete transaction of ₹%.2f to %s?", 
-                transaction.getAmount(), merchant);
+                transaction.amount, merchant);
         
         new MaterialAlertDialogBuilder(requireContext())
                 .setTitle("Delete Transaction")
@@ -207,8 +216,8 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
                 .show();
     }
     
-    private void deleteTransaction(PendingTransaction transaction) {
-        viewModel.deleteTransaction(transaction);
+    private void deleteTransaction(PendingTransactionDao.TransactionRow transaction) {
+        viewModel.deleteTransactionById(transaction.id);
         
         // Show undo snackbar
         Snackbar.make(recyclerTransactions, "Transaction deleted", Snackbar.LENGTH_LONG)
@@ -220,7 +229,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         btnPrevMonth.setOnClickListener(v -> {
             currentMonth.add(Calendar.MONTH, -1);
             updateMonthDisplay();
-            filterTransactionsByMonth();
+            viewModel.setHistoryMonth(LocalDates.yearMonth(currentMonth));
         });
 
         btnNextMonth.setOnClickListener(v -> {
@@ -228,7 +237,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
             if (currentMonth.before(now)) {
                 currentMonth.add(Calendar.MONTH, 1);
                 updateMonthDisplay();
-                filterTransactionsByMonth();
+                viewModel.setHistoryMonth(LocalDates.yearMonth(currentMonth));
             }
         });
     }
@@ -237,49 +246,7 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         tvMonth.setText(monthFormat.format(currentMonth.getTime()));
     }
     
-    private void filterTransactionsByMonth() {
-        List<PendingTransaction> allTransactions = viewModel.getTransactions().getValue();
-        if (allTransactions == null) return;
-        
-        // Get month bounds
-        Calendar start = (Calendar) currentMonth.clone();
-        start.set(Calendar.DAY_OF_MONTH, 1);
-        start.set(Calendar.HOUR_OF_DAY, 0);
-        start.set(Calendar.MINUTE, 0);
-        start.set(Calendar.SECOND, 0);
-        start.set(Calendar.MILLISECOND, 0);
-        
-        Calendar end = (Calendar) start.clone();
-        end.add(Calendar.MONTH, 1);
-        
-        long startTime = start.getTimeInMillis();
-        long endTime = end.getTimeInMillis();
-        
-        // Filter transactions
-        List<PendingTransaction> filtered = new java.util.ArrayList<>();
-        for (PendingTransaction txn : allTransactions) {
-            long txnTime = txn.getTransactionAt();
-            if (txnTime >= startTime && txnTime < endTime) {
-                filtered.add(txn);
-            }
-        }
-        
-        if (!filtered.isEmpty()) {
-            adapter.submitList(filtered);
-            recyclerTransactions.setVisibility(View.VISIBLE);
-            layoutEmpty.setVisibility(View.GONE);
-            updateSummary(filtered);
-        } else {
-            adapter.submitList(new java.util.ArrayList<>());
-            recyclerTransactions.setVisibility(View.GONE);
-            layoutEmpty.setVisibility(View.VISIBLE);
-            tvSummaryIncome.setText("₹0.00");
-            tvSummaryExpenses.setText("₹0.00");
-            tvSummaryTotal.setText("₹0.00");
-        }
-    }
-
-    private void showEditDialog(PendingTransaction transaction) {
+    private void showEditDialog(PendingTransactionDao.TransactionRow transaction) {
         EditTransactionDialog dialog = EditTransactionDialog.newInstance(transaction);
         dialog.show(getChildFragmentManager(), "edit_transaction");
     }
@@ -295,21 +262,58 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         swipeRefresh.setOnRefreshListener(() -> {
             viewModel.syncTransactions();
         });
+
+        // Search as you type (full-text index, so no debounce needed)
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                if (viewModel != null) {
+                    viewModel.setHistorySearch(s.toString());
+                }
+            }
+        });
     }
 
     private void setupViewModel() {
         viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
 
-        // Observe transactions
-        viewModel.getTransactions().observe(getViewLifecycleOwner(), transactions -> {
+        viewModel.setHistoryMonth(LocalDates.yearMonth(currentMonth));
+
+        // Observe the selected month's transactions (paged; only the visible part is loaded)
+        viewModel.getHistory().observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+
+        // Empty when the list itself loaded nothing, so a search or type filter
+        // without matches shows the empty state too
+        adapter.addLoadStateListener(loadStates -> {
+            boolean empty = loadStates.getRefresh() instanceof LoadState.NotLoading
+                    && adapter.getItemCount() == 0;
+            recyclerTransactions.setVisibility(empty ? View.GONE : View.VISIBLE);
+            layoutEmpty.setVisibility(empty ? View.VISIBLE : View.GONE);
+            return Unit.INSTANCE;
+        });
+
+        // Stop the refresh indicator once the sync finishes, even if nothing changed
+        viewModel.getSyncStatus().observe(getViewLifecycleOwner(), status -> {
+            if (status != null && !status.startsWith("Syncing")) {
+                swipeRefresh.setRefreshing(false);
+            }
+        });
+
+        // Month totals come from the aggregates (cached per month), not from the loaded pages
+        viewModel.getHistoryStats().observe(getViewLifecycleOwner(), stats -> {
+            if (stats == null || stats.yearMonth != LocalDates.yearMonth(currentMonth)) return;
             swipeRefresh.setRefreshing(false);
             
-            if (transactions != null && !transactions.isEmpty()) {
-                // Filter by current month
-                filterTransactionsByMonth();
+            if (stats.summary.getTransactionCount() > 0) {
+                updateSummary(stats.summary);
             } else {
-                recyclerTransactions.setVisibility(View.GONE);
-                layoutEmpty.setVisibility(View.VISIBLE);
                 tvSummaryIncome.setText("₹0.00");
                 tvSummaryExpenses.setText("₹0.00");
                 tvSummaryTotal.setText("₹0.00");
@@ -317,17 +321,9 @@ public class TransactionsFragment extends Fragment implements EditTransactionDia
         });
     }
     
-    private void updateSummary(List<PendingTransaction> transactions) {
-        double totalIncome = 0;
-        double totalExpense = 0;
-        
-        for (PendingTransaction txn : transactions) {
-            if ("income".equals(txn.getType())) {
-                totalIncome += txn.getAmount();
-            } else {
-                totalExpense += txn.getAmount();
-            }
-        }
+    private void updateSummary(MonthlySummary summary) {
+        double totalIncome = summary.getIncome();
+        double totalExpense = summary.getExpenses();
         
         double total = totalIncome - totalExpense;
         
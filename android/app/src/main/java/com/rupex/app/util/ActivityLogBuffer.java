@@ -0,0 +1,78 @@
+package com.rupex.app.util;
+
+import com.rupex.app.data.local.entity.ActivityLog;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for pending activity logs.
+ *
+ * Any number of threads may {@link #offer}; only the {@link ActivityLogger}
+ * flush thread calls {@link #drainTo}.
+ */
+class ActivityLogBuffer {
+
+    private final AtomicReferenceArray<ActivityLog> slots;
+    private final int mask;
+
+    // Next sequence to claim (producers) and next sequence to read (consumer)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity power of two
+     */
+    ActivityLogBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return false if the buffer is full (the log is dropped)
+     */
+    boolean offer(ActivityLog log) {
+        while (true) {
+            long seq = head.get();
+            if (seq - tail.get() > mask) {
+                return false;
+            }
+            if (head.compareAndSet(seq, seq + 1)) {
+                slots.set((int) (seq & mask), log);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Move every published log into {@code out}, oldest first
+     *
+     * @return number of logs drained
+     */
+    int drainTo(List<ActivityLog> out) {
+        long seq = tail.get();
+        long end = head.get();
+        int drained = 0;
+        while (seq < end) {
+            int index = (int) (seq & mask);
+            ActivityLog log = slots.get(index);
+            if (log == null) {
+                break; // claimed but not yet written; picked up by the next drain
+            }
+            slots.set(index, null);
+            out.add(log);
+            seq++;
+            drained++;
+        }
+        tail.set(seq);
+        return drained;
+    }
+
+    int size() {
+        return (int) (head.get() - tail.get());
+    }
+}
@@ -6,79 +6,126 @@ import android.util.Log;
 import com.rupex.app.data.local.RupexDatabase;
 import com.rupex.app.data.local.entity.ActivityLog;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Utility class for logging app activities
+ * Utility class for logging app activities.
+ *
+ * Logs are queued in a lock-free ring buffer and written to the activity_logs
+ * ring table in batches (every {@link #FLUSH_INTERVAL_MS}, or sooner once
+ * {@link #FLUSH_THRESHOLD} are pending), one transaction per batch. Bursts of
+ * captures therefore cost one write and one LiveData invalidation per flush.
  */
 public class ActivityLogger {
 
     private static final String TAG = "ActivityLogger";
-    private static final int MAX_LOGS = 100; // Keep last 100 logs
+    private static final int MAX_LOGS = ActivityLog.RING_SIZE; // Keep last 100 logs
+
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final int FLUSH_THRESHOLD = 64;
+    private static final int BUFFER_CAPACITY = 256;
+
+    private static final ActivityLogBuffer BUFFER = new ActivityLogBuffer(BUFFER_CAPACITY);
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor();
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private static final AtomicBoolean flushRequested = new AtomicBoolean();
+    private static volatile Context appContext;
 
     /**
      * Log that something was captured (SMS/Notification)
      */
     public static void logCaptured(Context context, String source, String message, Double amount, String merchant) {
-        ActivityLog log = new ActivityLog();
-        log.setType("captured");
-        log.setSource(source);
-        log.setMessage(message);
-        log.setAmount(amount);
-        log.setMerchant(merchant);
-        log.setTimestamp(System.currentTimeMillis());
-        
-        insertLog(context, log);
+        enqueue(context, newLog("captured", source, message, null, amount, merchant));
     }
 
     /**
      * Log that a transaction was added
      */
     public static void logAdded(Context context, String source, String message, Double amount, String merchant) {
-        ActivityLog log = new ActivityLog();
-        log.setType("added");
-        log.setSource(source);
-        log.setMessage(message);
-        log.setAmount(amount);
-        log.setMerchant(merchant);
-        log.setTimestamp(System.currentTimeMillis());
-        
-        insertLog(context, log);
+        enqueue(context, newLog("added", source, message, null, amount, merchant));
     }
 
     /**
      * Log that something was rejected
      */
     public static void logRejected(Context context, String source, String message, String reason, Double amount, String merchant) {
+        enqueue(context, newLog("rejected", source, message, reason, amount, merchant));
+    }
+
+    /**
+     * Queue several prebuilt logs, e.g. those collected by a {@link com.rupex.app.data.local.CaptureBatcher} batch
+     */
+    public static void logAll(Context context, List<ActivityLog> logs) {
+        for (ActivityLog log : logs) {
+            enqueue(context, log);
+        }
+    }
+
+    /**
+     * Build a log entry stamped with the current time
+     */
+    public static ActivityLog newLog(String type, String source, String message, String reason, Double amount, String merchant) {
         ActivityLog log = new ActivityLog();
-        log.setType("rejected");
+        log.setType(type);
         log.setSource(source);
         log.setMessage(message);
         log.setReason(reason);
         log.setAmount(amount);
         log.setMerchant(merchant);
         log.setTimestamp(System.currentTimeMillis());
-        
-        insertLog(context, log);
+        return log;
     }
 
-    private static void insertLog(Context context, ActivityLog log) {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                RupexDatabase db = RupexDatabase.getInstance(context);
-                db.activityLogDao().insert(log);
-                
-                // Clean up old logs (keep only last MAX_LOGS)
-                List<ActivityLog> allLogs = db.activityLogDao().getRecentLogsSync(MAX_LOGS + 50);
-                if (allLogs.size() > MAX_LOGS) {
-                    long cutoffTime = allLogs.get(MAX_LOGS - 1).getTimestamp();
-                    db.activityLogDao().deleteOldLogs(cutoffTime);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error logging activity", e);
+    private static void enqueue(Context context, ActivityLog log) {
+        if (appContext == null) {
+            appContext = context.getApplicationContext();
+        }
+        if (!BUFFER.offer(log)) {
+            Log.w(TAG, "Activity log buffer full, dropping entry");
+            return;
+        }
+
+        if (BUFFER.size() >= FLUSH_THRESHOLD) {
+            if (flushRequested.compareAndSet(false, true)) {
+                FLUSHER.execute(ActivityLogger::flush);
             }
-        });
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            FLUSHER.schedule(ActivityLogger::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
     }
-}
 
+    // Runs on FLUSHER only, so BUFFER has a single consumer
+    private static void flush() {
+        flushScheduled.set(false);
+        flushRequested.set(false);
+
+        List<ActivityLog> logs = new ArrayList<>();
+        if (BUFFER.drainTo(logs) == 0) return;
+
+        try {
+            RupexDatabase db = RupexDatabase.getInstance(appContext);
+            db.runInTransaction(() -> {
+                // Older entries of an oversized batch would be overwritten in the same flush
+                List<ActivityLog> kept = logs.size() > MAX_LOGS
+                        ? logs.subList(logs.size() - MAX_LOGS, logs.size()) : logs;
+                long seq = db.activityLogDao().getMaxSeq();
+                for (ActivityLog log : kept) {
+                    log.setSeq(++seq);
+                }
+                db.activityLogDao().insertAll(kept);
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error logging activity", e);
+        }
+
+        // Anything queued while we were writing and not yet covered by a pending flush
+        if (BUFFER.size() > 0 && flushScheduled.compareAndSet(false, true)) {
+            FLUSHER.schedule(ActivityLogger::flush, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
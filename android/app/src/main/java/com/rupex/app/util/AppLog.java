@@ -0,0 +1,214 @@
+package com.rupex.app.util;
+
+import android.util.Log;
+
+import com.rupex.app.BuildConfig;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Logging facade for hot paths (SMS / notification parsing and capture).
+ *
+ * Two gates run before any message is built:
+ *  - compile time: debug and verbose calls are dead code in release builds
+ *    ({@link #COMPILED_LEVEL}), so R8 strips them together with their arguments
+ *  - runtime: {@link #setLevel(int)}
+ *
+ * Messages are templates with {@code {}} placeholders (or a {@link MessageSupplier}),
+ * formatted only when the level is enabled. Object arguments and primitive
+ * {@code double}s are passed as-is, so a suppressed call allocates nothing.
+ *
+ * Optionally keeps the most recent messages in memory ({@link #startRecording(int)})
+ * so they can be exported for a bug report.
+ */
+public final class AppLog {
+
+    /**
+     * Lazily built message, for output that doesn't fit a template
+     */
+    public interface MessageSupplier {
+        String get();
+    }
+
+    /** Lowest level compiled in: everything in debug builds, INFO and above in release */
+    public static final int COMPILED_LEVEL = BuildConfig.DEBUG ? Log.VERBOSE : Log.INFO;
+
+    private static volatile int level = COMPILED_LEVEL;
+    private static volatile Recorder recorder;
+
+    private AppLog() {}
+
+    /**
+     * Set the runtime level (one of the {@link Log} priorities); can't go below {@link #COMPILED_LEVEL}
+     */
+    public static void setLevel(int minLevel) {
+        level = minLevel;
+    }
+
+    public static boolean isLoggable(int priority) {
+        return priority >= COMPILED_LEVEL && priority >= level;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isLoggable(Log.DEBUG);
+    }
+
+    // ============================================
+    // DEBUG
+    // ============================================
+
+    public static void d(String tag, String message) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, message);
+    }
+
+    public static void d(String tag, String template, Object arg) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, arg));
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, arg1, arg2));
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, arg1, arg2, arg3));
+    }
+
+    public static void d(String tag, String template, long value) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, value));
+    }
+
+    public static void d(String tag, String template, double amount, Object arg) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, amount, arg));
+    }
+
+    public static void d(String tag, String template, double amount, Object arg1, Object arg2) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, amount, arg1, arg2));
+    }
+
+    public static void d(String tag, String template, double amount, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, format(template, amount, arg1, arg2, arg3));
+    }
+
+    public static void d(String tag, MessageSupplier supplier) {
+        if (isDebugEnabled()) emit(Log.DEBUG, tag, supplier.get());
+    }
+
+    // ============================================
+    // INFO / WARN / ERROR
+    // ============================================
+
+    public static void i(String tag, String message) {
+        if (isLoggable(Log.INFO)) emit(Log.INFO, tag, message);
+    }
+
+    public static void i(String tag, String template, Object arg) {
+        if (isLoggable(Log.INFO)) emit(Log.INFO, tag, format(template, arg));
+    }
+
+    public static void w(String tag, String message) {
+        if (isLoggable(Log.WARN)) emit(Log.WARN, tag, message);
+    }
+
+    public static void w(String tag, String template, Object arg1, Object arg2) {
+        if (isLoggable(Log.WARN)) emit(Log.WARN, tag, format(template, arg1, arg2));
+    }
+
+    public static void w(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.WARN)) emit(Log.WARN, tag, format(template, arg1, arg2, arg3));
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        if (isLoggable(Log.ERROR)) {
+            Log.e(tag, message, error);
+            Recorder r = recorder;
+            if (r != null) r.add(Log.ERROR, tag, message + ": " + error);
+        }
+    }
+
+    // ============================================
+    // RECENT EVENTS
+    // ============================================
+
+    /**
+     * Keep the last {@code capacity} logged messages in memory
+     */
+    public static void startRecording(int capacity) {
+        recorder = new Recorder(capacity);
+    }
+
+    public static void stopRecording() {
+        recorder = null;
+    }
+
+    /**
+     * Recorded messages, oldest first, one per line (empty if not recording)
+     */
+    public static String exportRecent() {
+        Recorder r = recorder;
+        return r != null ? r.export() : "";
+    }
+
+    private static void emit(int priority, String tag, String message) {
+        Log.println(priority, tag, message);
+        Recorder r = recorder;
+        if (r != null) r.add(priority, tag, message);
+    }
+
+    /**
+     * Replace each {@code {}} in the template with the next argument
+     */
+    static String format(String template, Object... args) {
+        StringBuilder sb = new StringBuilder(template.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int brace;
+        while (argIndex < args.length && (brace = template.indexOf("{}", start)) != -1) {
+            sb.append(template, start, brace).append(args[argIndex++]);
+            start = brace + 2;
+        }
+        return sb.append(template, start, template.length()).toString();
+    }
+
+    private static class Recorder {
+        private final long[] times;
+        private final String[] lines;
+        private int next;
+        private int count;
+
+        Recorder(int capacity) {
+            times = new long[capacity];
+            lines = new String[capacity];
+        }
+
+        synchronized void add(int priority, String tag, String message) {
+            times[next] = System.currentTimeMillis();
+            lines[next] = levelChar(priority) + "/" + tag + ": " + message;
+            next = (next + 1) % lines.length;
+            if (count < lines.length) count++;
+        }
+
+        synchronized String export() {
+            SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+            StringBuilder sb = new StringBuilder();
+            int first = (next - count + lines.length) % lines.length;
+            for (int i = 0; i < count; i++) {
+                int index = (first + i) % lines.length;
+                sb.append(timeFormat.format(new Date(times[index]))).append(' ')
+                        .append(lines[index]).append('\n');
+            }
+            return sb.toString();
+        }
+
+        private static char levelChar(int priority) {
+            switch (priority) {
+                case Log.VERBOSE: return 'V';
+                case Log.DEBUG: return 'D';
+                case Log.INFO: return 'I';
+                case Log.WARN: return 'W';
+                default: return 'E';
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.rupex.app.util;
+
+import java.util.Calendar;
+
+/**
+ * Calendar buckets of timestamps in the device's time zone, as stored in the
+ * year_month / local_day columns: yyyyMM and yyyyMMdd integers, so a month or
+ * a day range is an indexed integer comparison.
+ */
+public final class LocalDates {
+
+    private LocalDates() {}
+
+    /**
+     * yyyyMM of a timestamp, e.g. 202503
+     */
+    public static int yearMonth(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return yearMonth(calendar);
+    }
+
+    public static int yearMonth(Calendar calendar) {
+        return calendar.get(Calendar.YEAR) * 100 + calendar.get(Calendar.MONTH) + 1;
+    }
+
+    /**
+     * yyyyMMdd of a timestamp, e.g. 20250314
+     */
+    public static int localDay(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return yearMonth(calendar) * 100 + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    /**
+     * The month {@code months} after (or before, if negative) a yyyyMM month
+     */
+    public static int addMonths(int yearMonth, int months) {
+        int index = (yearMonth / 100) * 12 + yearMonth % 100 - 1 + months;
+        return Math.floorDiv(index, 12) * 100 + Math.floorMod(index, 12) + 1;
+    }
+}
@@ -0,0 +1,129 @@
+package com.rupex.app.data.local;
+
+import androidx.room.Room;
+
+import com.rupex.app.data.local.dao.AggregateDao;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.DayTotal;
+import com.rupex.app.data.local.entity.PendingTransaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the trigger-maintained aggregates and their verifier
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class AggregatesTest {
+
+    private RupexDatabase db;
+    private PendingTransactionDao transactions;
+    private AggregateDao aggregates;
+    private long march10;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        DatabaseTriggers.create(db.getOpenHelper().getWritableDatabase());
+        transactions = db.pendingTransactionDao();
+        aggregates = db.aggregateDao();
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 10, 12, 0, 0);
+        march10 = calendar.getTimeInMillis();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private long insert(String type, double amount, String category, long at) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType(type);
+        txn.setAmount(amount);
+        txn.setCategory(category);
+        txn.setTransactionAt(at);
+        txn.setSmsHash("hash_" + type + amount + category + at);
+        return transactions.insert(txn);
+    }
+
+    private double monthTotal(String type, String category) {
+        for (AggregateDao.CategoryStatResult result : aggregates.getCategoryStatsByMonth(type, 202503)) {
+            if (result.category.equals(category)) return result.total;
+        }
+        return 0;
+    }
+
+    @Test
+    public void testInsertsAreAggregated() {
+        insert("expense", 100, "Food & Dining", march10);
+        insert("expense", 50, "Food & Dining", march10);
+        insert("expense", 20, null, march10);
+        insert("income", 1000, "Salary", march10);
+
+        assertEquals(150, monthTotal("expense", "Food & Dining"), 0.001);
+        assertEquals(20, monthTotal("expense", "Other"), 0.001);
+        assertEquals(170, aggregates.getTotal("expense"), 0.001);
+        assertEquals(1000, aggregates.getTotal("income"), 0.001);
+
+        List<AggregateDao.TypeTotal> days = aggregates.getTotalsBetweenDays(20250310, 20250310);
+        assertEquals(2, days.size());
+
+        // Per (day, type) rows of a month, as the history headers read them
+        List<DayTotal> byDay = aggregates.getDayTotalsBetween(20250301, 20250331);
+        assertEquals(2, byDay.size());
+        for (DayTotal day : byDay) {
+            assertEquals(20250310, day.getLocalDay());
+            assertEquals("income".equals(day.getType()) ? 1000 : 170, day.getTotal(), 0.001);
+        }
+        assertTrue(aggregates.getDayTotalsBetween(20250401, 20250430).isEmpty());
+
+        List<AggregateDao.TypeTotal> month = aggregates.getMonthTotals(202503);
+        assertEquals(2, month.size());
+        assertTrue(aggregates.getMonthTotals(202504).isEmpty());
+    }
+
+    @Test
+    public void testEditsAndDeletesMoveTotals() {
+        long id = insert("expense", 100, "Shopping", march10);
+        insert("expense", 40, "Shopping", march10);
+
+        transactions.updateCategory(id, "Travel");
+        assertEquals(40, monthTotal("expense", "Shopping"), 0.001);
+        assertEquals(100, monthTotal("expense", "Travel"), 0.001);
+
+        transactions.updateTransactionAt(id, march10 + 40L * 24 * 60 * 60 * 1000); // April
+        assertEquals(0, monthTotal("expense", "Travel"), 0.001);
+        assertEquals(1, aggregates.getTotalsBetweenDays(20250301, 20250331).size());
+
+        transactions.deleteById(id);
+        assertEquals(40, aggregates.getTotal("expense"), 0.001);
+        assertTrue(aggregates.getTotalsBetweenDays(20250401, 20250430).isEmpty());
+        assertEquals(0, AggregateVerifier.verifyAndRepair(db));
+    }
+
+    @Test
+    public void testVerifierReportsAndRepairsDrift() {
+        insert("expense", 100, "Bills & Utilities", march10);
+        db.getOpenHelper().getWritableDatabase().execSQL("UPDATE agg_month_category SET total = 90");
+        db.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM agg_day");
+
+        assertEquals(2, AggregateVerifier.verifyAndRepair(db));
+        assertEquals(100, monthTotal("expense", "Bills & Utilities"), 0.001);
+        assertEquals(0, AggregateVerifier.verifyAndRepair(db));
+    }
+}
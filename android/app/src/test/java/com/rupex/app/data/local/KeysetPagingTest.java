@@ -0,0 +1,204 @@
+package com.rupex.app.data.local;
+
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.dao.TransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.Transaction;
+import com.rupex.app.util.LocalDates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for keyset (cursor) paging over transactions and pending_transactions
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class KeysetPagingTest {
+
+    private RupexDatabase db;
+    private PendingTransactionDao pending;
+    private TransactionDao synced;
+    private long march10;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        pending = db.pendingTransactionDao();
+        synced = db.transactionDao();
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 10, 12, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        march10 = calendar.getTimeInMillis();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private long insertPending(long at) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType("expense");
+        txn.setAmount(100);
+        txn.setTransactionAt(at);
+        txn.setSmsHash("hash_" + System.nanoTime());
+        return pending.insert(txn);
+    }
+
+    private void insertSynced(String id, long at) {
+        Transaction txn = new Transaction();
+        txn.setId(id);
+        txn.setType("expense");
+        txn.setTransactionAt(at);
+        synced.insert(txn);
+    }
+
+    @Test
+    public void testCursorToken() {
+        PageCursor cursor = PageCursor.parse(new PageCursor(march10, "a1b2").token());
+        assertNotNull(cursor);
+        assertEquals(march10, cursor.transactionAt);
+        assertEquals("a1b2", cursor.id);
+
+        assertNull(PageCursor.parse(null));
+        assertNull(PageCursor.parse("garbage"));
+        assertNull(PageCursor.parse("12:"));
+        assertNull(PageCursor.parse("x:12"));
+
+        // Local rows are keyed by number; other ids start from the top
+        assertEquals(12, PageCursor.parseLocal("5:12").localId());
+        assertNull(PageCursor.parseLocal("123:abc"));
+        assertNull(PageCursor.parseLocal(null));
+    }
+
+    @Test
+    public void testNonNumericCursorStartsFromTheTop() throws Exception {
+        long older = insertPending(march10);
+        long newer = insertPending(march10 + 60_000L);
+
+        List<PendingTransaction> page = pending.getPage("123:abc", 10);
+        assertEquals(2, page.size());
+        assertEquals(newer, page.get(0).getId());
+        assertEquals(older, page.get(1).getId());
+
+        MonthPagingSource source = new MonthPagingSource(db, LocalDates.yearMonth(march10), null);
+        PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> top = page(source.loadFuture(
+                new PagingSource.LoadParams.Append<>("123:abc", 10, false)).get());
+        assertEquals(Arrays.asList(newer, older), idsOf(top));
+    }
+
+    @Test
+    public void testPagesDontShiftWhenRowsArrive() {
+        // Three rows share each timestamp, so pages end in the middle of ties
+        List<Long> expected = new ArrayList<>();
+        for (int minute = 3; minute > 0; minute--) {
+            List<Long> tied = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                tied.add(0, insertPending(march10 + minute * 60_000L));
+            }
+            expected.addAll(tied);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        List<PendingTransaction> page;
+        do {
+            page = pending.getPage(cursor, 4);
+            for (PendingTransaction row : page) {
+                seen.add(row.getId());
+            }
+            if (!page.isEmpty()) {
+                cursor = PageCursor.of(page.get(page.size() - 1)).token();
+            }
+            // A newer transaction arrives mid-scroll
+            insertPending(march10 + 3_600_000L);
+        } while (page.size() == 4);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void testSyncedPagesWalkTiesById() {
+        insertSynced("b", march10);
+        insertSynced("c", march10);
+        insertSynced("a", march10);
+        insertSynced("d", march10 - 1);
+
+        List<Transaction> first = synced.getPage(null, 2);
+        assertEquals("c", first.get(0).getId());
+        assertEquals("b", first.get(1).getId());
+
+        List<Transaction> second = synced.getPage(PageCursor.of(first.get(1)).token(), 2);
+        assertEquals("a", second.get(0).getId());
+        assertEquals("d", second.get(1).getId());
+
+        assertTrue(synced.getPage(PageCursor.of(second.get(1)).token(), 2).isEmpty());
+    }
+
+    @Test
+    public void testMonthSourceLoadsBothWays() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(0, insertPending(march10 + i * 60_000L));
+        }
+        // Another month is not paged
+        insertPending(march10 + 40L * 86_400_000L);
+        MonthPagingSource source = new MonthPagingSource(db, LocalDates.yearMonth(march10), "expense");
+
+        PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> top = page(source.loadFuture(
+                new PagingSource.LoadParams.Refresh<>(null, 3, false)).get());
+        assertEquals(ids.subList(0, 3), idsOf(top));
+        assertNull(top.getPrevKey());
+        // Rows carry the aliased columns
+        assertEquals(march10 + 5 * 60_000L, top.getData().get(0).transactionAt);
+        assertEquals(LocalDates.localDay(march10), top.getData().get(0).localDay);
+
+        PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> next = page(source.loadFuture(
+                new PagingSource.LoadParams.Append<>(top.getNextKey(), 3, false)).get());
+        assertEquals(ids.subList(3, 6), idsOf(next));
+
+        // Read back after the top page was dropped
+        PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> back = page(source.loadFuture(
+                new PagingSource.LoadParams.Prepend<>(next.getPrevKey(), 3, false)).get());
+        assertEquals(ids.subList(0, 3), idsOf(back));
+
+        PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> end = page(source.loadFuture(
+                new PagingSource.LoadParams.Append<>(next.getNextKey(), 3, false)).get());
+        assertTrue(end.getData().isEmpty());
+        assertNull(end.getNextKey());
+    }
+
+    private static PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> page(
+            PagingSource.LoadResult<String, PendingTransactionDao.TransactionRow> result) {
+        assertTrue(result.toString(), result instanceof PagingSource.LoadResult.Page);
+        return (PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow>) result;
+    }
+
+    private static List<Long> idsOf(
+            PagingSource.LoadResult.Page<String, PendingTransactionDao.TransactionRow> page) {
+        List<Long> ids = new ArrayList<>();
+        for (PendingTransactionDao.TransactionRow row : page.getData()) {
+            ids.add(row.id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,170 @@
+package com.rupex.app.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.rupex.app.data.local.entity.ActivityLog;
+import com.rupex.app.util.LocalDates;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a version 5 database (the last schema before migrations) through
+ * {@link Migrations#ALL} and validates the result against the exported schema
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    // Schema of version 5, as Room created it
+    private static final String[] SCHEMA_5 = {
+            "CREATE TABLE IF NOT EXISTS `pending_transactions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`type` TEXT NOT NULL, `amount` REAL NOT NULL, `last_4_digits` TEXT, `reference_id` TEXT, "
+                    + "`merchant` TEXT, `balance` REAL, `bank_name` TEXT, `sms_hash` TEXT NOT NULL, "
+                    + "`transaction_at` INTEGER NOT NULL, `created_at` INTEGER NOT NULL, `synced` INTEGER NOT NULL, "
+                    + "`server_id` TEXT, `sync_error` TEXT, `category` TEXT, `category_icon` TEXT, "
+                    + "`category_color` TEXT, `note` TEXT, `source` TEXT)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS `index_pending_transactions_sms_hash` "
+                    + "ON `pending_transactions` (`sms_hash`)",
+            "CREATE INDEX IF NOT EXISTS `index_pending_transactions_synced` ON `pending_transactions` (`synced`)",
+            "CREATE TABLE IF NOT EXISTS `transactions` (`id` TEXT NOT NULL, `account_id` TEXT, `category_id` TEXT, "
+                    + "`type` TEXT NOT NULL, `amount` REAL NOT NULL, `description` TEXT, `merchant` TEXT, "
+                    + "`reference_id` TEXT, `source` TEXT, `transaction_at` INTEGER NOT NULL, "
+                    + "`created_at` INTEGER NOT NULL, `updated_at` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE INDEX IF NOT EXISTS `index_transactions_account_id` ON `transactions` (`account_id`)",
+            "CREATE INDEX IF NOT EXISTS `index_transactions_category_id` ON `transactions` (`category_id`)",
+            "CREATE INDEX IF NOT EXISTS `index_transactions_transaction_at` ON `transactions` (`transaction_at`)",
+            "CREATE TABLE IF NOT EXISTS `accounts` (`id` TEXT NOT NULL, `name` TEXT NOT NULL, `type` TEXT NOT NULL, "
+                    + "`institution` TEXT, `balance` REAL NOT NULL, `last_4_digits` TEXT, `color` TEXT, "
+                    + "`icon` TEXT, `is_active` INTEGER NOT NULL, `updated_at` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `categories` (`id` TEXT NOT NULL, `name` TEXT NOT NULL, "
+                    + "`type` TEXT NOT NULL, `icon` TEXT, `color` TEXT, `parent_id` TEXT, "
+                    + "`is_system` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `activity_logs` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`type` TEXT NOT NULL, `source` TEXT, `message` TEXT, `amount` REAL, `merchant` TEXT, "
+                    + "`reason` TEXT, `timestamp` INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS `index_activity_logs_timestamp` ON `activity_logs` (`timestamp`)"
+    };
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), RupexDatabase.class);
+
+    @After
+    public void tearDown() {
+        RuntimeEnvironment.getApplication().deleteDatabase(TEST_DB);
+    }
+
+    private void createVersion5(Context context) {
+        SupportSQLiteOpenHelper.Configuration configuration = SupportSQLiteOpenHelper.Configuration
+                .builder(context)
+                .name(TEST_DB)
+                .callback(new SupportSQLiteOpenHelper.Callback(5) {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        for (String sql : SCHEMA_5) {
+                            db.execSQL(sql);
+                        }
+                    }
+
+                    @Override
+                    public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {}
+                })
+                .build();
+        try (SupportSQLiteOpenHelper openHelper = new FrameworkSQLiteOpenHelperFactory().create(configuration)) {
+            SupportSQLiteDatabase db = openHelper.getWritableDatabase();
+            db.execSQL("INSERT INTO pending_transactions (type, amount, last_4_digits, reference_id, merchant, "
+                    + "balance, bank_name, sms_hash, transaction_at, created_at, synced, category, note, source) "
+                    + "VALUES ('expense', 250, '1234', '412345678901', 'SWIGGY*BANGALORE', 9750, 'HDFC Bank', "
+                    + "'hash1', ?, ?, 0, 'Food & Dining', 'Dinner', 'sms')",
+                    new Object[] {march10(), march10()});
+            db.execSQL("INSERT INTO activity_logs (type, source, message, timestamp) "
+                    + "VALUES ('captured', 'sms', 'Swiggy ₹250', ?)", new Object[] {march10()});
+        }
+    }
+
+    private static long march10() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 10, 12, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    @Test
+    public void testMigrationsFormAChainToTheCurrentVersion() {
+        RupexDatabase db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .build();
+        int current = db.getOpenHelper().getReadableDatabase().getVersion();
+        db.close();
+
+        int version = 5;
+        for (Migration migration : Migrations.ALL) {
+            assertEquals(version, migration.startVersion);
+            assertEquals(version + 1, migration.endVersion);
+            version = migration.endVersion;
+        }
+        assertEquals(current, version);
+    }
+
+    @Test
+    public void testMigrateFromVersion5KeepsData() throws IOException {
+        createVersion5(RuntimeEnvironment.getApplication());
+
+        SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB,
+                Migrations.ALL[Migrations.ALL.length - 1].endVersion, true, Migrations.ALL);
+
+        try (Cursor cursor = db.query("SELECT amount, merchant_key, merchant_id, year_month, local_day "
+                + "FROM pending_transactions WHERE sms_hash = 'hash1'")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(250, cursor.getDouble(0), 0.001);
+            assertNotNull(cursor.getString(1));
+            assertFalse(cursor.isNull(2));
+            assertEquals(LocalDates.yearMonth(march10()), cursor.getInt(3));
+            assertEquals(LocalDates.localDay(march10()), cursor.getInt(4));
+        }
+        // Derived tables are filled from the existing rows
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM merchants"));
+        assertEquals(250, count(db, "SELECT total FROM agg_month_category WHERE year_month = "
+                + LocalDates.yearMonth(march10()) + " AND type = 'expense' AND category = 'Food & Dining'"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM pending_transactions_fts "
+                + "WHERE pending_transactions_fts MATCH 'dinn*'"));
+        assertEquals(9750, count(db, "SELECT balance FROM accounts WHERE last_4_digits = '1234'"));
+        assertEquals(1 % ActivityLog.RING_SIZE, count(db, "SELECT slot FROM activity_logs WHERE seq = 1"));
+
+        // The triggers are in place for new rows
+        db.execSQL("INSERT INTO pending_transactions (type, amount, sms_hash, transaction_at, created_at, "
+                + "synced, category, year_month, local_day) VALUES ('expense', 50, 'hash2', ?, ?, 0, "
+                + "'Food & Dining', ?, ?)", new Object[] {march10(), march10(),
+                LocalDates.yearMonth(march10()), LocalDates.localDay(march10())});
+        assertEquals(300, count(db, "SELECT SUM(total) FROM agg_month_category"));
+    }
+}
@@ -0,0 +1,139 @@
+package com.rupex.app.data.local;
+
+import android.database.Cursor;
+
+import androidx.room.Room;
+
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.dao.TransactionDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks with EXPLAIN QUERY PLAN that the hot transaction queries use indexes.
+ * The statements are the DAOs' own query constants; SQLite numbers their :named
+ * parameters in order of first use, so arguments are bound in that order.
+ * Plan wording differs between SQLite versions ("SEARCH TABLE x" / "SEARCH x"), so only
+ * the stable parts are matched.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class QueryPlanTest {
+
+    private RupexDatabase db;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private String plan(String sql, Object... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    @Test
+    public void testFindDuplicateUsesIndex() {
+        String plan = plan(PendingTransactionDao.FIND_DUPLICATE_QUERY, 250.0, "Swiggy", 0L, 1L);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_amount_transaction_at"));
+    }
+
+    @Test
+    public void testFindDuplicateByAmountAndTimeUsesIndex() {
+        String plan = plan(PendingTransactionDao.FIND_DUPLICATE_BY_AMOUNT_AND_TIME_QUERY,
+                250.0, "expense", 0L, 1L);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_amount_transaction_at"));
+    }
+
+    @Test
+    public void testFindDuplicateLooseUsesIndex() {
+        String plan = plan(PendingTransactionDao.FIND_DUPLICATE_LOOSE_QUERY, 250.0, "expense", 0L, 1L);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_amount_transaction_at"));
+    }
+
+    @Test
+    public void testUnlinkedByAmountsUsesIndex() {
+        String plan = plan(PendingTransactionDao.FIND_UNLINKED_BY_AMOUNTS_QUERY, 250.0, 0L, 1L);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_amount_transaction_at"));
+    }
+
+    @Test
+    public void testRecentRowsNeedNoSort() {
+        String plan = plan(PendingTransactionDao.RECENT_ROWS_QUERY, 5);
+
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_transaction_at"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testMonthPageSeeksIndexWithoutSort() {
+        String plan = plan(PendingTransactionDao.MONTH_OLDER_THAN_QUERY, 202503, "expense", 1L, 1L, 40);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_year_month_transaction_at"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testMonthPageBackwardsSeeksIndexWithoutSort() {
+        String plan = plan(PendingTransactionDao.MONTH_NEWER_THAN_QUERY, 202503, null, 1L, 1L, 40);
+
+        assertTrue(plan, plan.contains("USING INDEX index_pending_transactions_year_month_transaction_at"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testSyncedPageSeeksIndexWithoutSort() {
+        String plan = plan(TransactionDao.OLDER_THAN_QUERY, 1L, "abc", 40);
+
+        assertTrue(plan, plan.contains("SEARCH"));
+        assertTrue(plan, plan.contains("INDEX index_transactions_transaction_at_id"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void testSearchStartsFromFullTextIndex() {
+        // Room pages a PagingSource query by wrapping it in LIMIT / OFFSET
+        String plan = plan("SELECT * FROM (" + PendingTransactionDao.SEARCH_QUERY + ") LIMIT 40 OFFSET 0",
+                "swig*", 20250301, 20250331, "expense");
+
+        assertTrue(plan, plan.contains("pending_transactions_fts VIRTUAL TABLE INDEX"));
+        assertTrue(plan, plan.contains("INTEGER PRIMARY KEY"));
+    }
+
+    @Test
+    public void testNotificationCountUsesCoveringIndex() {
+        String plan = plan(PendingTransactionDao.NOTIFICATION_COUNT_QUERY);
+
+        assertTrue(plan, plan.contains("USING COVERING INDEX index_pending_transactions_source"));
+    }
+}
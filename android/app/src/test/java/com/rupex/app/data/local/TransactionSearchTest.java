@@ -0,0 +1,164 @@
+package com.rupex.app.data.local;
+
+import android.database.Cursor;
+
+import androidx.paging.PagingSource;
+import androidx.room.Room;
+
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.PendingTransactionFts;
+import com.rupex.app.util.LocalDates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import kotlin.coroutines.EmptyCoroutineContext;
+import kotlinx.coroutines.BuildersKt;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the full-text index over pending_transactions
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class TransactionSearchTest {
+
+    private RupexDatabase db;
+    private PendingTransactionDao transactions;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        transactions = db.pendingTransactionDao();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private long insert(String merchant, String note, String category) {
+        return insert("expense", merchant, note, category, System.currentTimeMillis());
+    }
+
+    private long insert(String type, String merchant, String note, String category, long at) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType(type);
+        txn.setAmount(100);
+        txn.setMerchant(merchant);
+        txn.setNote(note);
+        txn.setCategory(category);
+        txn.setBankName("HDFC Bank");
+        txn.setTransactionAt(at);
+        txn.setSmsHash("hash_" + type + merchant + note + at);
+        return transactions.insert(txn);
+    }
+
+    private List<Long> search(String text) {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = db.query("SELECT rowid FROM pending_transactions_fts "
+                + "WHERE pending_transactions_fts MATCH ? ORDER BY rowid",
+                new Object[] {PendingTransactionFts.matchQuery(text)})) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    // First page of the DAO's search, as the history list loads it
+    private List<Long> searchDao(String text, int fromDay, int toDay, String type) throws InterruptedException {
+        PagingSource<Integer, PendingTransactionDao.TransactionRow> source =
+                transactions.search(PendingTransactionFts.matchQuery(text), fromDay, toDay, type);
+        PagingSource.LoadResult<Integer, PendingTransactionDao.TransactionRow> result =
+                BuildersKt.<PagingSource.LoadResult<Integer, PendingTransactionDao.TransactionRow>>runBlocking(
+                        EmptyCoroutineContext.INSTANCE, (scope, continuation) -> source.load(
+                                new PagingSource.LoadParams.Refresh<>(null, 50, false), continuation));
+        assertTrue(result.toString(), result instanceof PagingSource.LoadResult.Page);
+        List<Long> ids = new ArrayList<>();
+        for (PendingTransactionDao.TransactionRow row
+                : ((PagingSource.LoadResult.Page<Integer, PendingTransactionDao.TransactionRow>) result).getData()) {
+            ids.add(row.id);
+        }
+        return ids;
+    }
+
+    private static long at(int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, month, day, 12, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void testMatchQuery() {
+        assertEquals("swig*", PendingTransactionFts.matchQuery("Swig"));
+        assertEquals("food* dining*", PendingTransactionFts.matchQuery(" Food & Dining "));
+        assertEquals("a* or* b*", PendingTransactionFts.matchQuery("a OR b"));
+        assertEquals("upi* 12*", PendingTransactionFts.matchQuery("\"UPI-12\"*"));
+        assertNull(PendingTransactionFts.matchQuery("  -*  "));
+        assertNull(PendingTransactionFts.matchQuery(null));
+    }
+
+    @Test
+    public void testPrefixesMatchAnyColumn() {
+        long swiggy = insert("Swiggy", null, "Food & Dining");
+        long amazon = insert("Amazon Pay", "Gift for mom", "Shopping");
+
+        assertEquals(Arrays.asList(swiggy), search("swi"));
+        assertEquals(Arrays.asList(amazon), search("gif"));
+        assertEquals(Arrays.asList(swiggy), search("din"));
+        assertEquals(Arrays.asList(swiggy, amazon), search("hdfc"));
+        assertEquals(Arrays.asList(amazon), search("amazon shop"));
+        assertTrue(search("zomato").isEmpty());
+    }
+
+    @Test
+    public void testIndexFollowsEditsAndDeletes() {
+        long id = insert("Swiggy", null, "Food & Dining");
+
+        transactions.updateNote(id, "Team lunch");
+        assertEquals(Arrays.asList(id), search("lunch"));
+
+        transactions.deleteById(id);
+        assertTrue(search("swiggy").isEmpty());
+        assertTrue(search("lunch").isEmpty());
+    }
+
+    @Test
+    public void testSearchIsBoundedByDaysAndType() throws Exception {
+        long marchExpense = insert("expense", "Swiggy", null, null, at(Calendar.MARCH, 10));
+        long marchIncome = insert("income", "Swiggy", "Refund", null, at(Calendar.MARCH, 12));
+        long april = insert("expense", "Swiggy", null, null, at(Calendar.APRIL, 2));
+        insert("expense", "Zomato", null, null, at(Calendar.MARCH, 11));
+
+        int march1 = LocalDates.localDay(at(Calendar.MARCH, 1));
+        int march31 = LocalDates.localDay(at(Calendar.MARCH, 31));
+
+        // Newest first, only the month's matches
+        assertEquals(Arrays.asList(marchIncome, marchExpense), searchDao("swig", march1, march31, null));
+        assertEquals(Arrays.asList(marchExpense), searchDao("swig", march1, march31, "expense"));
+        assertEquals(Arrays.asList(marchIncome), searchDao("swig", march1, march31, "income"));
+
+        // The range is inclusive at both ends
+        int march10 = LocalDates.localDay(at(Calendar.MARCH, 10));
+        assertEquals(Arrays.asList(marchExpense), searchDao("swig", march10, march10, null));
+        assertEquals(Arrays.asList(april), searchDao("swig",
+                LocalDates.localDay(at(Calendar.APRIL, 1)), LocalDates.localDay(at(Calendar.APRIL, 30)), null));
+        assertTrue(searchDao("refund", march1, march31, "expense").isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package com.rupex.app.insights;
+
+import androidx.room.Room;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.entity.Account;
+import com.rupex.app.data.local.entity.PendingTransaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for per-account balances from bank SMS readings
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class BalanceTrackerTest {
+
+    private static final String LAST4 = "4321";
+    private static final long HOUR_MS = 3_600_000L;
+
+    private RupexDatabase db;
+    private long start;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        start = System.currentTimeMillis() - 24 * HOUR_MS;
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private PendingTransaction capture(double amount, Double balance, long at) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType("expense");
+        txn.setAmount(amount);
+        txn.setLast4Digits(LAST4);
+        txn.setBankName("HDFC");
+        txn.setBalance(balance);
+        txn.setTransactionAt(at);
+        txn.setSmsHash("sms_" + at);
+        txn.setId(db.pendingTransactionDao().insert(txn));
+        BalanceTracker.apply(db, txn);
+        return txn;
+    }
+
+    private Account account() {
+        return db.accountDao().getByLast4Digits(LAST4);
+    }
+
+    @Test
+    public void testReadingThenLaterDebit() {
+        capture(500, 10_000.0, start);
+        assertEquals(10_000, account().getBalance(), 0.001);
+        assertEquals(start, account().getReportedAt());
+
+        capture(300, null, start + HOUR_MS);
+        Account account = account();
+        assertEquals(9_700, account.getBalance(), 0.001);
+        assertEquals(10_000, account.getReportedBalance(), 0.001);
+        assertEquals(0, account.getDrift(), 0.001);
+    }
+
+    @Test
+    public void testEditAfterReadingIsRecomputed() {
+        capture(500, 10_000.0, start);
+        PendingTransaction debit = capture(300, null, start + HOUR_MS);
+
+        db.pendingTransactionDao().updateAmount(debit.getId(), 200);
+        BalanceTracker.recompute(db, LAST4);
+
+        assertEquals(9_800, account().getBalance(), 0.001);
+        assertEquals(start, account().getReportedAt());
+    }
+
+    @Test
+    public void testDeletingOnlyReadingClearsBalance() {
+        PendingTransaction reading = capture(500, 10_000.0, start);
+        capture(300, null, start + HOUR_MS);
+
+        db.pendingTransactionDao().deleteById(reading.getId());
+        BalanceTracker.recompute(db, LAST4);
+
+        Account account = account();
+        assertEquals(0, account.getReportedAt());
+        assertEquals(0, account.getReportedBalance(), 0.001);
+        assertEquals(0, account.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testDeletingLatestReadingFallsBackToEarlierOne() {
+        capture(1_000, 12_000.0, start);
+        PendingTransaction reading = capture(2_000, 10_000.0, start + HOUR_MS);
+        capture(300, null, start + 2 * HOUR_MS);
+        assertEquals(9_700, account().getBalance(), 0.001);
+
+        db.pendingTransactionDao().deleteById(reading.getId());
+        BalanceTracker.recompute(db, LAST4);
+
+        Account account = account();
+        assertEquals(start, account.getReportedAt());
+        assertEquals(12_000, account.getReportedBalance(), 0.001);
+        assertEquals(11_700, account.getBalance(), 0.001);
+    }
+}
@@ -0,0 +1,104 @@
+package com.rupex.app.insights;
+
+import androidx.room.Room;
+
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.local.entity.RecurringSeries;
+import com.rupex.app.merchant.MerchantMatcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for incremental recurring payment detection
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RecurringDetectorTest {
+
+    private RupexDatabase db;
+    private String merchantKey;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static long tenth(int month) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, month, 10, 9, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private void insertRent(long at) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType("expense");
+        txn.setAmount(12000);
+        txn.setMerchant("Sunrise Apartments");
+        txn.setTransactionAt(at);
+        txn.setSmsHash("hash_" + at);
+        MerchantMatcher.stamp(txn);
+        merchantKey = txn.getMerchantKey();
+        db.pendingTransactionDao().insert(txn);
+    }
+
+    private RecurringSeries onlySeries() {
+        List<RecurringSeries> series = db.recurringSeriesDao().getByMerchantKey(merchantKey, "expense");
+        assertEquals(1, series.size());
+        return series.get(0);
+    }
+
+    @Test
+    public void testMonthlyPaymentsConfirmSeries() {
+        for (int month = Calendar.JANUARY; month <= Calendar.APRIL; month++) {
+            insertRent(tenth(month));
+        }
+        RecurringDetector.scan(db);
+
+        RecurringSeries series = onlySeries();
+        assertEquals(4, series.getOccurrences());
+        assertEquals(30, series.getPeriodDays());
+        assertEquals(tenth(Calendar.APRIL), series.getLastSeenAt());
+        assertEquals(tenth(Calendar.MAY), series.getNextExpectedAt());
+    }
+
+    @Test
+    public void testLateOccurrenceIsPlacedInOrder() {
+        insertRent(tenth(Calendar.JANUARY));
+        insertRent(tenth(Calendar.MARCH));
+        insertRent(tenth(Calendar.APRIL));
+        RecurringDetector.scan(db);
+        // A 59-day then a 31-day gap is not a cycle yet
+        assertFalse(onlySeries().isConfirmed());
+
+        // February's SMS arrives late, after April was processed
+        insertRent(tenth(Calendar.FEBRUARY));
+        RecurringDetector.scan(db);
+
+        RecurringSeries series = onlySeries();
+        assertEquals(4, series.getOccurrences());
+        assertEquals(30, series.getPeriodDays());
+        assertEquals(30, series.getIntervalMean(), 0.01);
+        assertEquals(tenth(Calendar.APRIL), series.getLastSeenAt());
+        assertEquals(tenth(Calendar.MAY), series.getNextExpectedAt());
+    }
+}
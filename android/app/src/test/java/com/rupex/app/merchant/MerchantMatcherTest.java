@@ -0,0 +1,70 @@
+package com.rupex.app.merchant;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for MerchantMatcher - canonical keys and duplicate merchant matching
+ */
+public class MerchantMatcherTest {
+
+    @Test
+    public void testCanonicalKeyStripsNoise() {
+        assertEquals("GOVINDAS", MerchantMatcher.canonicalKey("UPI/DR/123456789012/GOVINDAS"));
+        assertEquals("PSGOVINDAS", MerchantMatcher.canonicalKey("PSGOVINDAS@okaxis"));
+        assertEquals("JOHN DOE", MerchantMatcher.canonicalKey("Mr. John  Doe"));
+        assertEquals("RAMESH", MerchantMatcher.canonicalKey("Payment to Ramesh"));
+        assertEquals("", MerchantMatcher.canonicalKey("UPI"));
+        assertEquals("", MerchantMatcher.canonicalKey(null));
+    }
+
+    @Test
+    public void testSameMerchantAcrossSources() {
+        assertTrue(MerchantMatcher.isSimilar("P S GOVINDAS", "PSGOVINDAS@okaxis"));
+        assertTrue(MerchantMatcher.isSimilar("Govindas", "UPI/DR/123456789012/GOVINDAS"));
+        assertTrue(MerchantMatcher.isSimilar("KISHORE SENTHIL", "KISHORE S"));
+        assertTrue(MerchantMatcher.isSimilar("Mr. Rahul Verma", "RAHUL VERMA"));
+    }
+
+    @Test
+    public void testSingleTokenDoesNotMatchLongerName() {
+        // A first name alone is a different person as far as dedup is concerned
+        assertFalse(MerchantMatcher.isSimilar("RAHUL", "RAHUL VERMA"));
+        assertFalse(MerchantMatcher.isSimilar("PRIYA S", "PRIYA"));
+        assertFalse(MerchantMatcher.isSimilar("KISHORE SENTHIL", "KISHORE"));
+        assertFalse(MerchantMatcher.isSimilar("MANO", "MANO RAJKUMAR"));
+        assertFalse(MerchantMatcher.isSimilar("P S GOVINDAS", "Govindas"));
+        assertFalse(MerchantMatcher.isSimilar("R", "RAHUL"));
+
+        // Scored by the share of the longer name covered
+        assertEquals(0.5, MerchantMatcher.containment("RAHUL", "RAHUL VERMA"), 0.001);
+        assertEquals(1.0, MerchantMatcher.containment("KISHORE S", "KISHORE SENTHIL"), 0.001);
+        assertEquals(-1, MerchantMatcher.containment("JOHN DOE", "JOHN SMITH"), 0.001);
+    }
+
+    @Test
+    public void testDifferentMerchants() {
+        assertFalse(MerchantMatcher.isSimilar("JOHN DOE", "JOHN SMITH"));
+        assertFalse(MerchantMatcher.isSimilar("Swiggy", "Zomato"));
+        assertFalse("Generic merchant can't be compared", MerchantMatcher.isSimilar("UPI", "RAMESH"));
+    }
+
+    @Test
+    public void testSketchIsStable() {
+        MerchantMatcher.Signature a = MerchantMatcher.signature("P S GOVINDAS");
+        MerchantMatcher.Signature b = MerchantMatcher.signature("p.s. govindas");
+        assertEquals(a.key, b.key);
+        assertEquals(a.sketch, b.sketch);
+    }
+
+    @Test
+    public void testThresholdIsTunable() {
+        try {
+            MerchantMatcher.setThreshold(0.75);
+            assertTrue(MerchantMatcher.isSimilar("JOHN DOE", "JOHN SMITH"));
+        } finally {
+            MerchantMatcher.setThreshold(MerchantMatcher.DEFAULT_THRESHOLD);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.rupex.app.notification;
+
+import androidx.room.Room;
+
+import com.rupex.app.data.local.CaptureBatcher;
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.merchant.MerchantResolver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for storing payment notifications and merging their re-posts
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PaymentNotificationListenerTest {
+
+    private static final String KEY = "0|com.google.android.apps.nbu.paisa.user|1|null|10123";
+
+    private RupexDatabase db;
+    private PendingTransactionDao transactions;
+    private RecentNotificationCache cache;
+    private long now;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        transactions = db.pendingTransactionDao();
+        cache = new RecentNotificationCache();
+        MerchantResolver.getInstance().clearCache();
+        now = System.currentTimeMillis();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private void post(String title, String text, String merchant, double amount, String referenceId) {
+        cache.recordPost(KEY, RecentNotificationCache.hash(title, text));
+        UpiNotificationParser.ParsedNotification parsed =
+                new UpiNotificationParser.ParsedNotification(amount, merchant, false, title + " " + text);
+        parsed.referenceId = referenceId;
+        db.runInTransaction(() -> PaymentNotificationListener.store(db, new CaptureBatcher.Batch(), cache,
+                parsed, "Google Pay", KEY, now));
+        now += 60_000L;
+    }
+
+    @Test
+    public void testUpdatedRepostMergesIntoItsRow() {
+        post("Payment processing", "Paid ₹150.00 to Ramesh", "Ramesh", 150, null);
+        post("Payment successful", "Paid ₹150.00 to Ramesh Kumar", "Ramesh Kumar", 150, "412345678901");
+
+        List<PendingTransaction> rows = transactions.getAfterId(0, 10);
+        assertEquals(1, rows.size());
+        assertEquals("Ramesh Kumar", rows.get(0).getMerchant());
+        assertEquals("412345678901", rows.get(0).getReferenceId());
+    }
+
+    @Test
+    public void testTwoPaymentsUnderOneKeyAreKept() {
+        post("Payment successful", "Paid ₹150.00 to Ramesh", "Ramesh", 150, null);
+        post("Payment successful", "Paid ₹90.00 to Suresh", "Suresh", 90, null);
+
+        List<PendingTransaction> rows = transactions.getAfterId(0, 10);
+        assertEquals(2, rows.size());
+        assertEquals(150, rows.get(0).getAmount(), 0.001);
+        assertEquals("Ramesh", rows.get(0).getMerchant());
+        assertEquals(90, rows.get(1).getAmount(), 0.001);
+    }
+
+    @Test
+    public void testSameAmountWithAnotherReferenceIsKept() {
+        post("Payment successful", "Paid ₹150.00 to Ramesh", "Ramesh", 150, "412345678901");
+        post("Payment successful", "Paid ₹150.00 to Suresh", "Suresh", 150, "598765432109");
+
+        List<PendingTransaction> rows = transactions.getAfterId(0, 10);
+        assertEquals(2, rows.size());
+        assertEquals("412345678901", rows.get(0).getReferenceId());
+        assertEquals("598765432109", rows.get(1).getReferenceId());
+    }
+}
@@ -0,0 +1,60 @@
+package com.rupex.app.notification;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the notification pre-filter and payment app notification parsing
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class UpiNotificationParserTest {
+
+    private static final String GPAY = "com.google.android.apps.nbu.paisa.user";
+
+    private static boolean passesGate(CharSequence... parts) {
+        int hints = 0;
+        for (CharSequence part : parts) {
+            hints |= UpiNotificationParser.scanHints(part);
+        }
+        return UpiNotificationParser.mayContainTransaction(hints);
+    }
+
+    @Test
+    public void testGPayWithoutRupeeSignPassesGateAndParses() {
+        String title = "Ramesh";
+        String text = "Paid 150.00 to Ramesh";
+        assertTrue(passesGate(title, text));
+
+        UpiNotificationParser.ParsedNotification parsed = UpiNotificationParser.parse(GPAY, title, text);
+        assertNotNull(parsed);
+        assertEquals(150.00, parsed.amount, 0.01);
+        assertFalse(parsed.isIncome);
+        assertEquals("Ramesh", parsed.merchant);
+    }
+
+    @Test
+    public void testCurrencyMarkerPassesGate() {
+        assertTrue(passesGate("Payment successful", "₹250 to Swiggy"));
+        assertTrue(passesGate(null, "INR 99 debited"));
+        assertTrue(passesGate("Rs.500", null));
+    }
+
+    @Test
+    public void testAmountInSubTextOnlyPassesGate() {
+        // Title and text carry no amount, the sub text does
+        assertTrue(passesGate("Suresh", "Payment received", "Credited 1,200.00 from Suresh"));
+    }
+
+    @Test
+    public void testPromotionsStopAtGate() {
+        assertFalse(passesGate("Get 10% cashback", "On your next 3 bills"));
+        assertFalse(passesGate("Rewards waiting", "Scratch your card now"));
+        // Keyword inside another word does not count
+        assertFalse(passesGate("Unpaid bills?", "Pay 2 bills today"));
+    }
+}
@@ -168,4 +168,50 @@ public class SmsParserTest {
         assertNotNull("Should extract sender", result.getMerchant());
         assertTrue("Merchant should contain ARIVAZHAGAN", result.getMerchant().contains("ARIVAZHAGAN"));
     }
+
+    @Test
+    public void testUpiReferenceFormats() {
+        assertEquals("412345678901", SmsParser.extractUpiReference("UPI Ref No 412345678901"));
+        assertEquals("412345678901", SmsParser.extractUpiReference("UTR: 412345678901 credited"));
+        assertEquals("412345678901", SmsParser.extractUpiReference("RRN 412345678901"));
+        assertEquals("412345678901", SmsParser.extractUpiReference("Info: UPI/DR/412345678901/SWIGGY"));
+        assertEquals("412345678901", SmsParser.extractUpiReference("Transaction ID: 412345678901"));
+        // Exactly 12 digits, after a keyword
+        assertNull(SmsParser.extractUpiReference("Ref 4123456789012"));
+        assertNull(SmsParser.extractUpiReference("Paid 412345678901"));
+        assertNull(SmsParser.extractUpiReference(null));
+    }
+
+    @Test
+    public void testReferenceIdOfExistingFormats() {
+        // "ref <number>" and an alphanumeric Txn ID are stored as before
+        assertEquals("520259501995", SmsParser.parse("IOBCHN", "Your a/c XXX8795 debited for payee "
+                + "VendoliteIndia05 for Rs. 40.00 on 2025-07-21, ref 520259501995.If not you, report to "
+                + "your bank immediately-IOB", System.currentTimeMillis()).getReferenceId());
+        assertEquals("AB12CD34", SmsParser.parse("HDFC-BANK", "Rs.5999.00 debited from A/c **4532 on "
+                + "01-01-26 to FLIPKART. Avl bal Rs 25000. Txn ID: AB12CD34",
+                System.currentTimeMillis()).getReferenceId());
+        assertEquals("412345678901", SmsParser.parse("HDFC-BANK", "Rs.5999.00 debited from A/c **4532 on "
+                + "01-01-26 to FLIPKART. Ref No: 412345678901", System.currentTimeMillis()).getReferenceId());
+
+        // "a/c no." used to be taken as the reference ("no"); the UPI reference wins now
+        assertEquals("536198947755", SmsParser.parse("IOBCHN", "Your a/c no. XXXXX95 is credited by "
+                + "Rs.1000.00 on 2025-06-27 10:12:18.193, from GANESAN-vinayagamwater-1@okaxis(UPI Ref no "
+                + "536198947755).Payer Remark - UPI -IOB", System.currentTimeMillis()).getReferenceId());
+    }
+
+    @Test
+    public void testReferenceConflictRules() {
+        assertTrue(SmsParser.isCorrelatableReference("412345678901"));
+        assertTrue(SmsParser.isCorrelatableReference("AB12CD34"));
+        assertFalse("Too short", SmsParser.isCorrelatableReference("no"));
+        assertFalse("No digits", SmsParser.isCorrelatableReference("ABCDEFGH"));
+        assertFalse(SmsParser.isCorrelatableReference(null));
+
+        assertTrue(SmsParser.referencesConflict("412345678901", "598765432109"));
+        assertFalse(SmsParser.referencesConflict("412345678901", "412345678901"));
+        // A missing or unusable reference never rules a merge out
+        assertFalse(SmsParser.referencesConflict("412345678901", null));
+        assertFalse(SmsParser.referencesConflict("no", "412345678901"));
+    }
 }
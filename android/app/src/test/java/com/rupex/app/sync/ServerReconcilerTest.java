@@ -0,0 +1,138 @@
+package com.rupex.app.sync;
+
+import androidx.room.Room;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.rupex.app.data.local.RupexDatabase;
+import com.rupex.app.data.local.dao.PendingTransactionDao;
+import com.rupex.app.data.local.entity.PendingTransaction;
+import com.rupex.app.data.remote.model.TransactionDto;
+import com.rupex.app.merchant.MerchantResolver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for linking and inserting a fetched page of server transactions
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ServerReconcilerTest {
+
+    private static final String NOON = "2025-03-10T12:00:00";
+    private static final String NOON_TEN = "2025-03-10T12:10:00";
+
+    private RupexDatabase db;
+    private PendingTransactionDao transactions;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), RupexDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        transactions = db.pendingTransactionDao();
+        MerchantResolver.getInstance().clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private long insertLocal(String merchant, double amount, String referenceId, String hash) {
+        PendingTransaction txn = new PendingTransaction();
+        txn.setType("expense");
+        txn.setAmount(amount);
+        txn.setMerchant(merchant);
+        txn.setReferenceId(referenceId);
+        txn.setTransactionAt(ServerReconciler.parseServerDate(NOON));
+        txn.setSmsHash(hash);
+        return transactions.insert(txn);
+    }
+
+    private static TransactionDto dto(String id, String merchant, double amount, String referenceId, String at) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("type", "expense");
+        json.addProperty("amount", amount);
+        json.addProperty("merchant", merchant);
+        json.addProperty("referenceId", referenceId);
+        json.addProperty("transactionAt", at);
+        return new Gson().fromJson(json, TransactionDto.class);
+    }
+
+    @Test
+    public void testLinksLocalRowsAndInsertsTheRest() {
+        long byReference = insertLocal("VPA swiggy@upi", 99, "412345678901", "sms1");
+        long byMerchant = insertLocal("Swiggy", 250, null, "sms2");
+
+        ServerReconciler.Result result = ServerReconciler.reconcile(db, Arrays.asList(
+                dto("s1", "Swiggy", 99, "412345678901", NOON_TEN),
+                dto("s2", "Swiggy", 250, null, NOON_TEN),
+                dto("s3", "Amazon", 500, null, NOON)));
+
+        assertEquals(2, result.linked);
+        assertEquals(1, result.inserted);
+        assertEquals(0, result.skipped);
+        assertEquals("s1", transactions.getById(byReference).getServerId());
+        assertEquals("s2", transactions.getById(byMerchant).getServerId());
+        PendingTransaction inserted = transactions.getAfterId(byMerchant, 10).get(0);
+        assertEquals("SERVER_s3", inserted.getSmsHash());
+        assertTrue(inserted.isSynced());
+        assertEquals(ServerReconciler.parseServerDate(NOON), inserted.getTransactionAt());
+    }
+
+    @Test
+    public void testStoringTheSamePageAgainChangesNothing() {
+        insertLocal("Swiggy", 250, null, "sms1");
+        ServerReconciler.reconcile(db, Arrays.asList(
+                dto("s1", "Swiggy", 250, null, NOON_TEN),
+                dto("s2", "Amazon", 500, null, NOON)));
+
+        ServerReconciler.Result result = ServerReconciler.reconcile(db, Arrays.asList(
+                dto("s1", "Swiggy", 250, null, NOON_TEN),
+                dto("s2", "Amazon", 500, null, NOON),
+                dto("s2", "Amazon", 500, null, NOON)));
+
+        assertEquals(0, result.linked);
+        assertEquals(0, result.inserted);
+        assertEquals(3, result.skipped);
+    }
+
+    @Test
+    public void testLocalRowIsLinkedOnce() {
+        long local = insertLocal("Swiggy", 250, null, "sms1");
+
+        ServerReconciler.Result result = ServerReconciler.reconcile(db, Arrays.asList(
+                dto("s1", "Swiggy", 250, null, NOON_TEN),
+                dto("s2", "Swiggy", 250, null, NOON)));
+
+        // The first one takes the local row, the other is a separate transaction
+        assertEquals(1, result.linked);
+        assertEquals(1, result.inserted);
+        assertEquals("s1", transactions.getById(local).getServerId());
+    }
+
+    @Test
+    public void testConflictingReferencesAreNotLinked() {
+        long local = insertLocal("Swiggy", 250, "412345678901", "sms1");
+
+        ServerReconciler.Result result = ServerReconciler.reconcile(db, Collections.singletonList(
+                dto("s1", "Swiggy", 250, "598765432109", NOON_TEN)));
+
+        assertEquals(0, result.linked);
+        assertEquals(1, result.inserted);
+        assertNull(transactions.getById(local).getServerId());
+    }
+}